@@ -0,0 +1,157 @@
+package co.harbor.calendly.benchmark;
+
+import co.harbor.calendly.index.AvailabilityIndex;
+import co.harbor.calendly.index.DayLocks;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Throughput of concurrent availability writes, each a read-modify-write of one user day in its own transaction, as
+ * {@code AvailabilityHelper.addAvailability} does: the day's slots are read and the ones the new slot overlaps are
+ * replaced by their merged slot. {@code striped} serializes writes with {@link DayLocks}, {@code global} with a single lock, which is
+ * what serializing the whole table amounts to.
+ * <p>
+ * With {@code users=1000} writes almost never share a day and striped locking should scale with the thread count,
+ * while the global lock stays at single thread throughput. With {@code users=1} every write hits the same day and both
+ * serialize. Compare thread counts with JMH's {@code -t}, e.g.
+ * {@code -Djmh.args="DayLockBenchmark -t 8"}.
+ */
+@Fork(1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DayLockBenchmark {
+
+    private static final int EPOCH_DAY = (int) Date.valueOf("2023-07-03").toLocalDate().toEpochDay();
+
+    private static final String SELECT_SQL = "SELECT id, _start, _end FROM user_availability WHERE userid = ? AND _date = ?";
+    private static final String DELETE_SQL = "DELETE FROM user_availability WHERE id = ?";
+    private static final String INSERT_SQL = "INSERT INTO user_availability (_date, _start, _end, userid) VALUES (?, ?, ?, ?)";
+
+    @State(Scope.Benchmark)
+    public static class Database {
+
+        @Param({"striped", "global"})
+        String lock;
+
+        @Param({"1", "1000"})
+        int users;
+
+        String url;
+        Connection keepAlive;
+        DayLocks dayLocks = new DayLocks(1024, 10000);
+        ReentrantLock globalLock = new ReentrantLock();
+
+        @Setup(Level.Trial)
+        public void setUp() throws SQLException {
+            url = "jdbc:h2:mem:" + UUID.randomUUID();
+            keepAlive = DriverManager.getConnection(url, "sa", "");
+            try (Statement statement = keepAlive.createStatement()) {
+                statement.execute("CREATE TABLE user_availability (id INT AUTO_INCREMENT PRIMARY KEY, _date DATE, " +
+                        "_start TIME, _end TIME, userid INT)");
+                statement.execute("CREATE INDEX idx_user_availability_userid_date_start ON user_availability (userid, _date, _start)");
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws SQLException {
+            keepAlive.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Writer {
+
+        Connection connection;
+        SplittableRandom random;
+
+        @Setup(Level.Trial)
+        public void setUp(Database database) throws SQLException {
+            connection = DriverManager.getConnection(database.url, "sa", "");
+            connection.setAutoCommit(false);
+            random = new SplittableRandom(Thread.currentThread().getId());
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws SQLException {
+            connection.close();
+        }
+    }
+
+    @Benchmark
+    public int write(Database database, Writer writer) throws SQLException {
+        int userid = writer.random.nextInt(database.users);
+        int epochDay = EPOCH_DAY + writer.random.nextInt(7);
+        int start = writer.random.nextInt(0, 80000);
+        int end = start + writer.random.nextInt(900, 3600);
+        if ("global".equals(database.lock)) {
+            database.globalLock.lock();
+            try {
+                return merge(writer.connection, userid, epochDay, start, end);
+            } finally {
+                database.globalLock.unlock();
+            }
+        }
+        try (DayLocks.Held held = database.dayLocks.lock(Collections.singletonList(AvailabilityIndex.key(userid, epochDay)))) {
+            return merge(writer.connection, userid, epochDay, start, end);
+        }
+    }
+
+    // Reads the day, merges the slot with every slot it overlaps or touches and replaces those with the merged one
+    private static int merge(Connection connection, int userid, int epochDay, int start, int end) throws SQLException {
+        Date date = Date.valueOf(LocalDate.ofEpochDay(epochDay));
+        int mergedStart = start;
+        int mergedEnd = end;
+        List<Integer> absorbed = new ArrayList<>();
+        try (PreparedStatement select = connection.prepareStatement(SELECT_SQL)) {
+            select.setInt(1, userid);
+            select.setDate(2, date);
+            try (ResultSet resultSet = select.executeQuery()) {
+                while (resultSet.next()) {
+                    int slotStart = resultSet.getTime(2).toLocalTime().toSecondOfDay();
+                    int slotEnd = resultSet.getTime(3).toLocalTime().toSecondOfDay();
+                    if (slotStart <= mergedEnd && slotEnd >= mergedStart) {
+                        mergedStart = Math.min(mergedStart, slotStart);
+                        mergedEnd = Math.max(mergedEnd, slotEnd);
+                        absorbed.add(resultSet.getInt(1));
+                    }
+                }
+            }
+        }
+        try (PreparedStatement delete = connection.prepareStatement(DELETE_SQL);
+             PreparedStatement insert = connection.prepareStatement(INSERT_SQL)) {
+            for (Integer id : absorbed) {
+                delete.setInt(1, id);
+                delete.addBatch();
+            }
+            if (!absorbed.isEmpty()) {
+                delete.executeBatch();
+            }
+            insert.setDate(1, date);
+            insert.setTime(2, Time.valueOf(LocalTime.ofSecondOfDay(mergedStart)));
+            insert.setTime(3, Time.valueOf(LocalTime.ofSecondOfDay(Math.min(mergedEnd, 86399))));
+            insert.setInt(4, userid);
+            insert.executeUpdate();
+        }
+        connection.commit();
+        return absorbed.size();
+    }
+}
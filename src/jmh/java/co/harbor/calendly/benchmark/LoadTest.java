@@ -0,0 +1,122 @@
+package co.harbor.calendly.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Closed loop HTTP load test against a running instance, to compare throughput and tail latency of the default
+ * thread-per-request mode with {@code calendly.threads.virtual=true}. Each client sends its next request as soon as
+ * the previous one completes. Clients are driven with the asynchronous {@link HttpClient}, so 10k of them don't need
+ * 10k threads on the load generating side.
+ * <p>
+ * Arguments are {@code key=value} pairs:
+ * <pre>
+ *   url=http://localhost:8080/v1/overlap?user1=1&amp;user2=2&amp;date=2023-07-03
+ *   clients=1000,5000,10000   concurrent clients, one run per value
+ *   seconds=30                measured duration of each run
+ *   warmup=10                 unmeasured duration before each run
+ * </pre>
+ */
+public class LoadTest {
+
+    // Latency histogram buckets of 100 microseconds, up to 60 seconds
+    private static final int BUCKET_MICROS = 100;
+    private static final int BUCKETS = 600_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = new HashMap<>();
+        options.put("url", "http://localhost:8080/v1/overlap?user1=1&user2=2&date=2023-07-03");
+        options.put("clients", "1000,5000,10000");
+        options.put("seconds", "30");
+        options.put("warmup", "10");
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(options.get("url")))
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+        long seconds = Long.parseLong(options.get("seconds"));
+        long warmup = Long.parseLong(options.get("warmup"));
+
+        System.out.printf("%-8s %12s %10s %10s %10s %10s %8s%n", "clients", "requests/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "errors");
+        for (String clients : options.get("clients").split(",")) {
+            run(client, request, Integer.parseInt(clients.trim()), warmup, null);
+            Result result = new Result();
+            run(client, request, Integer.parseInt(clients.trim()), seconds, result);
+            System.out.printf("%-8s %12.1f %10.2f %10.2f %10.2f %10.2f %8d%n", clients.trim(),
+                    result.completed.get() / (double) seconds,
+                    result.percentile(0.5), result.percentile(0.99), result.percentile(0.999),
+                    result.maxMicros.get() / 1000.0, result.errors.get());
+        }
+    }
+
+    private static void run(HttpClient client, HttpRequest request, int clients, long seconds, Result result) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        CountDownLatch done = new CountDownLatch(clients);
+        for (int i = 0; i < clients; i++) {
+            send(client, request, deadline, result, done);
+        }
+        done.await();
+    }
+
+    private static void send(HttpClient client, HttpRequest request, long deadline, Result result, CountDownLatch done) {
+        long start = System.nanoTime();
+        if (start >= deadline) {
+            done.countDown();
+            return;
+        }
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            if (result != null) {
+                result.record((System.nanoTime() - start) / 1000, error == null && response.statusCode() < 400);
+            }
+            send(client, request, deadline, result, done);
+        });
+    }
+
+    private static final class Result {
+
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong maxMicros = new AtomicLong();
+
+        void record(long micros, boolean success) {
+            if (!success) {
+                errors.incrementAndGet();
+                return;
+            }
+            completed.incrementAndGet();
+            histogram.incrementAndGet((int) Math.min(micros / BUCKET_MICROS, BUCKETS - 1));
+            maxMicros.accumulateAndGet(micros, Math::max);
+        }
+
+        // Upper bound of the bucket holding the given percentile, in milliseconds
+        double percentile(double percentile) {
+            long target = (long) Math.ceil(completed.get() * percentile);
+            long seen = 0;
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                seen += histogram.get(bucket);
+                if (seen >= target && target > 0) {
+                    return (bucket + 1) * BUCKET_MICROS / 1000.0;
+                }
+            }
+            return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package co.harbor.calendly.benchmark;
+
+import co.harbor.calendly.entity.UserAvailability;
+import co.harbor.calendly.index.DaySlots;
+import co.harbor.calendly.index.AvailabilityIndex;
+import co.harbor.calendly.utils.TimeUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Time;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * H2 backed benchmark of the overlap and day lookup queries against the same lookups served from in-memory
+ * {@link DaySlots}. The database is created from {@code schema.sql} and filled with {@code slots} rows spread over
+ * {@code users} users, four slots per user per day, so query cost can be compared as the table grows.
+ * With {@code indexed=false} the (userid, _date, _start) index is dropped, which shows the full scan cost
+ * of the original BETWEEN overlap query next to the sargable one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OverlapQueryBenchmark {
+
+    private static final int EPOCH_DAY = (int) Date.valueOf("2023-07-03").toLocalDate().toEpochDay();
+    private static final int SLOTS_PER_DAY = 4;
+    private static final int LOOKUPS = 1024;
+
+    private static final String OVERLAP_SELECT = "SELECT DISTINCT u1._date, u1.userid, u2.userid, " +
+            "CASE WHEN u1._start > u2._start THEN u1._start ELSE u2._start END, " +
+            "CASE WHEN u1._end < u2._end THEN u1._end ELSE u2._end END " +
+            "FROM user_availability u1 INNER JOIN user_availability u2 " +
+            "ON u1.userid != u2.userid AND u1._date = u2._date ";
+
+    // Native form of IAvailabilityRepository#findOverlappingAvailabilityForDate
+    private static final String OVERLAP_SQL = OVERLAP_SELECT +
+            "AND u1._start < u2._end AND u1._end > u2._start " +
+            "WHERE u1._date = ? AND u1.userid = ? AND u2.userid = ?";
+
+    // The overlap query as it was before, kept as the baseline
+    private static final String OVERLAP_BETWEEN_SQL = OVERLAP_SELECT +
+            "AND (u1._start BETWEEN u2._start AND u2._end OR u1._end BETWEEN u2._start AND u2._end) " +
+            "WHERE u1._date = ? AND u1.userid = ? AND u2.userid = ?";
+
+    private static final String DROP_INDEX_SQL = "DROP INDEX IF EXISTS idx_user_availability_userid_date_start";
+
+    private static final String DAY_SQL = "SELECT id, _date, _start, _end, userid FROM user_availability WHERE _date = ? AND userid = ?";
+
+    private static final String INSERT_SQL = "INSERT INTO user_availability (_date, _start, _end, userid) VALUES (?, ?, ?, ?)";
+
+    @Param({"1000", "100000", "1000000"})
+    int slots;
+
+    @Param({"10", "10000"})
+    int users;
+
+    @Param({"true", "false"})
+    boolean indexed;
+
+    private Connection connection;
+    private PreparedStatement overlapStatement;
+    private PreparedStatement overlapBetweenStatement;
+    private PreparedStatement dayStatement;
+    private Map<Long, DaySlots> index;
+    private int[] firstUsers;
+    private int[] secondUsers;
+    private int[] epochDays;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException, IOException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            for (String ddl : readSchema().split(";")) {
+                if (!ddl.trim().isEmpty()) {
+                    statement.execute(ddl);
+                }
+            }
+            if (!indexed) {
+                statement.execute(DROP_INDEX_SQL);
+            }
+        }
+
+        int days = Math.max(1, slots / (users * SLOTS_PER_DAY));
+        SplittableRandom random = new SplittableRandom(42);
+        Map<Long, List<UserAvailability>> rows = new HashMap<>();
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_SQL)) {
+            for (int i = 0; i < slots; i++) {
+                int userid = i % users + 1;
+                int epochDay = EPOCH_DAY + (i / users / SLOTS_PER_DAY) % days;
+                // One slot in each quarter of the day so a user's slots never collide with each other
+                int quarter = (i / users) % SLOTS_PER_DAY;
+                int start = quarter * 21600 + random.nextInt(0, 10800);
+                UserAvailability availability = new UserAvailability();
+                availability.set_date(TimeUtils.toDate(epochDay));
+                availability.set_start(TimeUtils.toTime(start));
+                availability.set_end(TimeUtils.toTime(start + random.nextInt(900, 10800)));
+                availability.setUserid(userid);
+                rows.computeIfAbsent(AvailabilityIndex.key(userid, epochDay), k -> new ArrayList<>()).add(availability);
+
+                insert.setDate(1, availability.get_date());
+                insert.setTime(2, availability.get_start());
+                insert.setTime(3, availability.get_end());
+                insert.setInt(4, userid);
+                insert.addBatch();
+                if (i % 1000 == 999) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+
+        index = new HashMap<>();
+        rows.forEach((key, availabilities) -> index.put(key, DaySlots.of((int) (key >>> 32), (int) (long) key, availabilities)));
+
+        firstUsers = new int[LOOKUPS];
+        secondUsers = new int[LOOKUPS];
+        epochDays = new int[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            int first = random.nextInt(users);
+            firstUsers[i] = first + 1;
+            secondUsers[i] = (first + random.nextInt(1, users)) % users + 1;
+            epochDays[i] = EPOCH_DAY + random.nextInt(days);
+        }
+        overlapStatement = connection.prepareStatement(OVERLAP_SQL);
+        overlapBetweenStatement = connection.prepareStatement(OVERLAP_BETWEEN_SQL);
+        dayStatement = connection.prepareStatement(DAY_SQL);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SHUTDOWN");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public void overlapQuery(Blackhole blackhole) throws SQLException {
+        overlap(overlapStatement, blackhole);
+    }
+
+    @Benchmark
+    public void overlapBetweenQuery(Blackhole blackhole) throws SQLException {
+        overlap(overlapBetweenStatement, blackhole);
+    }
+
+    @Benchmark
+    public List<int[]> overlapInProcess() {
+        int i = next();
+        return day(firstUsers[i], epochDays[i]).overlap(day(secondUsers[i], epochDays[i]));
+    }
+
+    @Benchmark
+    public void dayQuery(Blackhole blackhole) throws SQLException {
+        int i = next();
+        dayStatement.setDate(1, TimeUtils.toDate(epochDays[i]));
+        dayStatement.setInt(2, firstUsers[i]);
+        try (ResultSet resultSet = dayStatement.executeQuery()) {
+            while (resultSet.next()) {
+                blackhole.consume(resultSet.getInt(1));
+                blackhole.consume(resultSet.getTime(3));
+                blackhole.consume(resultSet.getTime(4));
+            }
+        }
+    }
+
+    @Benchmark
+    public DaySlots dayInProcess() {
+        int i = next();
+        return day(firstUsers[i], epochDays[i]);
+    }
+
+    private void overlap(PreparedStatement statement, Blackhole blackhole) throws SQLException {
+        int i = next();
+        statement.setDate(1, TimeUtils.toDate(epochDays[i]));
+        statement.setInt(2, firstUsers[i]);
+        statement.setInt(3, secondUsers[i]);
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                blackhole.consume(resultSet.getTime(4));
+                blackhole.consume(resultSet.getTime(5));
+            }
+        }
+    }
+
+    private DaySlots day(int userid, int epochDay) {
+        DaySlots slots = index.get(AvailabilityIndex.key(userid, epochDay));
+        return slots == null ? DaySlots.empty(userid, epochDay) : slots;
+    }
+
+    private int next() {
+        cursor = (cursor + 1) & (LOOKUPS - 1);
+        return cursor;
+    }
+
+    private static String readSchema() throws IOException {
+        try (InputStream in = OverlapQueryBenchmark.class.getResourceAsStream("/schema.sql")) {
+            if (in == null) {
+                throw new IOException("schema.sql not found on the classpath");
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package co.harbor.calendly.benchmark;
+
+import co.harbor.calendly.entity.UserAvailability;
+import co.harbor.calendly.index.AvailabilityIndex;
+import co.harbor.calendly.index.DaySlots;
+import co.harbor.calendly.utils.TimeUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Startup and write cost of the persistent, file backed H2 configuration of the {@code persistent} profile.
+ * <p>
+ * {@code coldStart} is what a restart of the in-memory database costs: the schema is created and all {@code slots}
+ * rows are imported again. {@code warmStart} reopens the file database holding the same rows, and
+ * {@code warmStartWithPreload} also loads the next two weeks of every user into {@link DaySlots}, as
+ * {@code IndexPreloader} does. {@code durableInsert} commits one slot per transaction, with {@code WRITE_DELAY=0}
+ * as configured by the profile against H2's default delayed writes.
+ */
+@Fork(1)
+public class PersistenceBenchmark {
+
+    private static final int EPOCH_DAY = (int) Date.valueOf("2023-07-03").toLocalDate().toEpochDay();
+    private static final int USERS = 1000;
+    private static final int SLOTS_PER_DAY = 4;
+    private static final int PRELOAD_DAYS = 14;
+
+    private static final String INSERT_SQL = "INSERT INTO user_availability (_date, _start, _end, userid) VALUES (?, ?, ?, ?)";
+    private static final String SELECT_BETWEEN_SQL = "SELECT id, _date, _start, _end, userid FROM user_availability " +
+            "WHERE _date BETWEEN ? AND ? ORDER BY userid, _date, _start";
+    private static final String FILE_SETTINGS = ";CACHE_SIZE=131072;MAX_COMPACT_TIME=2000";
+
+    @State(Scope.Benchmark)
+    public static class StartupState {
+
+        @Param({"100000", "1000000"})
+        int slots;
+
+        Path directory;
+        String url;
+
+        @Setup(Level.Trial)
+        public void setUp() throws SQLException, IOException {
+            directory = Files.createTempDirectory("calendly-benchmark");
+            url = "jdbc:h2:file:" + directory.resolve("calendlydb") + FILE_SETTINGS;
+            try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+                createSchema(connection);
+                importSlots(connection, slots);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("SHUTDOWN COMPACT");
+                }
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            deleteDirectory(directory);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class WriteState {
+
+        @Param({"0", "500"})
+        int writeDelay;
+
+        Path directory;
+        Connection connection;
+        PreparedStatement insert;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp() throws SQLException, IOException {
+            directory = Files.createTempDirectory("calendly-benchmark");
+            connection = DriverManager.getConnection("jdbc:h2:file:" + directory.resolve("calendlydb") + FILE_SETTINGS
+                    + ";WRITE_DELAY=" + writeDelay, "sa", "");
+            createSchema(connection);
+            insert = connection.prepareStatement(INSERT_SQL);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws SQLException, IOException {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SHUTDOWN");
+            }
+            connection.close();
+            deleteDirectory(directory);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public int coldStart(StartupState state) throws SQLException, IOException {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:" + UUID.randomUUID(), "sa", "")) {
+            createSchema(connection);
+            importSlots(connection, state.slots);
+            return firstDay(connection);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public int warmStart(StartupState state) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(state.url, "sa", "")) {
+            return firstDay(connection);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public Map<Long, DaySlots> warmStartWithPreload(StartupState state) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(state.url, "sa", "")) {
+            return preload(connection);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public int durableInsert(WriteState state) throws SQLException {
+        int i = state.next++;
+        state.insert.setDate(1, TimeUtils.toDate(EPOCH_DAY + i / (USERS * SLOTS_PER_DAY)));
+        state.insert.setTime(2, TimeUtils.toTime(i % SLOTS_PER_DAY * 21600));
+        state.insert.setTime(3, TimeUtils.toTime(i % SLOTS_PER_DAY * 21600 + 3600));
+        state.insert.setInt(4, i / SLOTS_PER_DAY % USERS + 1);
+        return state.insert.executeUpdate();
+    }
+
+    // The query a request for the first user and day runs once the database is open
+    private static int firstDay(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT COUNT(*) FROM user_availability WHERE userid = ? AND _date = ?")) {
+            statement.setInt(1, 1);
+            statement.setDate(2, TimeUtils.toDate(EPOCH_DAY));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getInt(1);
+            }
+        }
+    }
+
+    private static Map<Long, DaySlots> preload(Connection connection) throws SQLException {
+        Map<Long, List<UserAvailability>> rows = new HashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(SELECT_BETWEEN_SQL)) {
+            statement.setFetchSize(500);
+            statement.setDate(1, TimeUtils.toDate(EPOCH_DAY));
+            statement.setDate(2, TimeUtils.toDate(EPOCH_DAY + PRELOAD_DAYS - 1));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    UserAvailability availability = new UserAvailability();
+                    availability.setId(resultSet.getInt(1));
+                    availability.set_date(resultSet.getDate(2));
+                    availability.set_start(resultSet.getTime(3));
+                    availability.set_end(resultSet.getTime(4));
+                    availability.setUserid(resultSet.getInt(5));
+                    rows.computeIfAbsent(AvailabilityIndex.key(availability.getUserid(), TimeUtils.toEpochDay(availability.get_date())),
+                            key -> new ArrayList<>()).add(availability);
+                }
+            }
+        }
+        Map<Long, DaySlots> index = new HashMap<>();
+        rows.forEach((key, availabilities) -> index.put(key, DaySlots.of((int) (key >>> 32), (int) (long) key, availabilities)));
+        return index;
+    }
+
+    private static void createSchema(Connection connection) throws SQLException, IOException {
+        try (Statement statement = connection.createStatement()) {
+            for (String ddl : readSchema().split(";")) {
+                if (!ddl.trim().isEmpty()) {
+                    statement.execute(ddl);
+                }
+            }
+        }
+    }
+
+    // Four slots per user per day, one in each quarter of the day, over as many days as it takes
+    private static void importSlots(Connection connection, int slots) throws SQLException {
+        SplittableRandom random = new SplittableRandom(42);
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_SQL)) {
+            for (int i = 0; i < slots; i++) {
+                int start = (i / USERS) % SLOTS_PER_DAY * 21600 + random.nextInt(0, 10800);
+                insert.setDate(1, TimeUtils.toDate(EPOCH_DAY + i / (USERS * SLOTS_PER_DAY)));
+                insert.setTime(2, TimeUtils.toTime(start));
+                insert.setTime(3, TimeUtils.toTime(start + random.nextInt(900, 10800)));
+                insert.setInt(4, i % USERS + 1);
+                insert.addBatch();
+                if (i % 1000 == 999) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+    }
+
+    private static String readSchema() throws IOException {
+        try (InputStream in = PersistenceBenchmark.class.getResourceAsStream("/schema.sql")) {
+            if (in == null) {
+                throw new IOException("schema.sql not found on the classpath");
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
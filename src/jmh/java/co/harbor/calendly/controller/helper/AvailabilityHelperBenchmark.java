@@ -0,0 +1,175 @@
+package co.harbor.calendly.controller.helper;
+
+import co.harbor.calendly.entity.UserAvailability;
+import co.harbor.calendly.index.DayBitmap;
+import co.harbor.calendly.index.DaySlots;
+import co.harbor.calendly.model.Interval;
+import co.harbor.calendly.model.RecurringUserAvailability;
+import co.harbor.calendly.model.Slot;
+import co.harbor.calendly.utils.IntervalUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process benchmarks of the {@link AvailabilityHelper} hot paths: splitting slots on delete, recurring expansion,
+ * pairwise overlap and group overlap. Run with {@code -prof gc} to see the allocation rate of each path.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AvailabilityHelperBenchmark {
+
+    private static final int EPOCH_DAY = (int) Date.valueOf("2023-07-03").toLocalDate().toEpochDay();
+    private static final int SLOTS_PER_DAY = 4;
+
+    @State(Scope.Benchmark)
+    public static class SlotState {
+
+        @Param({"1000", "100000", "1000000"})
+        int slots;
+
+        long[] packedSlots;
+        List<UserAvailability> availabilities;
+        UserAvailability deletion;
+        int[] deletionWindows;
+        long[] fragments;
+        List<DaySlots> firstUserDays;
+        List<DaySlots> secondUserDays;
+        AvailabilityHelper availabilityHelper = new AvailabilityHelper();
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            SplittableRandom random = new SplittableRandom(42);
+            packedSlots = new long[slots];
+            availabilities = new ArrayList<>(slots);
+            for (int i = 0; i < slots; i++) {
+                int start = random.nextInt(0, 80000);
+                int end = start + random.nextInt(900, 6400);
+                packedSlots[i] = Slot.of(EPOCH_DAY + i / SLOTS_PER_DAY, start, end);
+                availabilities.add(Slot.toEntity(packedSlots[i], 1));
+            }
+            deletion = new UserAvailability();
+            deletion.set_start(Time.valueOf("10:00:00"));
+            deletion.set_end(Time.valueOf("11:30:00"));
+            deletionWindows = new int[]{36000, 41400, 50400, 54000};
+            fragments = new long[deletionWindows.length / 2 + 1];
+
+            // Two users with the slots spread over as many days as it takes, SLOTS_PER_DAY each per day
+            firstUserDays = new ArrayList<>();
+            secondUserDays = new ArrayList<>();
+            for (int offset = 0; offset + 2 * SLOTS_PER_DAY <= slots; offset += 2 * SLOTS_PER_DAY) {
+                int epochDay = EPOCH_DAY + offset / (2 * SLOTS_PER_DAY);
+                firstUserDays.add(DaySlots.of(1, epochDay, availabilities.subList(offset, offset + SLOTS_PER_DAY)));
+                secondUserDays.add(DaySlots.of(2, epochDay, availabilities.subList(offset + SLOTS_PER_DAY, offset + 2 * SLOTS_PER_DAY)));
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class GroupState {
+
+        @Param({"10", "1000", "10000"})
+        int users;
+
+        List<int[]> freeWindows;
+        List<DayBitmap> bitmaps;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            SplittableRandom random = new SplittableRandom(42);
+            freeWindows = new ArrayList<>(users);
+            bitmaps = new ArrayList<>(users);
+            for (int user = 0; user < users; user++) {
+                int[] windows = new int[2 * SLOTS_PER_DAY];
+                int cursor = 0;
+                for (int i = 0; i < windows.length; i += 2) {
+                    windows[i] = cursor + random.nextInt(0, 3600);
+                    windows[i + 1] = windows[i] + random.nextInt(3600, 14400);
+                    cursor = windows[i + 1] + 1;
+                }
+                freeWindows.add(windows);
+                bitmaps.add(DayBitmap.of(windows, 60));
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class RecurringState {
+
+        @Param({"10", "100"})
+        int occurrences;
+
+        RecurringUserAvailability weekly;
+        RecurringUserAvailability weekdays;
+        AvailabilityHelper availabilityHelper = new AvailabilityHelper();
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            weekly = recurring(Interval.WEEKLY, occurrences);
+            weekdays = recurring(Interval.WEEKDAYS, occurrences);
+        }
+
+        private static RecurringUserAvailability recurring(Interval interval, int occurrences) {
+            RecurringUserAvailability availability = new RecurringUserAvailability();
+            availability.setStartdate(Date.valueOf("2023-07-03"));
+            availability.set_start(Time.valueOf("09:00:00"));
+            availability.set_end(Time.valueOf("17:00:00"));
+            availability.setInterval(interval.name());
+            availability.setOccurrences(occurrences);
+            availability.setUserid(1);
+            return availability;
+        }
+    }
+
+    @Benchmark
+    public void splitPackedSlots(SlotState state, Blackhole blackhole) {
+        int fragments = 0;
+        for (long slot : state.packedSlots) {
+            fragments += IntervalUtils.subtractAll(slot, state.deletionWindows, state.fragments, 0);
+        }
+        blackhole.consume(fragments);
+    }
+
+    @Benchmark
+    public void splitEntities(SlotState state, Blackhole blackhole) {
+        for (UserAvailability availability : state.availabilities) {
+            blackhole.consume(state.availabilityHelper.computeUpdatedAvailability(availability, state.deletion));
+        }
+    }
+
+    @Benchmark
+    public void overlapTwoUsers(SlotState state, Blackhole blackhole) {
+        for (int day = 0; day < state.firstUserDays.size(); day++) {
+            blackhole.consume(state.firstUserDays.get(day).overlap(state.secondUserDays.get(day)));
+        }
+    }
+
+    @Benchmark
+    public int[] overlapGroup(GroupState state) {
+        return IntervalUtils.intersectAll(state.freeWindows);
+    }
+
+    @Benchmark
+    public int[] overlapGroupBitmap(GroupState state) {
+        return DayBitmap.intersect(state.bitmaps);
+    }
+
+    @Benchmark
+    public List<UserAvailability> expandWeekly(RecurringState state) {
+        return state.availabilityHelper.computeRecurringAvailability(state.weekly);
+    }
+
+    @Benchmark
+    public List<UserAvailability> expandWeekdays(RecurringState state) {
+        return state.availabilityHelper.computeRecurringAvailability(state.weekdays);
+    }
+}
@@ -0,0 +1,49 @@
+package co.harbor.calendly.config;
+
+import co.harbor.calendly.entity.User;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+/**
+ * Enables the Caffeine backed Spring caches configured with {@code spring.cache.*}. Actuator binds the statistics
+ * of every cache named in {@code spring.cache.cache-names} to the {@code cache.*} metrics.
+ * <p>
+ * Cached users are entities, which are mutable, so the caches hold copies of them: a copy is stored on put and
+ * handed out on every hit, see {@link CopyingCaffeineCache}. A caller changing the user it was given, or a persistence
+ * context managing it, can't change what the next caller reads.
+ */
+@Configuration
+@EnableCaching
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfig {
+
+    public static final String USERS_BY_ID = "usersById";
+    public static final String USERS_BY_EMAIL = "usersByEmail";
+
+    @Bean
+    public CacheManager cacheManager(CacheProperties cacheProperties) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return new CopyingCaffeineCache(name, cache, isAllowNullValues(), CacheConfig::copy);
+            }
+        };
+        String specification = cacheProperties.getCaffeine().getSpec();
+        if (StringUtils.hasText(specification)) {
+            cacheManager.setCacheSpecification(specification);
+        }
+        cacheManager.setCacheNames(cacheProperties.getCacheNames());
+        return cacheManager;
+    }
+
+    private static Object copy(Object value) {
+        return value instanceof User ? ((User) value).copy() : value;
+    }
+}
@@ -0,0 +1,45 @@
+package co.harbor.calendly.config;
+
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+import java.util.function.UnaryOperator;
+
+/**
+ * A {@link CaffeineCache} that stores a copy of every value put and returns a copy of it on every hit, so cached
+ * mutable values are never shared with callers. It is still a {@link CaffeineCache}, so Actuator keeps binding its
+ * statistics.
+ */
+public class CopyingCaffeineCache extends CaffeineCache {
+
+    private final UnaryOperator<Object> copier;
+
+    public CopyingCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache, boolean allowNullValues,
+                                UnaryOperator<Object> copier) {
+        super(name, cache, allowNullValues);
+        this.copier = copier;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        return copier.apply(super.lookup(key));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return (T) copier.apply(super.get(key, () -> (T) copier.apply(valueLoader.call())));
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        super.put(key, copier.apply(value));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = super.putIfAbsent(key, copier.apply(value));
+        return existing == null ? null : new SimpleValueWrapper(copier.apply(existing.get()));
+    }
+}
@@ -0,0 +1,28 @@
+package co.harbor.calendly.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Declares the JDBC {@code DataSource} that JPA, the JDBC batch repositories and {@code JdbcTemplate} run on.
+ * <p>
+ * With R2DBC on the classpath, {@link DataSourceAutoConfiguration} backs off as soon as the R2DBC
+ * {@code ConnectionFactory} exists, which would leave the application without a {@code DataSource}. It is therefore
+ * built here from the same {@code spring.datasource.*} and {@code spring.datasource.hikari.*} properties, so the
+ * blocking and the reactive APIs both run against the database configured there.
+ */
+@Configuration
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+}
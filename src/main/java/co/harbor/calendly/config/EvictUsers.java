@@ -0,0 +1,21 @@
+package co.harbor.calendly.config;
+
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import static co.harbor.calendly.config.CacheConfig.USERS_BY_EMAIL;
+import static co.harbor.calendly.config.CacheConfig.USERS_BY_ID;
+
+/**
+ * Drops both user caches once the annotated method returns, for methods that write users.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Caching(evict = {@CacheEvict(cacheNames = USERS_BY_ID, allEntries = true), @CacheEvict(cacheNames = USERS_BY_EMAIL, allEntries = true)})
+public @interface EvictUsers {
+}
@@ -0,0 +1,49 @@
+package co.harbor.calendly.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Opt-in mode, enabled with {@code calendly.threads.virtual=true}, that serves every request on its own virtual thread
+ * instead of Tomcat's fixed pool of platform threads. Repository calls run on the request thread, so a request
+ * blocked on JDBC parks its virtual thread and frees the carrier for other requests. Streaming responses run on
+ * virtual threads too, through the {@code applicationTaskExecutor} used by Spring MVC for async requests.
+ * <p>
+ * Virtual threads need a Java 21 or later runtime. The executor is looked up reflectively so the application still
+ * compiles for, and runs in the default mode on, Java 11.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "calendly.threads.virtual", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(newVirtualThreadPerTaskExecutor());
+    }
+
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(newVirtualThreadPerTaskExecutor());
+    }
+
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            log.info("Serving requests on virtual threads");
+            return executor;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("calendly.threads.virtual=true needs a Java 21 or later runtime, running on "
+                    + System.getProperty("java.version"), e);
+        }
+    }
+}
@@ -15,10 +15,67 @@ public class Constants {
 
     public static final String DELETE_AVAILABILITY_API_RESPONSE_SUCCESS_MESSAGE = "Deleted availability successfully.";
 
+    public static final String INVALID_AVAILABILITY_ERROR_MSG = "Availability needs a user id, a date and a start time before its end time.";
+
     public static final String RECURRING_AVAILABILITY_API_RESPONSE_SUCCESS_MESSAGE = "Recurring availability added successfully";
 
     public static final String ADD_RECURRING_AVAILABILITY_UNIQUE_CONSTRAINT_VIOLATION_ERROR_MSG = "Recurring availability already exists.";
 
+    public static final String INVALID_RECURRING_AVAILABILITY_ERROR_MSG = "Recurring availability needs a user id, a start date, an interval of daily, weekly or weekdays and a start time before its end time.";
+
     public static final String ADD_USERS_UNIQUE_CONSTRAINT_VIOLATION_ERROR_MSG = "Given email ids already exist.";
 
+    public static final String GROUP_OVERLAP_MIN_USERS_ERROR_MSG = "At least two distinct user ids are required.";
+
+    public static final String INVALID_DATE_ERROR_MSG = "Error parsing the given date.";
+
+    public static final int MAX_DATE_RANGE_DAYS = 366;
+
+    public static final String INVALID_DATE_RANGE_ERROR_MSG = "The date range must start on or before its end and span at most " + MAX_DATE_RANGE_DAYS + " days.";
+
+    public static final long MAX_BULK_OVERLAP_PAIR_DAYS = 1_000_000;
+
+    public static final String BULK_OVERLAP_TOO_LARGE_ERROR_MSG = "A bulk overlap report can cover at most " + MAX_BULK_OVERLAP_PAIR_DAYS + " pairs of users times days.";
+
+    public static final int MAX_IMPORT_FAILURES_REPORTED = 1000;
+
+    public static final String INVALID_IMPORT_ROW_ERROR_MSG = "Row could not be parsed.";
+
+    public static final String IMPORT_ROW_NOT_SAVED_ERROR_MSG = "Row could not be saved, retry it.";
+
+    public static final String INVALID_USER_ERROR_MSG = "User needs a first name and an email id.";
+
+    public static final String DUPLICATE_EMAIL_ERROR_MSG = "Email id already exists.";
+
+    public static final int MAX_CURSOR_PAGE_SIZE = 1000;
+
+    public static final String INVALID_CURSOR_ERROR_MSG = "Invalid cursor, pass the next cursor of the previous page as is.";
+
+    public static final String INVALID_CURSOR_PAGE_SIZE_ERROR_MSG = "The page size must be between 1 and " + MAX_CURSOR_PAGE_SIZE + ".";
+
+    public static final String INVALID_SNAPSHOT_NAME_ERROR_MSG = "Unknown snapshot, pass a name returned by the snapshot API.";
+
+    public static final String INVALID_SNAPSHOT_ERROR_MSG = "The snapshot is corrupt or of another version.";
+
+    public static final String ADD_AVAILABILITY_API_RESPONSE_ACCEPTED_MESSAGE = "Availability accepted, it is saved shortly.";
+
+    public static final String RECURRING_AVAILABILITY_API_RESPONSE_ACCEPTED_MESSAGE = "Recurring availability accepted, it is saved shortly.";
+
+    public static final String WRITE_BEHIND_QUEUE_FULL_ERROR_MSG = "Too many writes are waiting to be saved, retry shortly.";
+
+    public static final String INVALID_TIME_ZONE_ERROR_MSG = "Unknown time zone, pass a region id such as America/New_York or an offset such as +05:30.";
+
+    public static final String INVALID_BOOKING_ERROR_MSG = "A booking needs user ids, a date and a start time before its end time.";
+
+    public static final String BOOKING_CONFLICT_ERROR_MSG = "The window is being booked or was booked already.";
+
+    public static final String BOOKING_NOT_AVAILABLE_ERROR_MSG = "The window is not within the availability of every user.";
+
+    public static final String UNKNOWN_BOOKING_ERROR_MSG = "Unknown booking, pass a reference returned by the booking API.";
+
+    public static final int MAX_SLOT_SEARCH_RESULTS = 100;
+
+    public static final String INVALID_SLOT_SEARCH_ERROR_MSG = "The duration must be positive and fit in a day with its buffers, the horizon between 1 and "
+            + MAX_DATE_RANGE_DAYS + " days and the limit between 1 and " + MAX_SLOT_SEARCH_RESULTS + ".";
+
 }
@@ -1,11 +1,18 @@
 package co.harbor.calendly.controller;
 
 import co.harbor.calendly.controller.helper.AvailabilityHelper;
+import co.harbor.calendly.controller.helper.BulkOverlapHelper;
+import co.harbor.calendly.controller.helper.WriteBehindHelper;
 import co.harbor.calendly.entity.UserAvailability;
+import co.harbor.calendly.model.CursorPage;
+import co.harbor.calendly.model.GroupOverlappingAvailability;
+import co.harbor.calendly.model.MeetingSlot;
 import co.harbor.calendly.model.OverlappingAvailability;
 import co.harbor.calendly.model.RecurringUserAvailability;
 import co.harbor.calendly.model.Response;
 import co.harbor.calendly.repository.IAvailabilityRepository;
+import co.harbor.calendly.utils.TimeUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,31 +21,54 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
-import java.text.ParseException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Date;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneRules;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static co.harbor.calendly.constants.Constants.*;
 import static co.harbor.calendly.controller.helper.ErrorHelper.handleDataIntegrityViolationException;
+import static co.harbor.calendly.controller.helper.RequestHelper.parseDate;
+import static co.harbor.calendly.controller.helper.RequestHelper.validateRange;
 
 /**
  * This is availability controller class. It has APIs to
  * **   1. Set availability for a user
  * **   2. Show availability for a user
+ * **   2a. Page through availability of a user, or of every user, with keyset pagination
  * **   3. Show overlapping availability for two users for a given date.
+ * **   3a. Show common availability for a group of users for a given date.
+ * **   3b. Stream availability of a user and overlapping availability of two users over a date range.
+ * **   3c. Stream common availability for a group of users over a date range.
+ * **   3d. Bulk overlapping availability for every pair of a group, or every user against one user, over a date range.
  * **   4. Set recurring availability for a user
  * **   5. Deleting availability for a user, the deletion availability can partially overlap
  *          with one or more existing availabilities
+ * **   5a. Deleting a list of availability windows in one transaction
  *
- *    The Dates/timestamps are assumed to be in UTC. Assumption is that UI/front end layer does the conversion from
- *    other timezones to UTC.
+ *    Availability is stored and written in UTC. Reads take an optional tz, e.g. {@code Europe/Berlin}, and then return
+ *    the availability of the local dates of that time zone in local times, UTC otherwise.
  */
 @Slf4j
 @Data
@@ -51,27 +81,52 @@ public class AvailabilityController {
     @Autowired
     private AvailabilityHelper availabilityHelper;
 
+    @Autowired
+    private BulkOverlapHelper bulkOverlapHelper;
+
+    @Autowired
+    private WriteBehindHelper writeBehindHelper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     private static final String DEFAULT_PAGE_NUMBER = "0";
     private static final String DEFAULT_PAGE_SIZE = "5";
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
 
     /**
      *
-     * Sets the given availabilities
+     * Sets the given availabilities. Overlapping or touching availability of the same user and date,
+     * new or existing, is merged into a single slot.
+     * In write-behind mode the availability is queued and acknowledged with 202 Accepted, unless {@code wait} is set.
      *
      * @param availabilityList List of availability
+     * @param wait in write-behind mode, respond once the availability is saved
      * @return {@link Response}
      */
     @PostMapping("/v1/availability")
     public ResponseEntity<Response> addAvailability(
             @RequestBody
             @NotEmpty
-            List<UserAvailability> availabilityList) {
+            List<UserAvailability> availabilityList,
+            @RequestParam(defaultValue = "false") boolean wait) {
         try {
-            availabilityRepository.saveAll(availabilityList);
+            if (writeBehindHelper.isEnabled()) {
+                return acknowledge(writeBehindHelper.addAvailability(availabilityList), wait,
+                        ADD_AVAILABILITY_API_RESPONSE_ACCEPTED_MESSAGE, ADD_AVAILABILITY_API_RESPONSE_SUCCESS_MESSAGE,
+                        HttpStatus.OK, ADD_AVAILABILITY_UNIQUE_CONSTRAINT_VIOLATION_ERROR_MSG);
+            }
+            availabilityHelper.addAvailability(availabilityList);
             Response response = new Response(ADD_AVAILABILITY_API_RESPONSE_SUCCESS_MESSAGE, SUCCESS);
             return new ResponseEntity<>(response, HttpStatus.OK);
         } catch (DataIntegrityViolationException e) {
             return handleDataIntegrityViolationException(e, ADD_AVAILABILITY_UNIQUE_CONSTRAINT_VIOLATION_ERROR_MSG);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new Response(e.getMessage(), ERROR));
+        } catch (IllegalStateException e) {
+            // The write-behind queue is full
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(new Response(e.getMessage(), ERROR));
         }
     }
 
@@ -79,6 +134,7 @@ public class AvailabilityController {
      * Shows availability for a given user.
      *
      * @param userId user id of the user
+     * @param tz optional time zone of the date, e.g. {@code Europe/Berlin}, UTC otherwise
      * @param page starting page number for paginating the results
      * @param size page size for paginating the results
      * @return {@link Page<UserAvailability>}
@@ -87,23 +143,86 @@ public class AvailabilityController {
     public ResponseEntity<List<UserAvailability>> showAvailabilityForUser(
             @RequestParam(name = "user_id") @NotNull Integer userId,
             @RequestParam @NotNull String date,
+            @RequestParam(required = false) String tz,
             @RequestParam(defaultValue = DEFAULT_PAGE_NUMBER) int page,
             @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size
     ) {
+        ZoneRules zone = zoneRules(tz);
         try {
-            return ResponseEntity.ok(availabilityHelper.findAvailabilityForAUserAndDate(userId, date));
+            return ResponseEntity.ok(zone == null
+                    ? availabilityHelper.findAvailabilityForAUserAndDate(userId, date)
+                    : availabilityHelper.findAvailabilityForAUserAndDate(userId, date, zone));
         } catch (Exception e) {
             log.error("Exception parsing the given date {}", e.getMessage(), e);
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Error parsing the given date.");
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_DATE_ERROR_MSG);
         }
     }
 
+    /**
+     * Shows availability in (user, date, start) order with keyset pagination, e.g. for sync jobs walking every slot.
+     * There is no total count and every page costs the same, however deep.
+     * <p>
+     * Only stored slots are listed. Occurrences of recurring rules are not stored, and an open ended rule has no last
+     * occurrence to page up to, so they are left out and slots they overlap are listed as stored. Use
+     * {@code /v1/availability/range} for a user's complete availability over a range of dates.
+     *
+     * @param userId optional user id; when given only that user's availability is listed
+     * @param cursor the next cursor of the previous page, none for the first page
+     * @param size size of the page
+     * @return {@link CursorPage<UserAvailability>}
+     */
+    @GetMapping("/v1/availability/cursor")
+    public ResponseEntity<CursorPage<UserAvailability>> showAvailabilityAfter(
+            @RequestParam(name = "user_id", required = false) Integer userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size
+    ) {
+        if (size < 1 || size > MAX_CURSOR_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_CURSOR_PAGE_SIZE_ERROR_MSG);
+        }
+        try {
+            return ResponseEntity.ok(availabilityHelper.findAvailabilityAfter(userId, cursor, size));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Streams availability for a given user over a date range as newline delimited JSON, one slot per line.
+     *
+     * @param userId user id of the user
+     * @param from first date of the range, inclusive
+     * @param to last date of the range, inclusive
+     * @param tz optional time zone of the dates, e.g. {@code Europe/Berlin}, UTC otherwise
+     * @return {@link StreamingResponseBody} of {@link UserAvailability}
+     */
+    @GetMapping("/v1/availability/range")
+    public ResponseEntity<StreamingResponseBody> showAvailabilityForUserInRange(
+            @RequestParam(name = "user_id") @NotNull Integer userId,
+            @RequestParam @NotNull String from,
+            @RequestParam @NotNull String to,
+            @RequestParam(required = false) String tz
+    ) {
+        Date fromDate = parseDate(from);
+        Date toDate = parseDate(to);
+        validateRange(fromDate, toDate);
+        ZoneRules zone = zoneRules(tz);
+
+        if (zone != null) {
+            return ndjson(outputStream -> availabilityHelper.streamAvailabilityForAUser(userId, fromDate, toDate, zone,
+                    availability -> writeLine(outputStream, availability)));
+        }
+        return ndjson(outputStream -> availabilityHelper.streamAvailabilityForAUser(userId, fromDate, toDate,
+                availability -> writeLine(outputStream, availability)));
+    }
+
     /**
      * Shows overlapping availability for two users. Specifying date is optional. When specified, overlapping availability is
      * show for that particular date or for all dates otherwise.
      * @param user1 user id of one user
      * @param user2 user id of another user
      * @param date optional date
+     * @param tz optional time zone of the date, e.g. {@code Europe/Berlin}, UTC otherwise
      * @param page starting page number for paginating the results
      * @param size page size for paginating the results
      * @return
@@ -113,16 +232,20 @@ public class AvailabilityController {
         @RequestParam @NotNull Integer user1,
         @RequestParam @NotNull Integer user2,
         @RequestParam String date,
+        @RequestParam(required = false) String tz,
         @RequestParam(defaultValue = DEFAULT_PAGE_NUMBER) int page,
         @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size
         ) {
 
+        ZoneRules zone = zoneRules(tz);
         Pageable pageable = PageRequest.of(page, size);
         Page<OverlappingAvailability> overlappingAvailability = null;
 
         try {
-            overlappingAvailability = availabilityHelper.findOverlappingAvailabilityForDate(user1, user2, date, pageable);
-        } catch (ParseException e) {
+            overlappingAvailability = zone == null
+                    ? availabilityHelper.findOverlappingAvailabilityForDate(user1, user2, date, pageable)
+                    : availabilityHelper.findOverlappingAvailabilityForDate(user1, user2, date, zone, pageable);
+        } catch (IllegalArgumentException e) {
             log.error("Exception showing overlapping schedules for users {}, {} for date {}", user1, user2, date, e);
             return ResponseEntity.badRequest().build();
         }
@@ -130,23 +253,208 @@ public class AvailabilityController {
     }
 
     /**
-     * Sets recurring availability for a user.
-     * Note: org.springframework.transaction.UnexpectedRollbackException occurs and transaction is silently rolled back if there is a unique constraint violation.
+     * Streams overlapping availability for two users over a date range as newline delimited JSON, one window per line.
+     * @param user1 user id of one user
+     * @param user2 user id of another user
+     * @param from first date of the range, inclusive
+     * @param to last date of the range, inclusive
+     * @param tz optional time zone of the dates, e.g. {@code Europe/Berlin}, UTC otherwise
+     * @return {@link StreamingResponseBody} of {@link OverlappingAvailability}
+     */
+    @GetMapping("/v1/overlap/range")
+    public ResponseEntity<StreamingResponseBody> showOverlapInRange(
+        @RequestParam @NotNull Integer user1,
+        @RequestParam @NotNull Integer user2,
+        @RequestParam @NotNull String from,
+        @RequestParam @NotNull String to,
+        @RequestParam(required = false) String tz
+        ) {
+        Date fromDate = parseDate(from);
+        Date toDate = parseDate(to);
+        validateRange(fromDate, toDate);
+        ZoneRules zone = zoneRules(tz);
+
+        if (zone != null) {
+            return ndjson(outputStream -> availabilityHelper.streamOverlappingAvailability(user1, user2, fromDate, toDate,
+                    zone, overlap -> writeLine(outputStream, overlap)));
+        }
+        return ndjson(outputStream -> availabilityHelper.streamOverlappingAvailability(user1, user2, fromDate, toDate,
+                overlap -> writeLine(outputStream, overlap)));
+    }
+
+    /**
+     * Shows the windows on a date during which every user of a group is available, e.g. an interview panel.
+     * @param userIds comma separated user ids of the group, at least two
+     * @param date date for which common availability is to be shown
+     * @param tz optional time zone of the date, e.g. {@code Europe/Berlin}, UTC otherwise
+     * @param page starting page number for paginating the results
+     * @param size page size for paginating the results
+     * @return {@link Page<GroupOverlappingAvailability>}
+     */
+    @GetMapping("/v1/overlap/group")
+    public ResponseEntity<Page<GroupOverlappingAvailability>> showGroupOverlap(
+        @RequestParam(name = "user_ids") @NotEmpty List<Integer> userIds,
+        @RequestParam String date,
+        @RequestParam(required = false) String tz,
+        @RequestParam(defaultValue = DEFAULT_PAGE_NUMBER) int page,
+        @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size
+        ) {
+
+        if (userIds.stream().distinct().count() < 2) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, GROUP_OVERLAP_MIN_USERS_ERROR_MSG);
+        }
+        ZoneRules zone = zoneRules(tz);
+        Pageable pageable = PageRequest.of(page, size);
+
+        try {
+            return ResponseEntity.ok(zone == null
+                    ? availabilityHelper.findGroupOverlappingAvailabilityForDate(userIds, date, pageable)
+                    : availabilityHelper.findGroupOverlappingAvailabilityForDate(userIds, date, zone, pageable));
+        } catch (IllegalArgumentException e) {
+            log.error("Exception showing overlapping schedules for users {} for date {}", userIds, date, e);
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Streams the windows during which every user of a group is available over a date range as newline delimited JSON,
+     * one window per line, e.g. to find when a group is free this week.
+     * @param userIds comma separated user ids of the group, at least two
+     * @param from first date of the range, inclusive
+     * @param to last date of the range, inclusive
+     * @param tz optional time zone of the dates, e.g. {@code Europe/Berlin}, UTC otherwise
+     * @return {@link StreamingResponseBody} of {@link GroupOverlappingAvailability}
+     */
+    @GetMapping("/v1/overlap/group/range")
+    public ResponseEntity<StreamingResponseBody> showGroupOverlapInRange(
+        @RequestParam(name = "user_ids") @NotEmpty List<Integer> userIds,
+        @RequestParam @NotNull String from,
+        @RequestParam @NotNull String to,
+        @RequestParam(required = false) String tz
+        ) {
+        if (userIds.stream().distinct().count() < 2) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, GROUP_OVERLAP_MIN_USERS_ERROR_MSG);
+        }
+        Date fromDate = parseDate(from);
+        Date toDate = parseDate(to);
+        validateRange(fromDate, toDate);
+        ZoneRules zone = zoneRules(tz);
+
+        if (zone != null) {
+            return ndjson(outputStream -> availabilityHelper.streamGroupOverlappingAvailability(userIds, fromDate, toDate,
+                    zone, overlap -> writeLine(outputStream, overlap)));
+        }
+        return ndjson(outputStream -> availabilityHelper.streamGroupOverlappingAvailability(userIds, fromDate, toDate,
+                overlap -> writeLine(outputStream, overlap)));
+    }
+
+    /**
+     * Reports overlapping availability for many pairs of users over a date range as newline delimited JSON, one window
+     * per line, ordered by date and pair. The report is computed in parallel before the first line is written.
+     * @param userIds comma separated user ids
+     * @param target optional user id; when given every user is paired with it, otherwise every pair of users is reported
+     * @param from first date of the range, inclusive
+     * @param to last date of the range, inclusive
+     * @param tz optional time zone of the dates, e.g. {@code Europe/Berlin}, UTC otherwise
+     * @return {@link StreamingResponseBody} of {@link OverlappingAvailability}
+     */
+    @GetMapping("/v1/overlap/bulk")
+    public ResponseEntity<StreamingResponseBody> showBulkOverlap(
+        @RequestParam(name = "user_ids") @NotEmpty List<Integer> userIds,
+        @RequestParam(required = false) Integer target,
+        @RequestParam @NotNull String from,
+        @RequestParam @NotNull String to,
+        @RequestParam(required = false) String tz
+        ) {
+        if (Stream.concat(userIds.stream(), Stream.of(target)).filter(Objects::nonNull).distinct().count() < 2) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, GROUP_OVERLAP_MIN_USERS_ERROR_MSG);
+        }
+        Date fromDate = parseDate(from);
+        Date toDate = parseDate(to);
+        validateRange(fromDate, toDate);
+        ZoneRules zone = zoneRules(tz);
+
+        List<OverlappingAvailability> overlaps;
+        try {
+            overlaps = zone == null
+                    ? bulkOverlapHelper.findOverlappingAvailability(userIds, target, fromDate, toDate)
+                    : bulkOverlapHelper.findOverlappingAvailability(userIds, target, fromDate, toDate, zone);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return ndjson(outputStream -> overlaps.forEach(overlap -> writeLine(outputStream, overlap)));
+    }
+
+    /**
+     * Finds the earliest slots of a meeting's duration during which a user, or every user of a group, is available,
+     * e.g. the first 30 minute slot where three users are free in the next 60 days. The search stops at the first
+     * {@code limit} slots, so it only reads the dates up to them.
+     * @param userIds comma separated user ids
+     * @param duration the meeting's duration in minutes
+     * @param buffer free minutes required before and after the meeting
+     * @param from first date to search, today by default
+     * @param horizon number of dates to search at most
+     * @param limit number of slots to find
+     * @param tz optional time zone of the dates, e.g. {@code Europe/Berlin}, UTC otherwise
+     * @return {@link List<MeetingSlot>} ordered by date and start time
+     */
+    @GetMapping("/v1/slots/earliest")
+    public ResponseEntity<List<MeetingSlot>> findEarliestSlots(
+        @RequestParam(name = "user_ids") @NotEmpty List<Integer> userIds,
+        @RequestParam int duration,
+        @RequestParam(defaultValue = "0") int buffer,
+        @RequestParam(required = false) String from,
+        @RequestParam(defaultValue = "60") int horizon,
+        @RequestParam(defaultValue = "1") int limit,
+        @RequestParam(required = false) String tz
+        ) {
+        if (userIds.contains(null) || duration < 1 || buffer < 0 || duration + 2L * buffer > MINUTES_PER_DAY
+                || horizon < 1 || horizon > MAX_DATE_RANGE_DAYS || limit < 1 || limit > MAX_SLOT_SEARCH_RESULTS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_SLOT_SEARCH_ERROR_MSG);
+        }
+        ZoneRules zone = zoneRules(tz);
+        Date fromDate = from == null
+                ? Date.valueOf(LocalDate.now(zone == null ? ZoneOffset.UTC : zone.getOffset(Instant.now())))
+                : parseDate(from);
+        int durationSeconds = (int) TimeUnit.MINUTES.toSeconds(duration);
+        int bufferSeconds = (int) TimeUnit.MINUTES.toSeconds(buffer);
+
+        return ResponseEntity.ok(zone == null
+                ? availabilityHelper.findEarliestSlots(userIds, fromDate, horizon, durationSeconds, bufferSeconds, limit)
+                : availabilityHelper.findEarliestSlots(userIds, fromDate, horizon, durationSeconds, bufferSeconds, limit, zone));
+    }
+
+    /**
+     * Sets recurring availability for a user. It is stored as a rule and its occurrences are expanded only for the
+     * dates being queried.
+     * In write-behind mode the rule is queued and acknowledged with 202 Accepted, unless {@code wait} is set. No
+     * transaction is held while waiting, the rule is saved in its own transaction, by the flusher in write-behind mode.
      * @param availability the recurring availability to set
+     * @param wait in write-behind mode, respond once the rule is saved
      * @return {@link Response}
      */
-    @Transactional
     @PostMapping("/v1/recurring")
     public ResponseEntity<Response> addRecurringAvailability(
             @RequestBody
             @NotBlank
-            RecurringUserAvailability availability) {
+            RecurringUserAvailability availability,
+            @RequestParam(defaultValue = "false") boolean wait) {
         try {
+            if (writeBehindHelper.isEnabled()) {
+                return acknowledge(writeBehindHelper.addRecurringAvailability(availability), wait,
+                        RECURRING_AVAILABILITY_API_RESPONSE_ACCEPTED_MESSAGE, RECURRING_AVAILABILITY_API_RESPONSE_SUCCESS_MESSAGE,
+                        HttpStatus.CREATED, ADD_RECURRING_AVAILABILITY_UNIQUE_CONSTRAINT_VIOLATION_ERROR_MSG);
+            }
             availabilityHelper.addRecurringAvailability(availability);
             Response response = new Response(RECURRING_AVAILABILITY_API_RESPONSE_SUCCESS_MESSAGE, SUCCESS);
             return new ResponseEntity<>(response, HttpStatus.CREATED);
         } catch (DataIntegrityViolationException e) {
             return handleDataIntegrityViolationException(e, ADD_RECURRING_AVAILABILITY_UNIQUE_CONSTRAINT_VIOLATION_ERROR_MSG);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new Response(e.getMessage(), ERROR));
+        } catch (IllegalStateException e) {
+            // The write-behind queue is full
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(new Response(e.getMessage(), ERROR));
         }
     }
 
@@ -161,9 +469,82 @@ public class AvailabilityController {
             @NotBlank
             UserAvailability availabilityDeletion) {
 
-        availabilityHelper.deleteAvailability(availabilityDeletion);
+        try {
+            // Queued writes of the user are saved first, so they can't bring back what is deleted
+            writeBehindHelper.awaitPending(Collections.singletonList(availabilityDeletion.getUserid()));
+            availabilityHelper.deleteAvailability(availabilityDeletion);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new Response(e.getMessage(), ERROR));
+        }
+
+        Response response = new Response(DELETE_AVAILABILITY_API_RESPONSE_SUCCESS_MESSAGE, SUCCESS);
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    /**
+     * Deletes a list of availability windows, for one or more users and dates, in a single transaction.
+     * Only the slots the windows cut into are rewritten.
+     * @param availabilityDeletions windows to delete
+     * @return {@link Response}
+     */
+    @DeleteMapping("/v1/availability/batch")
+    public ResponseEntity<Response> deleteAvailabilityBatch(
+            @RequestBody
+            @NotEmpty
+            List<UserAvailability> availabilityDeletions) {
+        try {
+            writeBehindHelper.awaitPending(availabilityDeletions.stream().map(UserAvailability::getUserid).collect(Collectors.toSet()));
+            availabilityHelper.deleteAvailability(availabilityDeletions);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new Response(e.getMessage(), ERROR));
+        }
 
         Response response = new Response(DELETE_AVAILABILITY_API_RESPONSE_SUCCESS_MESSAGE, SUCCESS);
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
+
+    // Acknowledges a queued write right away, or once it is saved when asked to wait
+    private static ResponseEntity<Response> acknowledge(CompletableFuture<Void> write, boolean wait, String acceptedMessage,
+                                                        String successMessage, HttpStatus successStatus, String violationMessage) {
+        if (!wait) {
+            return new ResponseEntity<>(new Response(acceptedMessage, SUCCESS), HttpStatus.ACCEPTED);
+        }
+        try {
+            write.join();
+            return new ResponseEntity<>(new Response(successMessage, SUCCESS), successStatus);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof DataIntegrityViolationException) {
+                return handleDataIntegrityViolationException((DataIntegrityViolationException) e.getCause(), violationMessage);
+            }
+            if (e.getCause() instanceof IllegalArgumentException) {
+                return ResponseEntity.badRequest().body(new Response(e.getCause().getMessage(), ERROR));
+            }
+            throw e;
+        }
+    }
+
+    // Rules of the requested time zone, null when none was requested and the date is a UTC date
+    private static ZoneRules zoneRules(String tz) {
+        if (tz == null) {
+            return null;
+        }
+        try {
+            return TimeUtils.zoneRules(tz);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_TIME_ZONE_ERROR_MSG);
+        }
+    }
+
+    private static ResponseEntity<StreamingResponseBody> ndjson(StreamingResponseBody body) {
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    private void writeLine(OutputStream outputStream, Object value) {
+        try {
+            outputStream.write(objectMapper.writeValueAsBytes(value));
+            outputStream.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
@@ -0,0 +1,81 @@
+package co.harbor.calendly.controller;
+
+import co.harbor.calendly.controller.helper.BookingHelper;
+import co.harbor.calendly.controller.helper.WriteBehindHelper;
+import co.harbor.calendly.entity.Booking;
+import co.harbor.calendly.model.BookingRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+import static co.harbor.calendly.controller.helper.RequestHelper.parseDate;
+
+/**
+ * This controller handles bookings of windows out of the availability of a user or of a group.
+ */
+@Slf4j
+@RestController
+public class BookingController {
+
+    @Autowired
+    private BookingHelper bookingHelper;
+
+    @Autowired
+    private WriteBehindHelper writeBehindHelper;
+
+    /**
+     * Books a window of a date for a user, or for every user of a group, and takes it out of their availability.
+     * Of concurrent bookings of overlapping windows of a user exactly one succeeds, the others get 409 Conflict.
+     * @param request the users, the date and the window
+     * @return the booking's rows, one per user, sharing a reference
+     */
+    @PostMapping("/v1/bookings")
+    public ResponseEntity<List<Booking>> book(@RequestBody @NotNull BookingRequest request) {
+        try {
+            if (request.getUserids() != null) {
+                // Queued availability of the users is saved first, so a booking can claim it
+                writeBehindHelper.awaitPending(request.getUserids());
+            }
+            return new ResponseEntity<>(bookingHelper.book(request), HttpStatus.CREATED);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IllegalStateException | ConcurrencyFailureException e) {
+            log.debug("Booking of {} lost: {}", request, e.getMessage());
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    /**
+     * Shows the bookings of a user on a date.
+     * @param userId user id of the user
+     * @param date date of the bookings
+     * @return {@link List<Booking>} ordered by start time
+     */
+    @GetMapping("/v1/bookings")
+    public ResponseEntity<List<Booking>> showBookings(
+            @RequestParam(name = "user_id") @NotNull Integer userId,
+            @RequestParam @NotNull String date) {
+        return ResponseEntity.ok(bookingHelper.findBookings(userId, parseDate(date)));
+    }
+
+    /**
+     * Cancels a booking and gives its window back to the availability of its users.
+     * @param reference the booking's reference
+     * @return the cancelled booking's rows
+     */
+    @DeleteMapping("/v1/bookings/{reference}")
+    public ResponseEntity<List<Booking>> cancel(@PathVariable String reference) {
+        try {
+            return ResponseEntity.ok(bookingHelper.cancel(reference));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+    }
+}
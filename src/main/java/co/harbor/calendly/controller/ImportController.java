@@ -0,0 +1,63 @@
+package co.harbor.calendly.controller;
+
+import co.harbor.calendly.controller.helper.ImportHelper;
+import co.harbor.calendly.model.ImportReport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * This is a controller class for bulk imports, e.g. to migrate calendars from another system. It has APIs to
+ * **   1. Import users
+ * **   2. Import availability
+ *
+ * Both take newline delimited JSON ({@code application/x-ndjson}), one object per line, or CSV ({@code text/csv})
+ * with a header row, stream the request body and report failed rows instead of rejecting the whole import.
+ */
+@RestController
+public class ImportController {
+
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String CSV = "text/csv";
+
+    @Autowired
+    private ImportHelper importHelper;
+
+    /**
+     * Imports users. CSV columns are {@code firstName,lastName,emailId}.
+     * @param contentType {@code application/x-ndjson} or {@code text/csv}
+     * @param body users, one per line
+     * @return {@link ImportReport}
+     */
+    @PostMapping(value = "/v1/import/users", consumes = {NDJSON, CSV})
+    public ResponseEntity<ImportReport> importUsers(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) throws IOException {
+        return ResponseEntity.ok(importHelper.importUsers(body, isCsv(contentType)));
+    }
+
+    /**
+     * Imports availability, coalesced with the existing availability of each user and date.
+     * CSV columns are {@code userid,_date,_start,_end}.
+     * @param contentType {@code application/x-ndjson} or {@code text/csv}
+     * @param body availability, one slot per line
+     * @return {@link ImportReport}
+     */
+    @PostMapping(value = "/v1/import/availability", consumes = {NDJSON, CSV})
+    public ResponseEntity<ImportReport> importAvailability(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) throws IOException {
+        return ResponseEntity.ok(importHelper.importAvailability(body, isCsv(contentType)));
+    }
+
+    private static boolean isCsv(String contentType) {
+        return MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.parseMediaType(CSV));
+    }
+}
@@ -0,0 +1,165 @@
+package co.harbor.calendly.controller;
+
+import co.harbor.calendly.controller.helper.ReactiveAvailabilityHelper;
+import co.harbor.calendly.entity.UserAvailability;
+import co.harbor.calendly.model.OverlappingAvailability;
+import co.harbor.calendly.model.RecurringUserAvailability;
+import co.harbor.calendly.model.Response;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.sql.Date;
+import java.util.Collections;
+import java.util.List;
+
+import static co.harbor.calendly.constants.Constants.*;
+import static co.harbor.calendly.controller.helper.RequestHelper.parseDate;
+import static co.harbor.calendly.controller.helper.RequestHelper.validateRange;
+
+/**
+ * Reactive variant of the availability, overlap and recurring APIs of {@link AvailabilityController}, under
+ * {@code /v1/reactive}. Reads return a {@link Flux} streamed as newline delimited JSON, one element at a time as the
+ * client consumes them, and writes return a {@link Mono}.
+ * <p>
+ * Writes are not non-blocking: they run the blocking JPA transactions of {@link AvailabilityController} on a bounded
+ * elastic worker thread, see {@link ReactiveAvailabilityHelper}. They free the caller's thread but each still holds a
+ * worker and a JDBC connection until it commits.
+ *
+ *    The Dates/timestamps are assumed to be in UTC.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/v1/reactive")
+public class ReactiveAvailabilityController {
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    @Autowired
+    private ReactiveAvailabilityHelper reactiveAvailabilityHelper;
+
+    /**
+     * Sets the given availabilities, coalesced with the existing availability of each user and date.
+     *
+     * @param availabilityList List of availability
+     * @return {@link Response}
+     */
+    @PostMapping("/availability")
+    public Mono<ResponseEntity<Response>> addAvailability(
+            @RequestBody
+            @NotEmpty
+            List<UserAvailability> availabilityList) {
+        return respond(onViolation(reactiveAvailabilityHelper.addAvailability(availabilityList), ADD_AVAILABILITY_UNIQUE_CONSTRAINT_VIOLATION_ERROR_MSG),
+                ADD_AVAILABILITY_API_RESPONSE_SUCCESS_MESSAGE, HttpStatus.OK);
+    }
+
+    /**
+     * Streams availability of a user on a date.
+     */
+    @GetMapping(value = "/availability", produces = NDJSON)
+    public Flux<UserAvailability> showAvailabilityForUser(
+            @RequestParam(name = "user_id") @NotNull Integer userId,
+            @RequestParam @NotNull String date
+    ) {
+        Date _date = parseDate(date);
+        return reactiveAvailabilityHelper.streamAvailabilityForAUser(userId, _date, _date);
+    }
+
+    /**
+     * Streams availability of a user over a date range.
+     */
+    @GetMapping(value = "/availability/range", produces = NDJSON)
+    public Flux<UserAvailability> showAvailabilityForUserInRange(
+            @RequestParam(name = "user_id") @NotNull Integer userId,
+            @RequestParam @NotNull String from,
+            @RequestParam @NotNull String to
+    ) {
+        Date fromDate = parseDate(from);
+        Date toDate = parseDate(to);
+        validateRange(fromDate, toDate);
+        return reactiveAvailabilityHelper.streamAvailabilityForAUser(userId, fromDate, toDate);
+    }
+
+    /**
+     * Streams overlapping availability of two users on a date.
+     */
+    @GetMapping(value = "/overlap", produces = NDJSON)
+    public Flux<OverlappingAvailability> showOverlap(
+            @RequestParam @NotNull Integer user1,
+            @RequestParam @NotNull Integer user2,
+            @RequestParam @NotNull String date
+    ) {
+        Date _date = parseDate(date);
+        return reactiveAvailabilityHelper.streamOverlappingAvailability(user1, user2, _date, _date);
+    }
+
+    /**
+     * Streams overlapping availability of two users over a date range.
+     */
+    @GetMapping(value = "/overlap/range", produces = NDJSON)
+    public Flux<OverlappingAvailability> showOverlapInRange(
+            @RequestParam @NotNull Integer user1,
+            @RequestParam @NotNull Integer user2,
+            @RequestParam @NotNull String from,
+            @RequestParam @NotNull String to
+    ) {
+        Date fromDate = parseDate(from);
+        Date toDate = parseDate(to);
+        validateRange(fromDate, toDate);
+        return reactiveAvailabilityHelper.streamOverlappingAvailability(user1, user2, fromDate, toDate);
+    }
+
+    /**
+     * Sets recurring availability for a user.
+     *
+     * @param availability the recurring availability to set
+     * @return {@link Response}
+     */
+    @PostMapping("/recurring")
+    public Mono<ResponseEntity<Response>> addRecurringAvailability(
+            @RequestBody
+            @NotBlank
+            RecurringUserAvailability availability) {
+        return respond(onViolation(reactiveAvailabilityHelper.addRecurringAvailability(availability), ADD_RECURRING_AVAILABILITY_UNIQUE_CONSTRAINT_VIOLATION_ERROR_MSG),
+                RECURRING_AVAILABILITY_API_RESPONSE_SUCCESS_MESSAGE, HttpStatus.CREATED);
+    }
+
+    /**
+     * Deletes availability for a user.
+     *
+     * @param availabilityDeletion
+     * @return {@link Response}
+     */
+    @DeleteMapping("/availability")
+    public Mono<ResponseEntity<Response>> deleteAvailability(
+            @RequestBody
+            @NotBlank
+            UserAvailability availabilityDeletion) {
+        return respond(reactiveAvailabilityHelper.deleteAvailability(Collections.singletonList(availabilityDeletion)),
+                DELETE_AVAILABILITY_API_RESPONSE_SUCCESS_MESSAGE, HttpStatus.OK);
+    }
+
+    // Maps a successful write to the success response and invalid input to 400
+    private static Mono<ResponseEntity<Response>> respond(Mono<?> write, String successMessage, HttpStatus status) {
+        return write
+                .then(Mono.fromSupplier(() -> new ResponseEntity<>(new Response(successMessage, SUCCESS), status)))
+                .onErrorResume(IllegalArgumentException.class,
+                        e -> Mono.just(ResponseEntity.badRequest().body(new Response(e.getMessage(), ERROR))));
+    }
+
+    // Reports a unique constraint violation with the given message, as the blocking API does
+    private static Mono<?> onViolation(Mono<?> write, String violationMessage) {
+        return write.onErrorMap(DataIntegrityViolationException.class, e -> {
+            log.error("Data integrity violation exception {}", e.getMessage(), e);
+            return new IllegalArgumentException(violationMessage, e);
+        });
+    }
+}
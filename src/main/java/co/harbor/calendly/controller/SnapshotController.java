@@ -0,0 +1,61 @@
+package co.harbor.calendly.controller;
+
+import co.harbor.calendly.controller.helper.SnapshotHelper;
+import co.harbor.calendly.model.SnapshotInfo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * This is a controller class for database snapshots, e.g. to back up an instance or seed another one. It has APIs to
+ * **   1. Export a snapshot
+ * **   2. List snapshots
+ * **   3. Restore a snapshot, replacing every user, availability and recurring rule
+ */
+@Slf4j
+@RestController
+public class SnapshotController {
+
+    @Autowired
+    private SnapshotHelper snapshotHelper;
+
+    /**
+     * Exports the database to a new snapshot.
+     * @return {@link SnapshotInfo}
+     */
+    @PostMapping("/v1/snapshots")
+    public ResponseEntity<SnapshotInfo> exportSnapshot() throws IOException {
+        return new ResponseEntity<>(snapshotHelper.export(), HttpStatus.CREATED);
+    }
+
+    /**
+     * Lists the snapshots, oldest first.
+     */
+    @GetMapping("/v1/snapshots")
+    public ResponseEntity<List<String>> listSnapshots() throws IOException {
+        return ResponseEntity.ok(snapshotHelper.list());
+    }
+
+    /**
+     * Replaces the database with a snapshot.
+     * @param name the snapshot's name, as returned on export
+     * @return {@link SnapshotInfo}
+     */
+    @PostMapping("/v1/snapshots/{name}/restore")
+    public ResponseEntity<SnapshotInfo> restoreSnapshot(@PathVariable String name) throws IOException {
+        try {
+            return ResponseEntity.ok(snapshotHelper.restore(name));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package co.harbor.calendly.controller;
 
+import co.harbor.calendly.model.CursorPage;
 import co.harbor.calendly.model.Response;
 import co.harbor.calendly.entity.User;
 import co.harbor.calendly.repository.IUserRepository;
+import co.harbor.calendly.utils.CursorUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
@@ -11,6 +13,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import javax.validation.constraints.NotEmpty;
 import java.util.List;
@@ -23,6 +26,7 @@ import static co.harbor.calendly.controller.helper.ErrorHelper.handleDataIntegri
  * This is a controller class for Users. It has APIs to
  * **   1. Add users
  * **   2. Get all users
+ * **   2a. Get all users with keyset pagination
  * **   3. Get user by email
  */
 @RestController
@@ -67,6 +71,30 @@ public class UserController {
         return ResponseEntity.ok(users);
     }
 
+    /**
+     * Gets users in id order with keyset pagination, e.g. for sync jobs walking every user. There is no total count and
+     * every page costs the same, however deep.
+     * @param cursor the next cursor of the previous page, none for the first page
+     * @param size size of the page
+     * @return {@link CursorPage<User>}
+     */
+    @GetMapping("/v1/users/cursor")
+    public ResponseEntity<CursorPage<User>> getUsersAfter(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size) {
+        if (size < 1 || size > MAX_CURSOR_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_CURSOR_PAGE_SIZE_ERROR_MSG);
+        }
+        int after;
+        try {
+            after = cursor == null ? Integer.MIN_VALUE : CursorUtils.decode(cursor, 1)[0];
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        List<User> users = userRepository.findByIdGreaterThanOrderByIdAsc(after, PageRequest.of(0, size + 1));
+        return ResponseEntity.ok(CursorPage.of(users, size, last -> CursorUtils.encode(last.getId())));
+    }
+
     /**
      * Gets user by email id
      * @param email user email
@@ -1,25 +1,62 @@
 package co.harbor.calendly.controller.helper;
 
 import co.harbor.calendly.entity.UserAvailability;
+import co.harbor.calendly.index.AvailabilityIndex;
+import co.harbor.calendly.index.DayBitmap;
+import co.harbor.calendly.index.DayLocks;
+import co.harbor.calendly.index.DaySlots;
+import co.harbor.calendly.index.OverlapStore;
+import co.harbor.calendly.index.PendingWrites;
+import co.harbor.calendly.metrics.AvailabilityMetrics;
+import co.harbor.calendly.metrics.TimedOperation;
+import co.harbor.calendly.model.CursorPage;
+import co.harbor.calendly.model.GroupOverlappingAvailability;
 import co.harbor.calendly.model.Interval;
+import co.harbor.calendly.model.MeetingSlot;
+import co.harbor.calendly.model.OverlapEngine;
+import co.harbor.calendly.model.OverlapWindow;
 import co.harbor.calendly.model.OverlappingAvailability;
 import co.harbor.calendly.model.RecurringUserAvailability;
+import co.harbor.calendly.model.Slot;
+import co.harbor.calendly.repository.AvailabilityBatchRepository;
 import co.harbor.calendly.repository.IAvailabilityRepository;
+import co.harbor.calendly.utils.CursorUtils;
+import co.harbor.calendly.utils.IntervalUtils;
+import co.harbor.calendly.utils.LocalDay;
 import co.harbor.calendly.utils.TimeUtils;
 import lombok.extern.slf4j.Slf4j;
-import org.assertj.core.util.VisibleForTesting;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import java.sql.Date;
 import java.sql.Time;
-import java.text.ParseException;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.zone.ZoneRules;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static co.harbor.calendly.constants.Constants.INVALID_AVAILABILITY_ERROR_MSG;
+import static co.harbor.calendly.constants.Constants.INVALID_CURSOR_ERROR_MSG;
+import static co.harbor.calendly.constants.Constants.INVALID_RECURRING_AVAILABILITY_ERROR_MSG;
 
 /**
  * This a helper class for the AvailabilityController to get overlapping availabilities.
@@ -34,8 +71,41 @@ public class AvailabilityHelper {
     @Autowired
     private IAvailabilityRepository availabilityRepository;
 
+    @Autowired
+    private AvailabilityBatchRepository availabilityBatchRepository;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private OverlapStore overlapStore;
+
+    @Autowired
+    private PendingWrites pendingWrites;
+
+    @Autowired
+    private DayLocks dayLocks;
+
+    @Autowired
+    private RecurringAvailabilityHelper recurringAvailabilityHelper;
+
+    @Autowired
+    private AvailabilityMetrics availabilityMetrics;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${calendly.overlap.engine:interval}")
+    private OverlapEngine overlapEngine = OverlapEngine.INTERVAL;
+
+    @Value("${calendly.overlap.bitmap.slot-seconds:60}")
+    private int bitmapSlotSeconds = 60;
+
     /**
-     * Returns overlapping availability for given two users on a given date
+     * Returns overlapping availability for given two users on a given date. The overlap is computed from the in-memory
+     * {@link AvailabilityIndex}, so no query is issued once both users' days are indexed, and hot pairs are served from
+     * the {@link OverlapStore}. With the bitmap engine the result is the merged windows during which both users are free,
+     * instead of one window per pair of slots.
      *
      * @param user1 user_id of one user
      * @param user2 user_id of another user
@@ -43,165 +113,818 @@ public class AvailabilityHelper {
      * @param pageable {@link Pageable}
      * @return {@link OverlappingAvailability}
      */
-    public Page<OverlappingAvailability> findOverlappingAvailabilityForDate(Integer user1, Integer user2, String dateStr, Pageable pageable) throws ParseException {
-        Date _date  = Date.valueOf(dateStr); // DATE_FORMAT.parse(dateStr);
-        return availabilityRepository.findOverlappingAvailabilityForDate(user1, user2, _date, pageable);
+    @TimedOperation("overlap")
+    public Page<OverlappingAvailability> findOverlappingAvailabilityForDate(Integer user1, Integer user2, String dateStr, Pageable pageable) {
+        Date _date = Date.valueOf(TimeUtils.parseDate(dateStr));
+
+        List<OverlappingAvailability> overlaps = new ArrayList<>();
+        if (!user1.equals(user2)) {
+            int[] windows = overlap(user1, user2, _date, true);
+            for (int i = 0; i < windows.length; i += 2) {
+                overlaps.add(new OverlapWindow(_date, user1, user2, TimeUtils.toTime(windows[i]), TimeUtils.toTime(windows[i + 1])));
+            }
+        }
+        availabilityMetrics.intervalsProduced("overlap", overlaps.size());
+        return toPage(overlaps, pageable);
     }
 
-    public Page<UserAvailability> findAvailabilityForAUser(Integer userId, Pageable pageable) {
-        return availabilityRepository.findByUserid(userId, pageable);
+    /**
+     * Returns overlapping availability for given two users on a date in a time zone, i.e. the merged windows of that
+     * local day during which both users are free. The UTC days the local day covers are read from the
+     * {@link AvailabilityIndex} and stitched together, see {@link LocalDay}.
+     *
+     * @param user1 user_id of one user
+     * @param user2 user_id of another user
+     * @param dateStr local date for which overlapping availability is to be fetched
+     * @param zone rules of the time zone of the date, see {@link TimeUtils#zoneRules(String)}
+     * @param pageable {@link Pageable}
+     * @return {@link OverlappingAvailability} with local dates and times
+     */
+    @TimedOperation("overlap_tz")
+    public Page<OverlappingAvailability> findOverlappingAvailabilityForDate(Integer user1, Integer user2, String dateStr, ZoneRules zone, Pageable pageable) {
+        LocalDay day = LocalDay.of(TimeUtils.parseDate(dateStr), zone);
+        Date _date = Date.valueOf(day.getDate());
+
+        List<OverlappingAvailability> overlaps = new ArrayList<>();
+        if (!user1.equals(user2)) {
+            int[] windows = overlap(user1, user2, day);
+            for (int i = 0; i < windows.length; i += 2) {
+                overlaps.add(new OverlapWindow(_date, user1, user2, day.toTime(windows[i]), day.toTime(windows[i + 1])));
+            }
+        }
+        availabilityMetrics.intervalsProduced("overlap_tz", overlaps.size());
+        return toPage(overlaps, pageable);
     }
 
-    public List<UserAvailability> findAvailabilityForAUserAndDate(Integer userId, String date) throws ParseException {
-        return availabilityRepository.findBy_dateAndUserid(Date.valueOf(date), userId);
+    /**
+     * Returns the windows on a given date during which all the given users are available.
+     * Each user's indexed slots are merged into disjoint free windows once and all users are then intersected in a
+     * single k-way sweep, or by ANDing their day bitmaps with the bitmap engine, instead of overlapping every pair of users.
+     *
+     * @param userIds user_ids of the group
+     * @param dateStr date for which the common availability is to be fetched
+     * @param pageable {@link Pageable}
+     * @return {@link GroupOverlappingAvailability}
+     */
+    @TimedOperation("group_overlap")
+    public Page<GroupOverlappingAvailability> findGroupOverlappingAvailabilityForDate(List<Integer> userIds, String dateStr, Pageable pageable) {
+        Date _date = Date.valueOf(TimeUtils.parseDate(dateStr));
+        List<Integer> users = new ArrayList<>(new LinkedHashSet<>(userIds));
+
+        int[] common = commonWindows(users, _date);
+        List<GroupOverlappingAvailability> overlaps = new ArrayList<>(common.length / 2);
+        for (int i = 0; i < common.length; i += 2) {
+            overlaps.add(new GroupOverlappingAvailability(_date, users, TimeUtils.toTime(common[i]), TimeUtils.toTime(common[i + 1])));
+        }
+        availabilityMetrics.intervalsProduced("group_overlap", overlaps.size());
+        return toPage(overlaps, pageable);
     }
 
-    @Transactional
-    public List<UserAvailability> deleteAvailability(UserAvailability availabilityDeletion) {
+    /**
+     * Returns the windows of a date in a time zone during which all the given users are available, stitched from the
+     * UTC days the local day covers, see {@link LocalDay}.
+     *
+     * @param userIds user_ids of the group
+     * @param dateStr local date for which the common availability is to be fetched
+     * @param zone rules of the time zone of the date, see {@link TimeUtils#zoneRules(String)}
+     * @param pageable {@link Pageable}
+     * @return {@link GroupOverlappingAvailability} with local dates and times
+     */
+    @TimedOperation("group_overlap_tz")
+    public Page<GroupOverlappingAvailability> findGroupOverlappingAvailabilityForDate(List<Integer> userIds, String dateStr, ZoneRules zone, Pageable pageable) {
+        LocalDay day = LocalDay.of(TimeUtils.parseDate(dateStr), zone);
+        Date _date = Date.valueOf(day.getDate());
+        List<Integer> users = new ArrayList<>(new LinkedHashSet<>(userIds));
+
+        int[] common = localCommonWindows(users, day);
+        List<GroupOverlappingAvailability> overlaps = new ArrayList<>(common.length / 2);
+        for (int i = 0; i < common.length; i += 2) {
+            overlaps.add(new GroupOverlappingAvailability(_date, users, day.toTime(common[i]), day.toTime(common[i + 1])));
+        }
+        availabilityMetrics.intervalsProduced("group_overlap_tz", overlaps.size());
+        return toPage(overlaps, pageable);
+    }
 
-        Integer userid = availabilityDeletion.getUserid();
-        Date date = availabilityDeletion.get_date();
-        List<UserAvailability> existingAvailability = getExistingAvailabilityForUser(userid, date);
-        List<UserAvailability> updatedAvailabilityList = new ArrayList<>();
+    /**
+     * Streams the windows during which all the given users are available, day by day over a date range, e.g. to find
+     * when a group is free this week. Days are read from the {@link AvailabilityIndex}.
+     *
+     * @param userIds user_ids of the group
+     * @param from first date of the range, inclusive
+     * @param to last date of the range, inclusive
+     * @param consumer receives the common windows ordered by date and start time
+     */
+    @TimedOperation("stream_group_overlap")
+    public void streamGroupOverlappingAvailability(List<Integer> userIds, Date from, Date to, Consumer<GroupOverlappingAvailability> consumer) {
+        long produced = 0;
+        try {
+            List<Integer> users = new ArrayList<>(new LinkedHashSet<>(userIds));
+            int lastDay = TimeUtils.toEpochDay(to);
+            for (int epochDay = TimeUtils.toEpochDay(from); epochDay <= lastDay; epochDay++) {
+                Date date = TimeUtils.toDate(epochDay);
+                int[] common = commonWindows(users, date);
+                for (int i = 0; i < common.length; i += 2) {
+                    consumer.accept(new GroupOverlappingAvailability(date, users, TimeUtils.toTime(common[i]), TimeUtils.toTime(common[i + 1])));
+                }
+                produced += common.length / 2;
+            }
+        } finally {
+            availabilityMetrics.intervalsProduced("stream_group_overlap", produced);
+        }
+    }
 
-        // Compute new updated availability based on overlap of deletion availability with existing availabilities
-        for(UserAvailability availability : existingAvailability) {
-            List<UserAvailability> computeUpdatedAvailability = computeUpdatedAvailability(availability, availabilityDeletion);
-            updatedAvailabilityList.addAll(computeUpdatedAvailability);
+    /**
+     * Streams the windows during which all the given users are available, local day by local day over a range of dates
+     * in a time zone, in local times. Each local day is stitched from the UTC days it covers, see {@link LocalDay}.
+     *
+     * @param userIds user_ids of the group
+     * @param from first local date of the range, inclusive
+     * @param to last local date of the range, inclusive
+     * @param zone rules of the time zone of the dates, see {@link TimeUtils#zoneRules(String)}
+     * @param consumer receives the common windows ordered by date and start time
+     */
+    @TimedOperation("stream_group_overlap_tz")
+    public void streamGroupOverlappingAvailability(List<Integer> userIds, Date from, Date to, ZoneRules zone, Consumer<GroupOverlappingAvailability> consumer) {
+        long produced = 0;
+        try {
+            List<Integer> users = new ArrayList<>(new LinkedHashSet<>(userIds));
+            for (LocalDate date = from.toLocalDate(); !date.isAfter(to.toLocalDate()); date = date.plusDays(1)) {
+                LocalDay day = LocalDay.of(date, zone);
+                int[] common = localCommonWindows(users, day);
+                for (int i = 0; i < common.length; i += 2) {
+                    consumer.accept(new GroupOverlappingAvailability(Date.valueOf(date), users, day.toTime(common[i]), day.toTime(common[i + 1])));
+                }
+                produced += common.length / 2;
+            }
+        } finally {
+            availabilityMetrics.intervalsProduced("stream_group_overlap_tz", produced);
         }
+    }
 
-        // Delete existing availability and set new updated availability
-        availabilityRepository.deleteAllByIdInBatch(existingAvailability.stream().map(a -> a.getId()).collect(Collectors.toList()));
-        availabilityRepository.saveAll(updatedAvailabilityList);
+    /**
+     * Finds the earliest slots of a meeting's duration during which all the given users are available. Dates are walked
+     * one at a time from {@code from} and the search stops as soon as {@code limit} slots are found, so a group that is
+     * free soon costs a few days of {@link AvailabilityIndex} lookups whatever the horizon. A date is skipped as soon
+     * as one of the users has no availability on it.
+     * <p>
+     * Slots start at the beginning of a common window plus the buffer and follow each other back to back; each slot
+     * keeps the buffer free before and after it within the window.
+     *
+     * @param userIds user_ids of the group, or of a single user
+     * @param from first date to search
+     * @param days number of dates to search at most
+     * @param duration the meeting's duration in seconds
+     * @param buffer free time in seconds required before and after the meeting
+     * @param limit number of slots to find
+     * @return up to {@code limit} slots ordered by date and start time
+     */
+    @TimedOperation("earliest_slots")
+    public List<MeetingSlot> findEarliestSlots(List<Integer> userIds, Date from, int days, int duration, int buffer, int limit) {
+        List<MeetingSlot> slots = new ArrayList<>(Math.min(limit, 16));
+        int searched = 0;
+        try {
+            List<Integer> users = new ArrayList<>(new LinkedHashSet<>(userIds));
+            int firstDay = TimeUtils.toEpochDay(from);
+            for (int epochDay = firstDay; epochDay < firstDay + days && slots.size() < limit; epochDay++) {
+                searched++;
+                Date date = TimeUtils.toDate(epochDay);
+                int[] common = commonWindows(users, date);
+                for (int i = 0; i < common.length && slots.size() < limit; i += 2) {
+                    for (int start = common[i] + buffer; start + duration + buffer <= common[i + 1] && slots.size() < limit; start += duration) {
+                        slots.add(new MeetingSlot(date, users, TimeUtils.toTime(start), TimeUtils.toTime(start + duration)));
+                    }
+                }
+            }
+            return slots;
+        } finally {
+            availabilityMetrics.searchDays(searched);
+            availabilityMetrics.intervalsProduced("earliest_slots", slots.size());
+        }
+    }
 
-        return updatedAvailabilityList;
+    /**
+     * Finds the earliest slots of a meeting's duration during which all the given users are available, as
+     * {@link #findEarliestSlots(List, Date, int, int, int, int)} does, walking local days of a time zone and returning
+     * local dates and times. Each local day is stitched from the UTC days it covers, see {@link LocalDay}.
+     *
+     * @param from first local date to search
+     * @param zone rules of the time zone of the dates, see {@link TimeUtils#zoneRules(String)}
+     */
+    @TimedOperation("earliest_slots_tz")
+    public List<MeetingSlot> findEarliestSlots(List<Integer> userIds, Date from, int days, int duration, int buffer, int limit, ZoneRules zone) {
+        List<MeetingSlot> slots = new ArrayList<>(Math.min(limit, 16));
+        int searched = 0;
+        try {
+            List<Integer> users = new ArrayList<>(new LinkedHashSet<>(userIds));
+            LocalDate firstDate = from.toLocalDate();
+            for (LocalDate date = firstDate; date.isBefore(firstDate.plusDays(days)) && slots.size() < limit; date = date.plusDays(1)) {
+                searched++;
+                LocalDay day = LocalDay.of(date, zone);
+                int[] common = localCommonWindows(users, day);
+                for (int i = 0; i < common.length && slots.size() < limit; i += 2) {
+                    for (int start = common[i] + buffer; start + duration + buffer <= common[i + 1] && slots.size() < limit; start += duration) {
+                        slots.add(new MeetingSlot(Date.valueOf(date), users, day.toTime(start), day.toTime(start + duration)));
+                    }
+                }
+            }
+            return slots;
+        } finally {
+            availabilityMetrics.searchDays(searched);
+            availabilityMetrics.intervalsProduced("earliest_slots_tz", slots.size());
+        }
     }
 
-    List<UserAvailability> computeUpdatedAvailability(UserAvailability existingAvailability, UserAvailability availabilityDeletion) {
+    // Windows of a date during which every one of the users is free, with the configured engine
+    private int[] commonWindows(List<Integer> users, Date date) {
+        if (overlapEngine == OverlapEngine.BITMAP) {
+            List<DayBitmap> bitmaps = new ArrayList<>(users.size());
+            for (Integer user : users) {
+                DayBitmap bitmap = daySlots(user, date).bitmap(bitmapSlotSeconds);
+                if (bitmap.isEmpty()) {
+                    return new int[0];
+                }
+                bitmaps.add(bitmap);
+            }
+            return DayBitmap.intersect(bitmaps);
+        }
+        List<int[]> freeWindows = new ArrayList<>(users.size());
+        for (Integer user : users) {
+            int[] windows = daySlots(user, date).union();
+            if (windows.length == 0) {
+                return windows;
+            }
+            freeWindows.add(windows);
+        }
+        return IntervalUtils.intersectAll(freeWindows);
+    }
 
-        long availabilityStartTime = existingAvailability.get_start().getTime();
-        long availabilityEndTime = existingAvailability.get_end().getTime();
+    // Windows of a local day during which every one of the users is free, exact whatever the configured engine
+    private int[] localCommonWindows(List<Integer> users, LocalDay day) {
+        List<int[]> freeWindows = new ArrayList<>(users.size());
+        for (Integer user : users) {
+            int[] windows = localWindows(user, day);
+            if (windows.length == 0) {
+                return windows;
+            }
+            freeWindows.add(windows);
+        }
+        return IntervalUtils.intersectAll(freeWindows);
+    }
 
-        long deletionStartTime = availabilityDeletion.get_start().getTime();
-        long deletionEndTime = availabilityDeletion.get_end().getTime();
+    // A user's free windows over a local day, merged from the UTC days it covers
+    private int[] localWindows(Integer user, LocalDay day) {
+        return day.merge(epochDay -> daySlots(user, TimeUtils.toDate(epochDay)).union());
+    }
 
-        List<UserAvailability> updatedAvailabilityList = new ArrayList<>();
+    // A user's indexed day, with the writes still queued in write-behind mode merged in
+    private DaySlots daySlots(Integer user, Date date) {
+        return pendingWrites.overlay(availabilityIndex.get(user, date));
+    }
 
-        // There are 4 cases of overlap
-        // Case 1. No overlap
-        // Case 2. Deletion availability is exactly the same as existing existingAvailability, do nothing, this means no new existingAvailability is added to updatedAvailabilityList
-        // Case 3. Deletion availability contained within the existing existingAvailability
-        // Case 4. Deletion availability partially overlapping with existing existingAvailability
-
-        if ( (deletionStartTime > availabilityStartTime && deletionEndTime > availabilityStartTime
-                && deletionStartTime > availabilityEndTime && deletionEndTime > availabilityEndTime)
-                ||
-             ( deletionStartTime < availabilityStartTime && deletionEndTime < availabilityStartTime
-                && deletionStartTime < availabilityEndTime && deletionEndTime < availabilityEndTime)
-        ) {
-            updatedAvailabilityList.add(newAvailability(existingAvailability.get_date(), existingAvailability.get_start(), existingAvailability.get_end(), existingAvailability.getUserid()));
-        } else if ( deletionStartTime >= availabilityStartTime && deletionEndTime <= availabilityEndTime) {
-             // Case 2 and Case 3
-             updatedAvailabilityList.addAll(computeUpdatedAvailabilityForContainedDeletion(existingAvailability, availabilityDeletion));
-         } else if (deletionStartTime >= availabilityStartTime &&  deletionEndTime > availabilityEndTime) {
-             // Case 4
-             updatedAvailabilityList.addAll(computeUpdatedAvailabilityForPartialOverlap1(existingAvailability, availabilityDeletion));
-         } else if (deletionStartTime < availabilityStartTime && deletionEndTime < availabilityEndTime) {
-            // Case 4
-            updatedAvailabilityList.addAll(computeUpdatedAvailabilityForPartialOverlap2(existingAvailability, availabilityDeletion));
-        }
+    // Overlap of two users on a date, from the overlap store unless either user has writes of that date queued. Every
+    // two user overlap goes through here, bulk reports included, so they all honour the engine and the pending writes.
+    // Bulk reports go through every pair, so their lookups don't count towards detecting hot pairs
+    int[] overlap(Integer user1, Integer user2, Date date) {
+        return overlap(user1, user2, date, false);
+    }
 
-        return updatedAvailabilityList;
+    // Overlap of two users over a local day, the merged windows both are free as for a single lookup in a time zone
+    int[] overlap(Integer user1, Integer user2, LocalDay day) {
+        return localCommonWindows(Arrays.asList(user1, user2), day);
     }
 
-    private List<UserAvailability> computeUpdatedAvailabilityForPartialOverlap2(UserAvailability existingAvailability, UserAvailability availabilityDeletion) {
-        List<UserAvailability> updatedAvailabilities = new ArrayList<>();
+    private int[] overlap(Integer user1, Integer user2, Date date, boolean countLookup) {
+        int epochDay = TimeUtils.toEpochDay(date);
+        if (!pendingWrites.isPending(user1, epochDay) && !pendingWrites.isPending(user2, epochDay)) {
+            return countLookup ? overlapStore.lookup(user1, user2, epochDay) : overlapStore.overlap(user1, user2, epochDay);
+        }
+        DaySlots first = daySlots(user1, date);
+        DaySlots second = daySlots(user2, date);
+        if (overlapEngine == OverlapEngine.BITMAP) {
+            return DayBitmap.intersect(Arrays.asList(first.bitmap(bitmapSlotSeconds), second.bitmap(bitmapSlotSeconds)));
+        }
+        List<int[]> pairs = first.overlap(second);
+        int[] windows = new int[pairs.size() * 2];
+        for (int i = 0; i < pairs.size(); i++) {
+            windows[2 * i] = pairs.get(i)[0];
+            windows[2 * i + 1] = pairs.get(i)[1];
+        }
+        return windows;
+    }
 
-        Date date = existingAvailability.get_date();
-        Time start = availabilityDeletion.get_end();
-        Time end = existingAvailability.get_end();
-        Integer userid = existingAvailability.getUserid();
+    /**
+     * Streams the availability of a user over a date range with a single range query. Each date's slots are handed
+     * to the consumer as soon as the date is complete and then released, so the range is never held in memory.
+     *
+     * @param userId user_id of the user
+     * @param from first date of the range, inclusive
+     * @param to last date of the range, inclusive
+     * @param consumer receives the slots ordered by date and start time
+     */
+    @Transactional(readOnly = true)
+    @TimedOperation("stream_availability")
+    public void streamAvailabilityForAUser(Integer userId, Date from, Date to, Consumer<UserAvailability> consumer) {
+        long[] produced = {0};
+        try {
+            forEachDate(Collections.singletonList(userId), from, to, (date, availabilities) -> {
+                availabilities.sort(Comparator.comparing(UserAvailability::get_start));
+                availabilities.forEach(consumer);
+                produced[0] += availabilities.size();
+            });
+        } finally {
+            availabilityMetrics.intervalsProduced("stream_availability", produced[0]);
+        }
+    }
 
-        updatedAvailabilities.add(newAvailability(date, start, end, userid));
+    /**
+     * Streams the overlapping availability of two users over a date range. Both users' slots are read with a single
+     * range query ordered by date, and the overlap of each date is handed to the consumer as soon as the date is complete.
+     *
+     * @param user1 user_id of one user
+     * @param user2 user_id of another user
+     * @param from first date of the range, inclusive
+     * @param to last date of the range, inclusive
+     * @param consumer receives the overlapping windows ordered by date and start time
+     */
+    @Transactional(readOnly = true)
+    @TimedOperation("stream_overlap")
+    public void streamOverlappingAvailability(Integer user1, Integer user2, Date from, Date to, Consumer<OverlappingAvailability> consumer) {
+        if (user1.equals(user2)) {
+            return;
+        }
+        long[] produced = {0};
+        try {
+            forEachDate(Arrays.asList(user1, user2), from, to, (date, availabilities) -> {
+                List<UserAvailability> firstUserDay = new ArrayList<>();
+                List<UserAvailability> secondUserDay = new ArrayList<>();
+                for (UserAvailability availability : availabilities) {
+                    (user1.equals(availability.getUserid()) ? firstUserDay : secondUserDay).add(availability);
+                }
+                if (firstUserDay.isEmpty() || secondUserDay.isEmpty()) {
+                    return;
+                }
+                int epochDay = TimeUtils.toEpochDay(date);
+                DaySlots firstUserSlots = DaySlots.of(user1, epochDay, firstUserDay);
+                DaySlots secondUserSlots = DaySlots.of(user2, epochDay, secondUserDay);
+                for (int[] window : firstUserSlots.overlap(secondUserSlots)) {
+                    consumer.accept(new OverlapWindow(date, user1, user2, TimeUtils.toTime(window[0]), TimeUtils.toTime(window[1])));
+                    produced[0]++;
+                }
+            });
+        } finally {
+            availabilityMetrics.intervalsProduced("stream_overlap", produced[0]);
+        }
+    }
 
-        return updatedAvailabilities;
+    /**
+     * Streams the availability of a user over a range of dates in a time zone, as the user's free windows of each local
+     * day in local times, see {@link #findAvailabilityForAUserAndDate(Integer, String, ZoneRules)}. Days are read from
+     * the {@link AvailabilityIndex}.
+     *
+     * @param userId user_id of the user
+     * @param from first local date of the range, inclusive
+     * @param to last local date of the range, inclusive
+     * @param zone rules of the time zone of the dates, see {@link TimeUtils#zoneRules(String)}
+     * @param consumer receives the windows ordered by date and start time
+     */
+    @TimedOperation("stream_availability_tz")
+    public void streamAvailabilityForAUser(Integer userId, Date from, Date to, ZoneRules zone, Consumer<UserAvailability> consumer) {
+        long produced = 0;
+        try {
+            for (LocalDate date = from.toLocalDate(); !date.isAfter(to.toLocalDate()); date = date.plusDays(1)) {
+                List<UserAvailability> availabilities = localAvailability(userId, LocalDay.of(date, zone));
+                availabilities.forEach(consumer);
+                produced += availabilities.size();
+            }
+        } finally {
+            availabilityMetrics.intervalsProduced("stream_availability_tz", produced);
+        }
     }
 
-    private List<UserAvailability> computeUpdatedAvailabilityForPartialOverlap1(UserAvailability availability, UserAvailability availabilityDeletion) {
+    /**
+     * Streams the overlapping availability of two users over a range of dates in a time zone, as the merged windows of
+     * each local day during which both users are free, in local times. Days are read from the {@link AvailabilityIndex}.
+     *
+     * @param user1 user_id of one user
+     * @param user2 user_id of another user
+     * @param from first local date of the range, inclusive
+     * @param to last local date of the range, inclusive
+     * @param zone rules of the time zone of the dates, see {@link TimeUtils#zoneRules(String)}
+     * @param consumer receives the overlapping windows ordered by date and start time
+     */
+    @TimedOperation("stream_overlap_tz")
+    public void streamOverlappingAvailability(Integer user1, Integer user2, Date from, Date to, ZoneRules zone, Consumer<OverlappingAvailability> consumer) {
+        if (user1.equals(user2)) {
+            return;
+        }
+        long produced = 0;
+        try {
+            for (LocalDate date = from.toLocalDate(); !date.isAfter(to.toLocalDate()); date = date.plusDays(1)) {
+                LocalDay day = LocalDay.of(date, zone);
+                int[] windows = overlap(user1, user2, day);
+                for (int i = 0; i < windows.length; i += 2) {
+                    consumer.accept(new OverlapWindow(Date.valueOf(date), user1, user2, day.toTime(windows[i]), day.toTime(windows[i + 1])));
+                }
+                produced += windows.length / 2;
+            }
+        } finally {
+            availabilityMetrics.intervalsProduced("stream_overlap_tz", produced);
+        }
+    }
+
+    // Reads the stored slots of the users over the range with a single range query, merges in the occurrences of their
+    // recurring rules and hands every date that has availability to the consumer once it is complete
+    private void forEachDate(List<Integer> userIds, Date from, Date to, BiConsumer<Date, List<UserAvailability>> consumer) {
+        Map<Long, List<UserAvailability>> occurrences = recurringAvailabilityHelper.findOccurrences(userIds, from, to);
+        List<UserAvailability> day = new ArrayList<>();
+        int[] currentDay = {TimeUtils.toEpochDay(from)};
+        long[] rows = {0};
+
+        try (Stream<UserAvailability> availabilities = availabilityRepository.streamByUseridInAndDateBetween(userIds, from, to)) {
+            availabilities.forEach(availability -> {
+                entityManager.detach(availability);
+                rows[0]++;
+                int epochDay = TimeUtils.toEpochDay(availability.get_date());
+                while (currentDay[0] < epochDay) {
+                    completeDate(userIds, currentDay[0]++, day, occurrences, consumer);
+                }
+                day.add(availability);
+            });
+        } finally {
+            availabilityMetrics.rowsRead("range", rows[0]);
+        }
+        int lastDay = TimeUtils.toEpochDay(to);
+        while (currentDay[0] <= lastDay) {
+            completeDate(userIds, currentDay[0]++, day, occurrences, consumer);
+        }
+    }
 
-        List<UserAvailability> updatedAvailabilities = new ArrayList<>();
+    private static void completeDate(List<Integer> userIds, int epochDay, List<UserAvailability> day,
+                                     Map<Long, List<UserAvailability>> occurrences, BiConsumer<Date, List<UserAvailability>> consumer) {
+        RecurringAvailabilityHelper.addOccurrences(userIds, epochDay, day, occurrences);
+        if (!day.isEmpty()) {
+            consumer.accept(TimeUtils.toDate(epochDay), day);
+            day.clear();
+        }
+    }
 
-        Date date = availability.get_date();
-        Time start = availability.get_start();
-        Time end = availabilityDeletion.get_start();
-        Integer userid = availability.getUserid();
+    @TimedOperation("find_by_user")
+    public Page<UserAvailability> findAvailabilityForAUser(Integer userId, Pageable pageable) {
+        Page<UserAvailability> availabilities = availabilityRepository.findByUserid(userId, pageable);
+        availabilityMetrics.rowsRead("user", availabilities.getNumberOfElements());
+        return availabilities;
+    }
 
-        updatedAvailabilities.add(newAvailability(date, start, end, userid));
+    /**
+     * Returns a page of availability in (userid, date, start) order with keyset pagination: every page, however deep,
+     * is a range scan of the (userid, _date, _start) index that starts after the previous page's last slot. Only stored
+     * slots are paged, occurrences of recurring rules are not, see {@link #streamAvailabilityForAUser} for those.
+     *
+     * @param userId user whose availability to page through, or {@code null} for every user's
+     * @param cursor the {@link CursorPage#getNext()} cursor of the previous page, {@code null} for the first page
+     * @param size maximum number of slots of the page
+     * @return {@link CursorPage} of {@link UserAvailability}
+     * @throws IllegalArgumentException when the cursor is not one of this listing
+     */
+    @TimedOperation("find_after")
+    public CursorPage<UserAvailability> findAvailabilityAfter(Integer userId, String cursor, int size) {
+        // One more row than asked for tells whether there is a next page
+        Pageable pageable = PageRequest.of(0, size + 1);
+        List<UserAvailability> availabilities;
+        if (cursor == null) {
+            availabilities = userId == null ? availabilityRepository.findFirstPage(pageable)
+                    : availabilityRepository.findFirstPageByUserid(userId, pageable);
+        } else {
+            int[] key = CursorUtils.decode(cursor, 3);
+            if (userId != null && key[0] != userId) {
+                throw new IllegalArgumentException(INVALID_CURSOR_ERROR_MSG);
+            }
+            Date date;
+            Time start;
+            try {
+                date = TimeUtils.toDate(key[1]);
+                start = TimeUtils.toTime(key[2]);
+            } catch (DateTimeException e) {
+                // Decodes, but doesn't hold the key of a row, e.g. a tampered token
+                throw new IllegalArgumentException(INVALID_CURSOR_ERROR_MSG, e);
+            }
+            availabilities = userId == null ? availabilityRepository.findPageAfter(key[0], date, start, pageable)
+                    : availabilityRepository.findPageByUseridAfter(userId, date, start, pageable);
+        }
+        availabilityMetrics.rowsRead("user", availabilities.size());
+        return CursorPage.of(availabilities, size, last -> CursorUtils.encode(
+                last.getUserid(), TimeUtils.toEpochDay(last.get_date()), TimeUtils.toSecondOfDay(last.get_start())));
+    }
 
-        return updatedAvailabilities;
+    @TimedOperation("find_by_date")
+    public List<UserAvailability> findAvailabilityForAUserAndDate(Integer userId, String date) {
+        return daySlots(userId, Date.valueOf(TimeUtils.parseDate(date))).toEntities();
     }
 
-    @VisibleForTesting
-    private List<UserAvailability> computeUpdatedAvailabilityForContainedDeletion(UserAvailability availability, UserAvailability availabilityDeletion) {
-        List<UserAvailability> updatedAvailabilities = new ArrayList<>();
-        long deletionStartTime = availabilityDeletion.get_start().getTime();
-        long deletionEndTime = availabilityDeletion.get_end().getTime();
+    /**
+     * Returns the availability of a user on a date in a time zone, as the user's free windows of that local day in
+     * local times. The UTC days the local day covers are read from the {@link AvailabilityIndex} and windows crossing
+     * UTC midnight are merged, see {@link LocalDay}. The windows are not stored slots and have no ids.
+     *
+     * @param userId user_id of the user
+     * @param date local date
+     * @param zone rules of the time zone of the date, see {@link TimeUtils#zoneRules(String)}
+     */
+    @TimedOperation("find_by_date_tz")
+    public List<UserAvailability> findAvailabilityForAUserAndDate(Integer userId, String date, ZoneRules zone) {
+        return localAvailability(userId, LocalDay.of(TimeUtils.parseDate(date), zone));
+    }
 
-        Time availabilityStart = new Time(availability.get_start().getTime());
-        Time deletionStart = new Time(deletionStartTime);
-        Date date = availability.get_date();
-        Integer userid = availability.getUserid();
+    // A user's free windows over a local day as availability in local times
+    private List<UserAvailability> localAvailability(Integer userId, LocalDay day) {
+        int[] windows = localWindows(userId, day);
+        List<UserAvailability> availabilities = new ArrayList<>(windows.length / 2);
+        for (int i = 0; i < windows.length; i += 2) {
+            UserAvailability availability = new UserAvailability();
+            availability.set_date(Date.valueOf(day.getDate()));
+            availability.set_start(day.toTime(windows[i]));
+            availability.set_end(day.toTime(windows[i + 1]));
+            availability.setUserid(userId);
+            availabilities.add(availability);
+        }
+        return availabilities;
+    }
 
-        if (!availabilityStart.equals(deletionStart)) {
-            updatedAvailabilities.add(newAvailability(date, availabilityStart, deletionStart, userid));
+    /**
+     * Adds availability and coalesces it with the existing availability of each user and date, so a day is always
+     * stored as a minimal set of disjoint slots. Overlapping and touching slots are merged; an existing slot keeps its
+     * row when nothing is merged into it, otherwise the slots absorbed by a merged window are replaced by it.
+     * The affected days are locked with {@link DayLocks} until the transaction completes, so concurrent writes to the
+     * same day can't lose each other's changes.
+     *
+     * @param availabilityList availability to add, for any number of users and dates
+     * @return the coalesced availability of every user and date that was affected
+     */
+    @Transactional
+    @TimedOperation("add")
+    public List<UserAvailability> addAvailability(List<UserAvailability> availabilityList) {
+        availabilityList.forEach(AvailabilityHelper::validateAvailability);
+        Map<Long, List<UserAvailability>> additionsByDay = groupByUserAndDate(availabilityList);
+        dayLocks.lockUntilCompletion(additionsByDay.keySet());
+
+        Map<Long, List<UserAvailability>> existingByDay = getExistingAvailability(additionsByDay);
+
+        List<UserAvailability> coalescedAvailabilityList = new ArrayList<>();
+        List<Integer> deletedIds = new ArrayList<>();
+        List<UserAvailability> insertedAvailability = new ArrayList<>();
+
+        for (Map.Entry<Long, List<UserAvailability>> entry : additionsByDay.entrySet()) {
+            List<UserAvailability> additions = entry.getValue();
+            Integer userid = additions.get(0).getUserid();
+            int epochDay = TimeUtils.toEpochDay(additions.get(0).get_date());
+            List<UserAvailability> existingAvailability = new ArrayList<>(existingByDay.getOrDefault(entry.getKey(), Collections.emptyList()));
+            existingAvailability.sort(Comparator.comparing(UserAvailability::get_start));
+
+            List<UserAvailability> allAvailability = new ArrayList<>(existingAvailability);
+            allAvailability.addAll(additions);
+            int[] windows = IntervalUtils.union(toWindows(allAvailability));
+
+            // Existing slots are sorted, so the ones absorbed by each merged window are consecutive
+            int next = 0;
+            for (int i = 0; i < windows.length; i += 2) {
+                long merged = Slot.of(epochDay, windows[i], windows[i + 1]);
+                List<UserAvailability> absorbed = new ArrayList<>();
+                while (next < existingAvailability.size()
+                        && TimeUtils.toSecondOfDay(existingAvailability.get(next).get_start()) < windows[i + 1]) {
+                    absorbed.add(existingAvailability.get(next++));
+                }
+                if (absorbed.size() == 1 && Slot.of(absorbed.get(0)) == merged) {
+                    coalescedAvailabilityList.add(absorbed.get(0));
+                    continue;
+                }
+                absorbed.forEach(availability -> deletedIds.add(availability.getId()));
+                UserAvailability mergedAvailability = Slot.toEntity(merged, userid);
+                insertedAvailability.add(mergedAvailability);
+                coalescedAvailabilityList.add(mergedAvailability);
+            }
         }
+        availabilityIndex.refreshAfterCommit(availabilityList);
 
-        Time deletionEnd = new Time(deletionEndTime);
-        Time availabilityEnd = new Time(availability.get_end().getTime());
+        availabilityBatchRepository.deleteAllById(deletedIds);
+        availabilityBatchRepository.insertAll(insertedAvailability);
 
-        if (!deletionEnd.equals(availabilityEnd)) {
-            updatedAvailabilities.add(newAvailability(date, deletionEnd, availabilityEnd, userid));
+        availabilityMetrics.intervalsProduced("add", coalescedAvailabilityList.size());
+        return coalescedAvailabilityList;
+    }
+
+    @Transactional
+    @TimedOperation("delete")
+    public List<UserAvailability> deleteAvailability(UserAvailability availabilityDeletion) {
+        return deleteAvailability(Collections.singletonList(availabilityDeletion));
+    }
+
+    /**
+     * Deletes a list of availability windows in one transaction. The windows of each user and date are merged and
+     * subtracted from the existing slots together, and only the slots they actually cut into are deleted and replaced
+     * by their remaining fragments, with batched JDBC writes. Untouched slots keep their rows and ids. The affected
+     * days are locked with {@link DayLocks} until the transaction completes.
+     *
+     * @param availabilityDeletions windows to delete, for any number of users and dates
+     * @return the updated availability of every user and date that was affected
+     */
+    @Transactional
+    @TimedOperation("delete")
+    public List<UserAvailability> deleteAvailability(List<UserAvailability> availabilityDeletions) {
+        availabilityDeletions.forEach(AvailabilityHelper::validateAvailability);
+        Map<Long, List<UserAvailability>> deletionsByDay = groupByUserAndDate(availabilityDeletions);
+        dayLocks.lockUntilCompletion(deletionsByDay.keySet());
+
+        List<UserAvailability> updatedAvailabilityList = new ArrayList<>();
+        List<Integer> deletedIds = new ArrayList<>();
+        List<UserAvailability> insertedAvailability = new ArrayList<>();
+        int fragmentCount = 0;
+        Map<Long, List<UserAvailability>> existingByDay = getExistingAvailability(deletionsByDay);
+
+        for (Map.Entry<Long, List<UserAvailability>> entry : deletionsByDay.entrySet()) {
+            List<UserAvailability> deletions = entry.getValue();
+            Integer userid = deletions.get(0).getUserid();
+            Date date = deletions.get(0).get_date();
+            List<UserAvailability> existingAvailability = existingByDay.getOrDefault(entry.getKey(), Collections.emptyList());
+            int[] windows = IntervalUtils.union(toWindows(deletions));
+
+            // Compute new updated availability based on overlap of deletion windows with existing availabilities
+            long[] fragments = new long[windows.length / 2 + 1];
+            for(UserAvailability availability : existingAvailability) {
+                long slot = Slot.of(availability);
+                int count = IntervalUtils.subtractAll(slot, windows, fragments, 0);
+                if (count == 1 && fragments[0] == slot) {
+                    updatedAvailabilityList.add(availability);
+                    continue;
+                }
+                List<UserAvailability> remaining = toEntities(fragments, count, userid);
+                deletedIds.add(availability.getId());
+                fragmentCount += count;
+                insertedAvailability.addAll(remaining);
+                updatedAvailabilityList.addAll(remaining);
+            }
+            // Occurrences of recurring rules are carved by recording exceptions
+            recurringAvailabilityHelper.addExceptions(userid, date, windows);
+            availabilityIndex.refreshAfterCommit(userid, date);
         }
 
-        return updatedAvailabilities;
+        // Only the slots cut by a deletion window are replaced
+        availabilityBatchRepository.deleteAllById(deletedIds);
+        availabilityBatchRepository.insertAll(insertedAvailability);
+
+        availabilityMetrics.deleteFragments(fragmentCount);
+        availabilityMetrics.intervalsProduced("delete", updatedAvailabilityList.size());
+        return updatedAvailabilityList;
+    }
+
+    List<UserAvailability> computeUpdatedAvailability(UserAvailability existingAvailability, UserAvailability availabilityDeletion) {
+        long[] fragments = new long[2];
+        int count = IntervalUtils.subtract(Slot.of(existingAvailability),
+                TimeUtils.toSecondOfDay(availabilityDeletion.get_start()),
+                TimeUtils.toSecondOfDay(availabilityDeletion.get_end()),
+                fragments, 0);
+
+        return toEntities(fragments, count, existingAvailability.getUserid());
     }
 
-    // Get existing availability for the given user and date
-    private List<UserAvailability> getExistingAvailabilityForUser(Integer userid, Date date) {
-        return availabilityRepository.findBy_dateAndUserid(date, userid);
+    // Get existing availability of the given user days, keyed like them. Several days, e.g. an import chunk, are read
+    // with one range query over their users and dates instead of a query per day.
+    private Map<Long, List<UserAvailability>> getExistingAvailability(Map<Long, ? extends List<UserAvailability>> byDay) {
+        Map<Long, List<UserAvailability>> existing = new LinkedHashMap<>();
+        if (byDay.size() == 1) {
+            Map.Entry<Long, ? extends List<UserAvailability>> day = byDay.entrySet().iterator().next();
+            UserAvailability first = day.getValue().get(0);
+            List<UserAvailability> availabilities = availabilityRepository.findBy_dateAndUserid(first.get_date(), first.getUserid());
+            availabilityMetrics.rowsRead("write", availabilities.size());
+            existing.put(day.getKey(), availabilities);
+            return existing;
+        }
+        Set<Integer> userIds = new LinkedHashSet<>();
+        Date from = null;
+        Date to = null;
+        for (List<UserAvailability> availabilities : byDay.values()) {
+            UserAvailability first = availabilities.get(0);
+            userIds.add(first.getUserid());
+            from = from == null || first.get_date().before(from) ? first.get_date() : from;
+            to = to == null || first.get_date().after(to) ? first.get_date() : to;
+        }
+        long[] rows = {0};
+        try (Stream<UserAvailability> availabilities = availabilityRepository.streamByUseridInAndDateBetween(userIds, from, to)) {
+            availabilities.forEach(availability -> {
+                rows[0]++;
+                long key = AvailabilityIndex.key(availability.getUserid(), TimeUtils.toEpochDay(availability.get_date()));
+                if (byDay.containsKey(key)) {
+                    existing.computeIfAbsent(key, k -> new ArrayList<>()).add(availability);
+                } else {
+                    entityManager.detach(availability);
+                }
+            });
+        }
+        availabilityMetrics.rowsRead("write", rows[0]);
+        return existing;
     }
 
+    /**
+     * Sets recurring availability for a user. It is stored as a single rule whose occurrences are expanded only for the
+     * dates being queried. A rule is bounded by its end date when given, otherwise by its number of occurrences.
+     *
+     * @param availability the recurring availability to set
+     */
+    @Transactional
+    @TimedOperation("add_recurring")
     public void addRecurringAvailability(RecurringUserAvailability availability) {
-        List<UserAvailability> availabilities = computeRecurringAvailability(availability);
+        validateRecurringAvailability(availability);
+        recurringAvailabilityHelper.addRecurringAvailability(availability, recurringEnddate(availability));
+        availabilityIndex.refreshUserAfterCommit(availability.getUserid());
+    }
 
-        availabilityRepository.saveAllAndFlush(availabilities);
+    // Last date a rule can occur on: its end date, the date of its last occurrence, or null when open ended
+    Date recurringEnddate(RecurringUserAvailability availability) {
+        Date enddate = availability.getEnddate();
+        if (enddate == null && availability.getOccurrences() != null) {
+            List<UserAvailability> occurrences = computeRecurringAvailability(availability);
+            availabilityMetrics.recurringOccurrences("rule", occurrences.size());
+            enddate = occurrences.get(occurrences.size() - 1).get_date();
+        }
+        return enddate;
     }
 
     List<UserAvailability> computeRecurringAvailability(RecurringUserAvailability availability) {
-        Date startDate = availability.getStartdate();
-        Integer numberOfOccurrences = availability.getOccurrences();
+        long[] occurrences = computeRecurringSlots(availability);
+        return toEntities(occurrences, occurrences.length, availability.getUserid());
+    }
+
+    private long[] computeRecurringSlots(RecurringUserAvailability availability) {
+        LocalDate startDate = availability.getStartdate().toLocalDate();
+        int start = TimeUtils.toSecondOfDay(availability.get_start());
+        int end = TimeUtils.toSecondOfDay(availability.get_end());
+        int numberOfOccurrences = availability.getOccurrences();
+        int every = availability.getEvery() == null ? 1 : availability.getEvery();
         Interval interval = Interval.valueOf(availability.getInterval().toUpperCase());
+        int step = interval == Interval.WEEKDAYS ? 1 : interval.getDays() * every;
+
+        long[] occurrences = new long[numberOfOccurrences];
+        int count = 0;
+        for(LocalDate date = startDate; count < numberOfOccurrences; date = date.plusDays(step)) {
+            if (interval.occursOn(startDate, date, every)) {
+                occurrences[count++] = Slot.of((int) date.toEpochDay(), start, end);
+            }
+        }
+        return occurrences;
+    }
 
-        List<UserAvailability> availabilities = new ArrayList<>();
+    // Flattens availabilities into [start0, end0, start1, end1, ...] second-of-day windows
+    private static int[] toWindows(List<UserAvailability> availabilities) {
+        int[] windows = new int[availabilities.size() * 2];
+        for (int i = 0; i < availabilities.size(); i++) {
+            windows[2 * i] = TimeUtils.toSecondOfDay(availabilities.get(i).get_start());
+            windows[2 * i + 1] = TimeUtils.toSecondOfDay(availabilities.get(i).get_end());
+        }
+        return windows;
+    }
+
+    // Groups availabilities by user and date, keyed by AvailabilityIndex.key, keeping the order in which each first appears
+    private static Map<Long, List<UserAvailability>> groupByUserAndDate(List<UserAvailability> availabilities) {
+        Map<Long, List<UserAvailability>> groups = new LinkedHashMap<>();
+        for (UserAvailability availability : availabilities) {
+            long key = AvailabilityIndex.key(availability.getUserid(), TimeUtils.toEpochDay(availability.get_date()));
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(availability);
+        }
+        return groups;
+    }
 
-        for(int i = 0; i < numberOfOccurrences; i++) {
-            Date _date = TimeUtils.addDays(startDate, i * interval.getDays());
+    static void validateAvailability(UserAvailability availability) {
+        if (availability.getUserid() == null || availability.get_date() == null
+                || availability.get_start() == null || availability.get_end() == null
+                || !availability.get_start().before(availability.get_end())) {
+            throw new IllegalArgumentException(INVALID_AVAILABILITY_ERROR_MSG);
+        }
+    }
 
-            UserAvailability userAvailability = newAvailability(_date, availability.get_start(), availability.get_end(), availability.getUserid());
+    static void validateRecurringAvailability(RecurringUserAvailability availability) {
+        if (availability.getUserid() == null || availability.getStartdate() == null || availability.getInterval() == null
+                || availability.get_start() == null || availability.get_end() == null
+                || !availability.get_start().before(availability.get_end())
+                || (availability.getEvery() != null && availability.getEvery() < 1)
+                || (availability.getOccurrences() != null && availability.getOccurrences() < 1)
+                || (availability.getEnddate() != null && availability.getEnddate().before(availability.getStartdate()))) {
+            throw new IllegalArgumentException(INVALID_RECURRING_AVAILABILITY_ERROR_MSG);
+        }
+        Interval.valueOf(availability.getInterval().toUpperCase());
+    }
 
-            availabilities.add(userAvailability);
+    // Converts compact slots back into entities at the persistence boundary
+    private static List<UserAvailability> toEntities(long[] slots, int count, Integer userid) {
+        List<UserAvailability> availabilities = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            availabilities.add(Slot.toEntity(slots[i], userid));
         }
         return availabilities;
     }
 
-    private UserAvailability newAvailability(Date date, Time start, Time end, Integer userid) {
-        UserAvailability newAvailability = new UserAvailability();
-        newAvailability.set_date(date);
-        newAvailability.set_start(start);
-        newAvailability.set_end(end);
-        newAvailability.setUserid(userid);
-
-        return newAvailability;
+    private static <T> Page<T> toPage(List<T> content, Pageable pageable) {
+        int from = (int) Math.min(pageable.getOffset(), content.size());
+        int to = Math.min(from + pageable.getPageSize(), content.size());
+        return new PageImpl<>(content.subList(from, to), pageable, content.size());
     }
 
 }
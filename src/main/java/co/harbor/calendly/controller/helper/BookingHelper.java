@@ -0,0 +1,204 @@
+package co.harbor.calendly.controller.helper;
+
+import co.harbor.calendly.entity.Booking;
+import co.harbor.calendly.entity.BookingDay;
+import co.harbor.calendly.entity.UserAvailability;
+import co.harbor.calendly.index.AvailabilityIndex;
+import co.harbor.calendly.index.DayLocks;
+import co.harbor.calendly.index.DayReservations;
+import co.harbor.calendly.metrics.AvailabilityMetrics;
+import co.harbor.calendly.metrics.TimedOperation;
+import co.harbor.calendly.model.BookingRequest;
+import co.harbor.calendly.repository.IBookingRepository;
+import co.harbor.calendly.utils.TimeUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.sql.Date;
+import java.sql.Time;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.UUID;
+
+import static co.harbor.calendly.constants.Constants.BOOKING_CONFLICT_ERROR_MSG;
+import static co.harbor.calendly.constants.Constants.BOOKING_NOT_AVAILABLE_ERROR_MSG;
+import static co.harbor.calendly.constants.Constants.INVALID_BOOKING_ERROR_MSG;
+import static co.harbor.calendly.constants.Constants.UNKNOWN_BOOKING_ERROR_MSG;
+
+/**
+ * Books windows out of the availability of a user or of every user of a group. A booking claims its window in three
+ * steps, each cheaper than the next and each resolving a different race:
+ * <ol>
+ *     <li>the window is reserved on every user's day in {@link DayReservations} with compare-and-set, so of concurrent
+ *     claims of the same window only one goes on and the others fail without touching the database,</li>
+ *     <li>the winner locks the users' days with {@link DayLocks}, like availability writes do, and checks the window is
+ *     within every user's availability, so it can't race with a concurrent delete of that availability,</li>
+ *     <li>the users' {@link BookingDay} rows are locked with {@code SELECT ... FOR UPDATE}, in user id order, and a
+ *     booking row per user is inserted only if the user has no overlapping booking. The first two steps only hold
+ *     within an instance, the row locks serialize bookings of a day across every instance sharing the database, as
+ *     under READ COMMITTED the overlap check alone would let two concurrent inserts through. The window is then
+ *     deleted from every user's availability.</li>
+ * </ol>
+ * Only the days of the booked users are ever locked. The reservation is released once the transaction completed, after
+ * the {@link AvailabilityIndex} was refreshed, so the next claim sees the window gone.
+ */
+@Component
+public class BookingHelper {
+
+    @Autowired
+    private IBookingRepository bookingRepository;
+
+    @Autowired
+    private AvailabilityHelper availabilityHelper;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private DayReservations dayReservations;
+
+    @Autowired
+    private DayLocks dayLocks;
+
+    @Autowired
+    private AvailabilityMetrics availabilityMetrics;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Books a window of a date for every given user and deletes it from their availability.
+     *
+     * @return the booking's rows, one per user, sharing a reference
+     * @throws IllegalArgumentException when the request is invalid
+     * @throws IllegalStateException when the window is not free for every user, e.g. as another booking claimed it first
+     */
+    @TimedOperation("book")
+    public List<Booking> book(BookingRequest request) {
+        validateBooking(request);
+        List<Integer> users = new ArrayList<>(new LinkedHashSet<>(request.getUserids()));
+        int epochDay = TimeUtils.toEpochDay(request.get_date());
+        int start = TimeUtils.toSecondOfDay(request.get_start());
+        int end = TimeUtils.toSecondOfDay(request.get_end());
+        List<Long> days = new ArrayList<>(users.size());
+        users.forEach(user -> days.add(AvailabilityIndex.key(user, epochDay)));
+
+        // Created in their own transactions, so a concurrent insert of the same row doesn't fail the booking
+        for (Integer user : users) {
+            insertDayIfAbsent(user, request.get_date());
+        }
+        if (!dayReservations.tryReserve(days, start, end)) {
+            availabilityMetrics.bookingClaim("reserved");
+            throw new IllegalStateException(BOOKING_CONFLICT_ERROR_MSG);
+        }
+        try {
+            List<Booking> bookings = transactionTemplate.execute(status -> claim(users, days, request, start, end));
+            availabilityMetrics.bookingClaim("booked");
+            return bookings;
+        } finally {
+            dayReservations.release(days, start, end);
+        }
+    }
+
+    private List<Booking> claim(List<Integer> users, List<Long> days, BookingRequest request, int start, int end) {
+        dayLocks.lockUntilCompletion(days);
+        for (Integer user : users) {
+            if (!covers(availabilityIndex.get(user, request.get_date()).union(), start, end)) {
+                availabilityMetrics.bookingClaim("unavailable");
+                throw new IllegalStateException(BOOKING_NOT_AVAILABLE_ERROR_MSG);
+            }
+        }
+
+        List<Integer> lockOrder = new ArrayList<>(users);
+        Collections.sort(lockOrder);
+        for (Integer user : lockOrder) {
+            bookingRepository.lockDay(user, request.get_date());
+        }
+        String reference = UUID.randomUUID().toString();
+        List<UserAvailability> booked = new ArrayList<>(users.size());
+        for (Integer user : users) {
+            if (bookingRepository.insertIfFree(reference, user, request.get_date(), request.get_start(), request.get_end()) == 0) {
+                availabilityMetrics.bookingClaim("booked_elsewhere");
+                throw new IllegalStateException(BOOKING_CONFLICT_ERROR_MSG);
+            }
+            booked.add(toAvailability(user, request.get_date(), request.get_start(), request.get_end()));
+        }
+        availabilityHelper.deleteAvailability(booked);
+        return bookingRepository.findByReference(reference);
+    }
+
+    /**
+     * Cancels a booking and gives its window back to every user's availability.
+     *
+     * @return the cancelled booking's rows
+     * @throws IllegalArgumentException when there is no booking with the reference
+     */
+    @Transactional
+    @TimedOperation("cancel_booking")
+    public List<Booking> cancel(String reference) {
+        List<Booking> bookings = bookingRepository.findByReference(reference);
+        if (bookings.isEmpty()) {
+            throw new IllegalArgumentException(UNKNOWN_BOOKING_ERROR_MSG);
+        }
+        bookingRepository.deleteAllInBatch(bookings);
+        List<UserAvailability> released = new ArrayList<>(bookings.size());
+        for (Booking booking : bookings) {
+            released.add(toAvailability(booking.getUserid(), booking.get_date(), booking.get_start(), booking.get_end()));
+        }
+        availabilityHelper.addAvailability(released);
+        return bookings;
+    }
+
+    public List<Booking> findBookings(Integer userId, Date date) {
+        return bookingRepository.findByUseridAndDate(userId, date);
+    }
+
+    private void insertDayIfAbsent(Integer user, Date date) {
+        try {
+            bookingRepository.insertDayIfAbsent(user, date);
+        } catch (DataIntegrityViolationException e) {
+            // Inserted by a concurrent booking of the same day
+        }
+    }
+
+    static void validateBooking(BookingRequest request) {
+        if (request.getUserids() == null || request.getUserids().isEmpty() || request.getUserids().contains(null)
+                || request.get_date() == null || request.get_start() == null || request.get_end() == null
+                || !request.get_start().before(request.get_end())) {
+            throw new IllegalArgumentException(INVALID_BOOKING_ERROR_MSG);
+        }
+    }
+
+    // Whether one of the sorted, disjoint windows holds the whole of [start, end)
+    private static boolean covers(int[] windows, int start, int end) {
+        for (int i = 0; i < windows.length && windows[i] <= start; i += 2) {
+            if (end <= windows[i + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static UserAvailability toAvailability(Integer user, Date date, Time start, Time end) {
+        UserAvailability availability = new UserAvailability();
+        availability.set_date(date);
+        availability.set_start(start);
+        availability.set_end(end);
+        availability.setUserid(user);
+        return availability;
+    }
+}
@@ -0,0 +1,195 @@
+package co.harbor.calendly.controller.helper;
+
+import co.harbor.calendly.index.AvailabilityIndex;
+import co.harbor.calendly.metrics.AvailabilityMetrics;
+import co.harbor.calendly.metrics.TimedOperation;
+import co.harbor.calendly.model.OverlapWindow;
+import co.harbor.calendly.model.OverlappingAvailability;
+import co.harbor.calendly.utils.LocalDay;
+import co.harbor.calendly.utils.TimeUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
+import static co.harbor.calendly.constants.Constants.BULK_OVERLAP_TOO_LARGE_ERROR_MSG;
+import static co.harbor.calendly.constants.Constants.MAX_BULK_OVERLAP_PAIR_DAYS;
+
+/**
+ * This is a helper class for bulk overlap reports, e.g. every pair of a team, or every member against one user,
+ * over a month. The (pair of users x date) work is split across a dedicated {@link ForkJoinPool} whose parallelism
+ * is set with {@code calendly.overlap.parallelism}, all available processors by default, so reports never compete
+ * with the common pool used by the rest of the application.
+ * <p>
+ * Every user's days are loaded into the {@link AvailabilityIndex} in parallel first, so the overlap phase runs on
+ * memory only and scales with the number of cores. Each pair's overlap is computed like a single overlap lookup, with
+ * the configured engine and the writes still queued in write-behind mode, see {@link AvailabilityHelper}.
+ */
+@Component
+public class BulkOverlapHelper {
+
+    // Pairs of users x days computed by a single task before it stops splitting
+    private static final int LEAF_SIZE = 256;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private AvailabilityHelper availabilityHelper;
+
+    @Autowired
+    private AvailabilityMetrics availabilityMetrics;
+
+    @Value("${calendly.overlap.parallelism:0}")
+    private int parallelism;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    void init() {
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Computes the overlapping availability of several pairs of users over a date range.
+     *
+     * @param userIds users of the report
+     * @param targetUser when given, every user is paired with this user only, otherwise every pair of users is reported
+     * @param from first date of the range, inclusive
+     * @param to last date of the range, inclusive
+     * @return overlapping windows ordered by date, then pair, then start time
+     */
+    @TimedOperation("bulk_overlap")
+    public List<OverlappingAvailability> findOverlappingAvailability(List<Integer> userIds, Integer targetUser, Date from, Date to) {
+        return findOverlappingAvailability(userIds, targetUser, from, to, null);
+    }
+
+    /**
+     * Computes the overlapping availability of several pairs of users over a range of dates in a time zone, in local
+     * dates and times. Each pair's overlap on a local day is the merged windows both users are free, as for a single
+     * overlap lookup in a time zone.
+     *
+     * @param zone rules of the time zone of the dates, see {@link TimeUtils#zoneRules(String)}, UTC when null
+     * @see #findOverlappingAvailability(List, Integer, Date, Date)
+     */
+    @TimedOperation("bulk_overlap_tz")
+    public List<OverlappingAvailability> findOverlappingAvailability(List<Integer> userIds, Integer targetUser, Date from, Date to, ZoneRules zone) {
+        List<Integer> users = new ArrayList<>(new LinkedHashSet<>(userIds));
+        int firstDay = TimeUtils.toEpochDay(from);
+        int days = TimeUtils.toEpochDay(to) - firstDay + 1;
+        // Checked before any pair is built, so an oversized report costs nothing
+        if (pairCount(users, targetUser) * Math.max(days, 0) > MAX_BULK_OVERLAP_PAIR_DAYS) {
+            throw new IllegalArgumentException(BULK_OVERLAP_TOO_LARGE_ERROR_MSG);
+        }
+        int[][] pairs = pairs(users, targetUser);
+        if (pairs.length == 0 || days <= 0) {
+            return new ArrayList<>();
+        }
+        if (targetUser != null && !users.contains(targetUser)) {
+            users.add(targetUser);
+        }
+        // The UTC days to load, local days cover parts of the UTC days before or after them
+        int firstUtcDay = zone == null ? firstDay : LocalDay.of(LocalDate.ofEpochDay(firstDay), zone).firstEpochDay();
+        int utcDays = (zone == null ? firstDay + days - 1
+                : LocalDay.of(LocalDate.ofEpochDay(firstDay + days - 1), zone).lastEpochDay()) - firstUtcDay + 1;
+        // Parallel streams run in the pool they are started from
+        pool.submit(() -> IntStream.range(0, users.size() * utcDays).parallel()
+                .forEach(i -> availabilityIndex.get(users.get(i / utcDays), TimeUtils.toDate(firstUtcDay + i % utcDays))))
+                .join();
+
+        List<OverlappingAvailability> overlaps = pool.invoke(new OverlapTask(pairs, firstDay, zone, 0, pairs.length * days));
+        availabilityMetrics.intervalsProduced("bulk_overlap", overlaps.size());
+        return overlaps;
+    }
+
+    // Number of pairs pairs() builds: every user but the target with the target, or every pair of users
+    private static long pairCount(List<Integer> users, Integer targetUser) {
+        long n = users.size();
+        if (targetUser != null) {
+            return users.contains(targetUser) ? n - 1 : n;
+        }
+        return n * (n - 1) / 2;
+    }
+
+    private static int[][] pairs(List<Integer> users, Integer targetUser) {
+        List<int[]> pairs = new ArrayList<>();
+        for (int i = 0; i < users.size(); i++) {
+            if (targetUser != null) {
+                if (!targetUser.equals(users.get(i))) {
+                    pairs.add(new int[]{targetUser, users.get(i)});
+                }
+                continue;
+            }
+            for (int j = i + 1; j < users.size(); j++) {
+                pairs.add(new int[]{users.get(i), users.get(j)});
+            }
+        }
+        return pairs.toArray(new int[0][]);
+    }
+
+    // Overlaps of work items [from, to), where item i is pair i % pairs on day i / pairs
+    private final class OverlapTask extends RecursiveTask<List<OverlappingAvailability>> {
+
+        private final int[][] pairs;
+        private final int firstDay;
+        private final ZoneRules zone;
+        private final int from;
+        private final int to;
+
+        OverlapTask(int[][] pairs, int firstDay, ZoneRules zone, int from, int to) {
+            this.pairs = pairs;
+            this.firstDay = firstDay;
+            this.zone = zone;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<OverlappingAvailability> compute() {
+            if (to - from > LEAF_SIZE) {
+                int mid = (from + to) >>> 1;
+                OverlapTask left = new OverlapTask(pairs, firstDay, zone, from, mid);
+                left.fork();
+                List<OverlappingAvailability> right = new OverlapTask(pairs, firstDay, zone, mid, to).compute();
+                List<OverlappingAvailability> overlaps = left.join();
+                overlaps.addAll(right);
+                return overlaps;
+            }
+
+            List<OverlappingAvailability> overlaps = new ArrayList<>();
+            for (int i = from; i < to; i++) {
+                int[] pair = pairs[i % pairs.length];
+                Date date = TimeUtils.toDate(firstDay + i / pairs.length);
+                if (zone != null) {
+                    LocalDay day = LocalDay.of(date.toLocalDate(), zone);
+                    int[] windows = availabilityHelper.overlap(pair[0], pair[1], day);
+                    for (int j = 0; j < windows.length; j += 2) {
+                        overlaps.add(new OverlapWindow(date, pair[0], pair[1], day.toTime(windows[j]), day.toTime(windows[j + 1])));
+                    }
+                    continue;
+                }
+                int[] windows = availabilityHelper.overlap(pair[0], pair[1], date);
+                for (int j = 0; j < windows.length; j += 2) {
+                    overlaps.add(new OverlapWindow(date, pair[0], pair[1], TimeUtils.toTime(windows[j]), TimeUtils.toTime(windows[j + 1])));
+                }
+            }
+            return overlaps;
+        }
+    }
+}
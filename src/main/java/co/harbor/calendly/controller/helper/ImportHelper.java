@@ -0,0 +1,225 @@
+package co.harbor.calendly.controller.helper;
+
+import co.harbor.calendly.entity.User;
+import co.harbor.calendly.entity.UserAvailability;
+import co.harbor.calendly.model.ImportReport;
+import co.harbor.calendly.repository.UserBatchRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import static co.harbor.calendly.constants.Constants.*;
+
+/**
+ * Bulk import of users and availability from newline delimited JSON, one object per line, or from CSV with a header
+ * row naming the JSON properties, e.g. {@code userid,_date,_start,_end}.
+ * <p>
+ * The input is read and validated line by line and written in chunks of {@link #CHUNK_SIZE} rows, each chunk in its own
+ * transaction with JDBC batch inserts, so the whole input is never held in memory. A row that can't be parsed, is
+ * invalid or can't be written, e.g. rejected by the database or timing out on a lock, is reported with its line number
+ * and the other rows are still imported: when a chunk fails, its rows are retried one by one to find the failing ones.
+ */
+@Slf4j
+@Component
+public class ImportHelper {
+
+    public static final int CHUNK_SIZE = 5000;
+
+    @Autowired
+    private AvailabilityHelper availabilityHelper;
+
+    @Autowired
+    private UserBatchRepository userBatchRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Imports availability, coalesced with the existing availability of each user and date as
+     * {@link AvailabilityHelper#addAvailability(List)} does.
+     */
+    public ImportReport importAvailability(InputStream input, boolean csv) throws IOException {
+        return importRows(input, csv, UserAvailability.class, AvailabilityHelper::validateAvailability, this::writeAvailability);
+    }
+
+    /**
+     * Imports users. Users whose email id is already taken, by an existing user or an earlier row, are reported as failed.
+     */
+    public ImportReport importUsers(InputStream input, boolean csv) throws IOException {
+        return importRows(input, csv, User.class, ImportHelper::validateUser, this::writeUsers);
+    }
+
+    private <T> ImportReport importRows(InputStream input, boolean csv, Class<T> type, Consumer<T> validator,
+                                        BiConsumer<List<Row<T>>, ImportReport> writer) throws IOException {
+        ImportReport report = new ImportReport();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        List<String> header = null;
+        List<Row<T>> chunk = new ArrayList<>();
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (csv && header == null) {
+                header = splitCsv(line);
+                continue;
+            }
+            T value;
+            try {
+                value = csv ? objectMapper.treeToValue(objectMapper.valueToTree(toMap(header, splitCsv(line))), type)
+                        : objectMapper.readValue(line, type);
+            } catch (JsonProcessingException e) {
+                report.fail(lineNumber, INVALID_IMPORT_ROW_ERROR_MSG);
+                continue;
+            }
+            try {
+                validator.accept(value);
+            } catch (IllegalArgumentException e) {
+                report.fail(lineNumber, e.getMessage());
+                continue;
+            }
+            chunk.add(new Row<>(lineNumber, value));
+            if (chunk.size() == CHUNK_SIZE) {
+                writer.accept(chunk, report);
+                chunk = new ArrayList<>();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writer.accept(chunk, report);
+        }
+        return report;
+    }
+
+    // A chunk's existing availability is read with one range query, see AvailabilityHelper#addAvailability(List)
+    private void writeAvailability(List<Row<UserAvailability>> rows, ImportReport report) {
+        try {
+            availabilityHelper.addAvailability(values(rows));
+            report.imported(rows.size());
+        } catch (DataAccessException e) {
+            // Also lock timeouts, earlier chunks are committed already so the rest is still imported and reported
+            log.warn("Import of {} availability rows failed, retrying them one by one", rows.size(), e);
+            for (Row<UserAvailability> row : rows) {
+                try {
+                    availabilityHelper.addAvailability(Collections.singletonList(row.value));
+                    report.imported(1);
+                } catch (DataAccessException rowException) {
+                    report.fail(row.line, failureMessage(rowException, ADD_AVAILABILITY_UNIQUE_CONSTRAINT_VIOLATION_ERROR_MSG));
+                }
+            }
+        }
+    }
+
+    private void writeUsers(List<Row<User>> rows, ImportReport report) {
+        Map<String, Row<User>> rowsByEmail = new LinkedHashMap<>();
+        for (Row<User> row : rows) {
+            rowsByEmail.putIfAbsent(row.value.getEmailId(), row);
+        }
+        Set<String> existingEmailIds = userBatchRepository.findExistingEmailIds(rowsByEmail.keySet());
+        List<Row<User>> newRows = new ArrayList<>();
+        for (Row<User> row : rows) {
+            String emailId = row.value.getEmailId();
+            if (existingEmailIds.contains(emailId) || rowsByEmail.get(emailId) != row) {
+                report.fail(row.line, DUPLICATE_EMAIL_ERROR_MSG);
+            } else {
+                newRows.add(row);
+            }
+        }
+
+        try {
+            userBatchRepository.insertAll(values(newRows));
+            report.imported(newRows.size());
+        } catch (DataAccessException e) {
+            // Users added concurrently, or rows the database rejects
+            log.warn("Import of {} users failed, retrying them one by one", newRows.size(), e);
+            for (Row<User> row : newRows) {
+                try {
+                    userBatchRepository.insertAll(Collections.singletonList(row.value));
+                    report.imported(1);
+                } catch (DataAccessException rowException) {
+                    report.fail(row.line, failureMessage(rowException, ADD_USERS_UNIQUE_CONSTRAINT_VIOLATION_ERROR_MSG));
+                }
+            }
+        }
+    }
+
+    private static String failureMessage(DataAccessException e, String violationMessage) {
+        return e instanceof DataIntegrityViolationException ? violationMessage : IMPORT_ROW_NOT_SAVED_ERROR_MSG;
+    }
+
+    static void validateUser(User user) {
+        if (user.getFirstName() == null || user.getFirstName().isBlank()
+                || user.getEmailId() == null || user.getEmailId().isBlank()) {
+            throw new IllegalArgumentException(INVALID_USER_ERROR_MSG);
+        }
+    }
+
+    private static <T> List<T> values(List<Row<T>> rows) {
+        List<T> values = new ArrayList<>(rows.size());
+        rows.forEach(row -> values.add(row.value));
+        return values;
+    }
+
+    private static Map<String, String> toMap(List<String> header, List<String> fields) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (int i = 0; i < header.size() && i < fields.size(); i++) {
+            if (!fields.get(i).isEmpty()) {
+                values.put(header.get(i), fields.get(i));
+            }
+        }
+        return values;
+    }
+
+    // Splits a CSV line on commas outside of double quotes; "" inside quotes is a literal quote
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"' && quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                field.append('"');
+                i++;
+            } else if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+
+    private static final class Row<T> {
+
+        private final long line;
+        private final T value;
+
+        Row(long line, T value) {
+            this.line = line;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package co.harbor.calendly.controller.helper;
+
+import co.harbor.calendly.entity.UserAvailability;
+import co.harbor.calendly.index.DaySlots;
+import co.harbor.calendly.metrics.AvailabilityMetrics;
+import co.harbor.calendly.model.OverlapWindow;
+import co.harbor.calendly.model.OverlappingAvailability;
+import co.harbor.calendly.model.RecurringUserAvailability;
+import co.harbor.calendly.repository.ReactiveAvailabilityRepository;
+import co.harbor.calendly.utils.TimeUtils;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Reactive counterpart of {@link AvailabilityHelper}. Reads run on {@link ReactiveAvailabilityRepository} and are
+ * emitted day by day, as the rows of each date arrive, so a large range is never held in memory and the client's
+ * demand throttles the query.
+ * <p>
+ * Writes are not non-blocking. They keep the JPA transactions, coalescing and index refresh of
+ * {@link AvailabilityHelper} and only move that blocking work to {@link Schedulers#boundedElastic()}, so the caller's
+ * thread is free but a worker thread and a JDBC connection are held until the transaction commits. Writing through
+ * R2DBC would need a second transaction manager next to JPA's and a second copy of the coalescing logic.
+ */
+@Component
+public class ReactiveAvailabilityHelper {
+
+    @Autowired
+    private ReactiveAvailabilityRepository reactiveAvailabilityRepository;
+
+    @Autowired
+    private RecurringAvailabilityHelper recurringAvailabilityHelper;
+
+    @Autowired
+    private AvailabilityHelper availabilityHelper;
+
+    @Autowired
+    private AvailabilityMetrics availabilityMetrics;
+
+    /**
+     * Streams the availability of a user over a date range, ordered by date and start time.
+     */
+    public Flux<UserAvailability> streamAvailabilityForAUser(Integer userId, Date from, Date to) {
+        return timed(days(Collections.singletonList(userId), from, to)
+                .concatMapIterable(day -> {
+                    day.sort(Comparator.comparing(UserAvailability::get_start));
+                    return day;
+                }), "reactive_stream_availability");
+    }
+
+    /**
+     * Streams the overlapping availability of two users over a date range, ordered by date and start time.
+     */
+    public Flux<OverlappingAvailability> streamOverlappingAvailability(Integer user1, Integer user2, Date from, Date to) {
+        if (user1.equals(user2)) {
+            return Flux.empty();
+        }
+        return timed(days(Arrays.asList(user1, user2), from, to)
+                .concatMapIterable(day -> {
+                    List<UserAvailability> firstUserDay = new ArrayList<>();
+                    List<UserAvailability> secondUserDay = new ArrayList<>();
+                    for (UserAvailability availability : day) {
+                        (user1.equals(availability.getUserid()) ? firstUserDay : secondUserDay).add(availability);
+                    }
+                    List<OverlappingAvailability> overlaps = new ArrayList<>();
+                    if (firstUserDay.isEmpty() || secondUserDay.isEmpty()) {
+                        return overlaps;
+                    }
+                    Date date = day.get(0).get_date();
+                    int epochDay = TimeUtils.toEpochDay(date);
+                    for (int[] window : DaySlots.of(user1, epochDay, firstUserDay).overlap(DaySlots.of(user2, epochDay, secondUserDay))) {
+                        overlaps.add(new OverlapWindow(date, user1, user2, TimeUtils.toTime(window[0]), TimeUtils.toTime(window[1])));
+                    }
+                    return overlaps;
+                }), "reactive_stream_overlap");
+    }
+
+    public Mono<List<UserAvailability>> addAvailability(List<UserAvailability> availabilityList) {
+        return blocking(() -> availabilityHelper.addAvailability(availabilityList));
+    }
+
+    public Mono<List<UserAvailability>> deleteAvailability(List<UserAvailability> availabilityDeletions) {
+        return blocking(() -> availabilityHelper.deleteAvailability(availabilityDeletions));
+    }
+
+    public Mono<Void> addRecurringAvailability(RecurringUserAvailability availability) {
+        return blocking(() -> {
+            availabilityHelper.addRecurringAvailability(availability);
+            return null;
+        }).then();
+    }
+
+    // Emits the stored slots merged with the recurring occurrences of the users for every date of the range that has any,
+    // one list per date, in date order
+    private Flux<List<UserAvailability>> days(List<Integer> userIds, Date from, Date to) {
+        return findOccurrences(userIds, from, to).flatMapMany(occurrences -> {
+            int lastDay = TimeUtils.toEpochDay(to);
+            int[] nextDay = {TimeUtils.toEpochDay(from)};
+
+            Flux<List<UserAvailability>> storedDays = reactiveAvailabilityRepository.findByUseridInAndDateBetween(userIds, from, to)
+                    .bufferUntilChanged(UserAvailability::get_date)
+                    .concatMapIterable(stored -> {
+                        int epochDay = TimeUtils.toEpochDay(stored.get(0).get_date());
+                        List<List<UserAvailability>> days = new ArrayList<>();
+                        // Dates before this one only have occurrences, if any
+                        while (nextDay[0] < epochDay) {
+                            addDay(days, userIds, nextDay[0]++, new ArrayList<>(), occurrences);
+                        }
+                        addDay(days, userIds, nextDay[0]++, stored, occurrences);
+                        return days;
+                    });
+            Flux<List<UserAvailability>> remainingDays = Flux.defer(() -> {
+                List<List<UserAvailability>> days = new ArrayList<>();
+                while (nextDay[0] <= lastDay) {
+                    addDay(days, userIds, nextDay[0]++, new ArrayList<>(), occurrences);
+                }
+                return Flux.fromIterable(days);
+            });
+            return storedDays.concatWith(remainingDays);
+        });
+    }
+
+    private static void addDay(List<List<UserAvailability>> days, List<Integer> userIds, int epochDay, List<UserAvailability> day,
+                               Map<Long, List<UserAvailability>> occurrences) {
+        RecurringAvailabilityHelper.addOccurrences(userIds, epochDay, day, occurrences);
+        if (!day.isEmpty()) {
+            days.add(day);
+        }
+    }
+
+    private Mono<Map<Long, List<UserAvailability>>> findOccurrences(List<Integer> userIds, Date from, Date to) {
+        return reactiveAvailabilityRepository.findActiveRules(userIds, from, to).collectList().flatMap(rules -> {
+            if (rules.isEmpty()) {
+                return Mono.just(Collections.<Long, List<UserAvailability>>emptyMap());
+            }
+            List<Integer> ruleIds = RecurringAvailabilityHelper.ruleIds(rules);
+            return reactiveAvailabilityRepository.findExceptions(ruleIds, from, to).collectList()
+                    .map(exceptions -> recurringAvailabilityHelper.expandOccurrences(rules, exceptions, from, to));
+        });
+    }
+
+    private <T> Flux<T> timed(Flux<T> flux, String operation) {
+        return Flux.defer(() -> {
+            Timer.Sample sample = availabilityMetrics.start();
+            return flux.doFinally(signal -> availabilityMetrics.stop(sample, operation));
+        });
+    }
+
+    private static <T> Mono<T> blocking(Callable<T> callable) {
+        return Mono.fromCallable(callable).subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -0,0 +1,238 @@
+package co.harbor.calendly.controller.helper;
+
+import co.harbor.calendly.entity.RecurringAvailability;
+import co.harbor.calendly.entity.RecurringAvailabilityException;
+import co.harbor.calendly.entity.UserAvailability;
+import co.harbor.calendly.index.AvailabilityIndex;
+import co.harbor.calendly.index.DaySlots;
+import co.harbor.calendly.metrics.AvailabilityMetrics;
+import co.harbor.calendly.model.Interval;
+import co.harbor.calendly.model.RecurringUserAvailability;
+import co.harbor.calendly.model.Slot;
+import co.harbor.calendly.repository.IRecurringAvailabilityExceptionRepository;
+import co.harbor.calendly.repository.IRecurringAvailabilityRepository;
+import co.harbor.calendly.utils.IntervalUtils;
+import co.harbor.calendly.utils.TimeUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This is a helper class for recurring availability. Recurring availability is stored as a rule, and its
+ * occurrences are expanded lazily, only for the dates being queried. Deleting availability from a single occurrence
+ * records an exception for that occurrence instead of materializing the rule.
+ */
+@Component
+public class RecurringAvailabilityHelper {
+
+    @Autowired
+    private IRecurringAvailabilityRepository recurringAvailabilityRepository;
+
+    @Autowired
+    private IRecurringAvailabilityExceptionRepository recurringAvailabilityExceptionRepository;
+
+    @Autowired
+    private AvailabilityMetrics availabilityMetrics;
+
+    /**
+     * Stores a recurring availability rule.
+     *
+     * @param availability the recurring availability
+     * @param enddate last date the rule can occur on, inclusive, or null when open ended
+     * @return the saved rule
+     */
+    public RecurringAvailability addRecurringAvailability(RecurringUserAvailability availability, Date enddate) {
+        return recurringAvailabilityRepository.save(toRule(availability, enddate));
+    }
+
+    /**
+     * Builds the rule a recurring availability is stored as, without saving it.
+     */
+    public static RecurringAvailability toRule(RecurringUserAvailability availability, Date enddate) {
+        RecurringAvailability rule = new RecurringAvailability();
+        rule.setUserid(availability.getUserid());
+        rule.setStartdate(availability.getStartdate());
+        rule.setEnddate(enddate);
+        rule.set_start(availability.get_start());
+        rule.set_end(availability.get_end());
+        rule.setFrequency(Interval.valueOf(availability.getInterval().toUpperCase()).name());
+        rule.setEvery(availability.getEvery() == null ? 1 : availability.getEvery());
+        return rule;
+    }
+
+    /**
+     * Expands the occurrences of a user's rules on a date, minus their exceptions.
+     */
+    public List<UserAvailability> findOccurrences(Integer userid, Date date) {
+        return findOccurrences(Collections.singletonList(userid), date, date)
+                .getOrDefault(AvailabilityIndex.key(userid, TimeUtils.toEpochDay(date)), Collections.emptyList());
+    }
+
+    /**
+     * Expands the occurrences of the given users' rules between two dates, inclusive, minus their exceptions.
+     *
+     * @return occurrences keyed by {@link AvailabilityIndex#key(int, int)} of their user and date
+     */
+    public Map<Long, List<UserAvailability>> findOccurrences(Collection<Integer> userIds, Date from, Date to) {
+        List<RecurringAvailability> rules = recurringAvailabilityRepository.findActiveRules(userIds, from, to);
+        if (rules.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return expandOccurrences(rules, recurringAvailabilityExceptionRepository.findExceptions(ruleIds(rules), from, to), from, to);
+    }
+
+    /**
+     * Expands the occurrences of every user's rules between two dates, inclusive, minus their exceptions.
+     *
+     * @return occurrences keyed by {@link AvailabilityIndex#key(int, int)} of their user and date
+     */
+    public Map<Long, List<UserAvailability>> findAllOccurrences(Date from, Date to) {
+        List<RecurringAvailability> rules = recurringAvailabilityRepository.findAllActiveRules(from, to);
+        if (rules.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return expandOccurrences(rules, recurringAvailabilityExceptionRepository.findExceptions(ruleIds(rules), from, to), from, to);
+    }
+
+    /**
+     * Expands the occurrences of already loaded rules between two dates, inclusive, minus their exceptions.
+     *
+     * @param rules rules active at some point of the range
+     * @param ruleExceptionList exceptions of those rules within the range
+     * @return occurrences keyed by {@link AvailabilityIndex#key(int, int)} of their user and date
+     */
+    public Map<Long, List<UserAvailability>> expandOccurrences(List<RecurringAvailability> rules, List<RecurringAvailabilityException> ruleExceptionList,
+                                                               Date from, Date to) {
+        Map<Long, List<RecurringAvailabilityException>> exceptions = groupExceptions(ruleExceptionList);
+
+        Map<Long, List<UserAvailability>> occurrences = new HashMap<>();
+        long[] fragments = new long[2];
+        int occurrenceCount = 0;
+        for (RecurringAvailability rule : rules) {
+            Interval interval = Interval.valueOf(rule.getFrequency());
+            LocalDate startDate = rule.getStartdate().toLocalDate();
+            LocalDate first = max(startDate, from.toLocalDate());
+            LocalDate last = rule.getEnddate() == null ? to.toLocalDate() : min(rule.getEnddate().toLocalDate(), to.toLocalDate());
+            int start = TimeUtils.toSecondOfDay(rule.get_start());
+            int end = TimeUtils.toSecondOfDay(rule.get_end());
+
+            for (LocalDate date = first; !date.isAfter(last); date = date.plusDays(1)) {
+                if (!interval.occursOn(startDate, date, rule.getEvery())) {
+                    continue;
+                }
+                int epochDay = (int) date.toEpochDay();
+                long occurrence = Slot.of(epochDay, start, end);
+                List<RecurringAvailabilityException> ruleExceptions = exceptions.get(AvailabilityIndex.key(rule.getId(), epochDay));
+                int count = 1;
+                fragments[0] = occurrence;
+                if (ruleExceptions != null) {
+                    int[] windows = IntervalUtils.union(toWindows(ruleExceptions));
+                    if (fragments.length < windows.length / 2 + 1) {
+                        fragments = new long[windows.length / 2 + 1];
+                    }
+                    count = IntervalUtils.subtractAll(occurrence, windows, fragments, 0);
+                }
+                List<UserAvailability> dayOccurrences = occurrences.computeIfAbsent(AvailabilityIndex.key(rule.getUserid(), epochDay), k -> new ArrayList<>());
+                for (int i = 0; i < count; i++) {
+                    dayOccurrences.add(Slot.toEntity(fragments[i], rule.getUserid()));
+                }
+                occurrenceCount += count;
+            }
+        }
+        availabilityMetrics.recurringOccurrences("expansion", occurrenceCount);
+        return occurrences;
+    }
+
+    /**
+     * Records the given windows as exceptions of every occurrence of the user's rules on a date they cut into.
+     *
+     * @param userid user_id of the user
+     * @param date date of the occurrences
+     * @param windows sorted, disjoint second-of-day windows being deleted
+     */
+    public void addExceptions(Integer userid, Date date, int[] windows) {
+        LocalDate localDate = date.toLocalDate();
+        List<RecurringAvailabilityException> exceptions = new ArrayList<>();
+        for (RecurringAvailability rule : recurringAvailabilityRepository.findActiveRules(Collections.singletonList(userid), date, date)) {
+            if (!Interval.valueOf(rule.getFrequency()).occursOn(rule.getStartdate().toLocalDate(), localDate, rule.getEvery())) {
+                continue;
+            }
+            int start = TimeUtils.toSecondOfDay(rule.get_start());
+            int end = TimeUtils.toSecondOfDay(rule.get_end());
+            for (int i = 0; i < windows.length; i += 2) {
+                int exceptionStart = Math.max(start, windows[i]);
+                int exceptionEnd = Math.min(end, windows[i + 1]);
+                if (exceptionStart < exceptionEnd) {
+                    RecurringAvailabilityException exception = new RecurringAvailabilityException();
+                    exception.setRuleid(rule.getId());
+                    exception.set_date(date);
+                    exception.set_start(TimeUtils.toTime(exceptionStart));
+                    exception.set_end(TimeUtils.toTime(exceptionEnd));
+                    exceptions.add(exception);
+                }
+            }
+        }
+        recurringAvailabilityExceptionRepository.saveAll(exceptions);
+    }
+
+    /**
+     * Adds the occurrences of the users' rules on a date to the day's stored slots, coalescing every user's slots that
+     * overlap an occurrence with {@link DaySlots#coalesce}.
+     *
+     * @param day stored slots of the users on the date, updated in place
+     * @param occurrences occurrences keyed by {@link AvailabilityIndex#key}, see {@link #expandOccurrences}
+     */
+    public static void addOccurrences(List<Integer> userIds, int epochDay, List<UserAvailability> day,
+                                      Map<Long, List<UserAvailability>> occurrences) {
+        for (Integer userId : userIds) {
+            List<UserAvailability> userOccurrences = occurrences.get(AvailabilityIndex.key(userId, epochDay));
+            if (userOccurrences == null || userOccurrences.isEmpty()) {
+                continue;
+            }
+            List<UserAvailability> userDay = new ArrayList<>(userOccurrences);
+            day.removeIf(availability -> userId.equals(availability.getUserid()) && userDay.add(availability));
+            day.addAll(DaySlots.coalesce(userId, epochDay, userDay));
+        }
+    }
+
+    public static List<Integer> ruleIds(List<RecurringAvailability> rules) {
+        List<Integer> ruleIds = new ArrayList<>(rules.size());
+        rules.forEach(rule -> ruleIds.add(rule.getId()));
+        return ruleIds;
+    }
+
+    // Exceptions keyed by AvailabilityIndex.key of their rule id and date
+    private static Map<Long, List<RecurringAvailabilityException>> groupExceptions(List<RecurringAvailabilityException> ruleExceptions) {
+        Map<Long, List<RecurringAvailabilityException>> exceptions = new HashMap<>();
+        for (RecurringAvailabilityException exception : ruleExceptions) {
+            long key = AvailabilityIndex.key(exception.getRuleid(), TimeUtils.toEpochDay(exception.get_date()));
+            exceptions.computeIfAbsent(key, k -> new ArrayList<>()).add(exception);
+        }
+        return exceptions;
+    }
+
+    private static int[] toWindows(List<RecurringAvailabilityException> exceptions) {
+        int[] windows = new int[exceptions.size() * 2];
+        for (int i = 0; i < exceptions.size(); i++) {
+            windows[2 * i] = TimeUtils.toSecondOfDay(exceptions.get(i).get_start());
+            windows[2 * i + 1] = TimeUtils.toSecondOfDay(exceptions.get(i).get_end());
+        }
+        return windows;
+    }
+
+    private static LocalDate max(LocalDate first, LocalDate second) {
+        return first.isAfter(second) ? first : second;
+    }
+
+    private static LocalDate min(LocalDate first, LocalDate second) {
+        return first.isBefore(second) ? first : second;
+    }
+}
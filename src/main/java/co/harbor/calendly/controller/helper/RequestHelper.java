@@ -0,0 +1,34 @@
+package co.harbor.calendly.controller.helper;
+
+import co.harbor.calendly.utils.TimeUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Date;
+import java.time.temporal.ChronoUnit;
+
+import static co.harbor.calendly.constants.Constants.*;
+
+/**
+ * Parses and validates request parameters shared by the controllers, failing with 400 Bad Request.
+ */
+@Slf4j
+public class RequestHelper {
+
+    public static Date parseDate(String date) {
+        try {
+            return Date.valueOf(TimeUtils.parseDate(date));
+        } catch (IllegalArgumentException e) {
+            log.error("Exception parsing the given date {}", date, e);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_DATE_ERROR_MSG);
+        }
+    }
+
+    public static void validateRange(Date from, Date to) {
+        long days = ChronoUnit.DAYS.between(from.toLocalDate(), to.toLocalDate());
+        if (days < 0 || days >= MAX_DATE_RANGE_DAYS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_DATE_RANGE_ERROR_MSG);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package co.harbor.calendly.controller.helper;
+
+import co.harbor.calendly.index.AvailabilityIndex;
+import co.harbor.calendly.model.SnapshotInfo;
+import co.harbor.calendly.repository.SnapshotRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static co.harbor.calendly.config.CacheConfig.USERS_BY_EMAIL;
+import static co.harbor.calendly.config.CacheConfig.USERS_BY_ID;
+import static co.harbor.calendly.constants.Constants.*;
+
+/**
+ * Snapshots of the whole database in {@code calendly.snapshot.dir}, see {@link SnapshotRepository} for the format.
+ * A snapshot is written to a temporary file that is renamed once complete, so a listed snapshot is always whole.
+ * Restoring one replaces every table and then drops the availability index and the user caches, it is meant for
+ * seeding or recovering an instance, not for one that is taking writes.
+ */
+@Slf4j
+@Component
+public class SnapshotHelper {
+
+    private static final String EXTENSION = ".calsnap";
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9_-]+" + Pattern.quote(EXTENSION));
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmssSSS'Z'");
+
+    @Autowired
+    private SnapshotRepository snapshotRepository;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Value("${calendly.snapshot.dir:./snapshots}")
+    private String snapshotDir;
+
+    private Path directory;
+
+    @PostConstruct
+    void init() {
+        directory = Paths.get(snapshotDir);
+    }
+
+    public SnapshotInfo export() throws IOException {
+        long started = System.nanoTime();
+        Files.createDirectories(directory);
+        String name = "calendly-" + TIMESTAMP.format(ZonedDateTime.now(ZoneOffset.UTC)) + EXTENSION;
+        Path temporary = directory.resolve(name + ".tmp");
+        Path file = directory.resolve(name);
+        Map<String, Long> rows;
+        try {
+            rows = snapshotRepository.export(temporary);
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        SnapshotInfo info = new SnapshotInfo(name, Files.size(file), rows, elapsedMillis(started));
+        log.info("Exported snapshot {}: {} bytes, rows {} in {} ms", name, info.getBytes(), rows, info.getMillis());
+        return info;
+    }
+
+    /**
+     * @throws IllegalArgumentException when there is no such snapshot or it is not valid
+     */
+    public SnapshotInfo restore(String name) throws IOException {
+        if (!NAME.matcher(name).matches() || !Files.isRegularFile(directory.resolve(name))) {
+            throw new IllegalArgumentException(INVALID_SNAPSHOT_NAME_ERROR_MSG);
+        }
+        long started = System.nanoTime();
+        Path file = directory.resolve(name);
+        Map<String, Long> rows;
+        try {
+            rows = snapshotRepository.restore(file);
+        } catch (IllegalArgumentException e) {
+            log.error("Exception restoring snapshot {}", name, e);
+            throw new IllegalArgumentException(INVALID_SNAPSHOT_ERROR_MSG, e);
+        }
+        snapshotRepository.restartIds();
+        availabilityIndex.clear();
+        Stream.of(USERS_BY_ID, USERS_BY_EMAIL).map(cacheManager::getCache).filter(cache -> cache != null).forEach(Cache::clear);
+        SnapshotInfo info = new SnapshotInfo(name, Files.size(file), rows, elapsedMillis(started));
+        log.info("Restored snapshot {}: rows {} in {} ms", name, rows, info.getMillis());
+        return info;
+    }
+
+    /**
+     * @return the names of the snapshots, oldest first
+     */
+    public List<String> list() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> NAME.matcher(name).matches())
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static long elapsedMillis(long started) {
+        return (System.nanoTime() - started) / 1_000_000;
+    }
+}
@@ -0,0 +1,279 @@
+package co.harbor.calendly.controller.helper;
+
+import co.harbor.calendly.entity.UserAvailability;
+import co.harbor.calendly.index.PendingWrites;
+import co.harbor.calendly.metrics.AvailabilityMetrics;
+import co.harbor.calendly.model.RecurringUserAvailability;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static co.harbor.calendly.constants.Constants.WRITE_BEHIND_QUEUE_FULL_ERROR_MSG;
+
+/**
+ * Opt-in write-behind mode for availability and recurring availability writes, enabled with
+ * {@code calendly.write-behind.enabled=true}. Writes are validated, queued and acknowledged right away, and are
+ * committed by a flusher thread per shard of users in group commits: a group is committed once it holds
+ * {@code calendly.write-behind.batch-size} slots or {@code calendly.write-behind.flush-interval} after its first write,
+ * whichever comes first. The slots of a group are coalesced with a single {@link AvailabilityHelper#addAvailability(List)}
+ * and all of its writes share one transaction. When a group fails, its writes are retried one by one so that only the
+ * failing ones fail.
+ * <p>
+ * A user's writes always go to the same shard and are committed in the order they were accepted. Each shard holds at
+ * most {@code calendly.write-behind.capacity} queued slots, a write that doesn't fit is rejected rather than queued.
+ * Until they are committed, writes are visible to reads of {@link AvailabilityHelper} through {@link PendingWrites}.
+ */
+@Slf4j
+@Component
+public class WriteBehindHelper {
+
+    @Autowired
+    private AvailabilityHelper availabilityHelper;
+
+    @Autowired
+    private PendingWrites pendingWrites;
+
+    @Autowired
+    private AvailabilityMetrics availabilityMetrics;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${calendly.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${calendly.write-behind.shards:4}")
+    private int shardCount;
+
+    @Value("${calendly.write-behind.capacity:10000}")
+    private int capacity;
+
+    @Value("${calendly.write-behind.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${calendly.write-behind.flush-interval:20ms}")
+    private Duration flushInterval;
+
+    private TransactionTemplate transactionTemplate;
+    private Shard[] shards;
+    private volatile boolean running;
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        shards = new Shard[shardCount];
+        running = true;
+        for (int i = 0; i < shardCount; i++) {
+            Shard shard = new Shard(capacity);
+            shards[i] = shard;
+            shard.flusher = new Thread(() -> flushLoop(shard), "write-behind-" + i);
+            shard.flusher.setDaemon(true);
+            shard.flusher.start();
+        }
+        log.info("Write-behind enabled with {} shards of {} slots", shardCount, capacity);
+    }
+
+    // Commits what is still queued before the database goes away
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        for (Shard shard : shards) {
+            shard.flusher.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues availability to be added as {@link AvailabilityHelper#addAvailability(List)} does.
+     *
+     * @return completed once every slot is committed, or exceptionally with the reason the write failed
+     * @throws IllegalArgumentException when an availability is invalid
+     * @throws IllegalStateException when a shard has no room left for the write
+     */
+    public CompletableFuture<Void> addAvailability(List<UserAvailability> availabilityList) {
+        availabilityList.forEach(AvailabilityHelper::validateAvailability);
+        Map<Integer, List<UserAvailability>> byUser = new LinkedHashMap<>();
+        for (UserAvailability availability : availabilityList) {
+            byUser.computeIfAbsent(availability.getUserid(), userid -> new ArrayList<>()).add(availability);
+        }
+        List<PendingWrites.Write> writes = new ArrayList<>();
+        byUser.forEach((userid, availabilities) -> writes.add(PendingWrites.Write.of(userid, availabilities)));
+        return enqueue(writes);
+    }
+
+    /**
+     * Queues recurring availability to be added as {@link AvailabilityHelper#addRecurringAvailability} does.
+     *
+     * @return completed once the rule is committed, or exceptionally with the reason the write failed
+     * @throws IllegalArgumentException when the recurring availability is invalid
+     * @throws IllegalStateException when the user's shard has no room left for the write
+     */
+    public CompletableFuture<Void> addRecurringAvailability(RecurringUserAvailability availability) {
+        AvailabilityHelper.validateRecurringAvailability(availability);
+        PendingWrites.Write write = PendingWrites.Write.of(availability,
+                RecurringAvailabilityHelper.toRule(availability, availabilityHelper.recurringEnddate(availability)));
+        return enqueue(List.of(write));
+    }
+
+    /**
+     * Waits until the given users' queued writes are committed or failed, e.g. before a write that isn't queued.
+     */
+    public void awaitPending(Collection<Integer> userids) {
+        if (!enabled) {
+            return;
+        }
+        for (Integer userid : userids) {
+            if (userid == null) {
+                continue;
+            }
+            for (CompletableFuture<Void> future : pendingWrites.futures(userid)) {
+                future.handle((result, e) -> null).join();
+            }
+        }
+    }
+
+    // Reserves room for all writes in their shards first, so that a write is either queued whole or rejected
+    private CompletableFuture<Void> enqueue(List<PendingWrites.Write> writes) {
+        Map<Integer, Integer> slotsByShard = new TreeMap<>();
+        for (PendingWrites.Write write : writes) {
+            slotsByShard.merge(shardOf(write.getUserid()), write.size(), Integer::sum);
+        }
+        List<Map.Entry<Integer, Integer>> reserved = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> entry : slotsByShard.entrySet()) {
+            if (!shards[entry.getKey()].room.tryAcquire(entry.getValue())) {
+                reserved.forEach(acquired -> shards[acquired.getKey()].room.release(acquired.getValue()));
+                throw new IllegalStateException(WRITE_BEHIND_QUEUE_FULL_ERROR_MSG);
+            }
+            reserved.add(entry);
+        }
+
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[writes.size()];
+        for (int i = 0; i < writes.size(); i++) {
+            PendingWrites.Write write = writes.get(i);
+            pendingWrites.add(write);
+            shards[shardOf(write.getUserid())].queue.add(write);
+            futures[i] = write.getFuture();
+        }
+        return CompletableFuture.allOf(futures);
+    }
+
+    private int shardOf(int userid) {
+        return Math.floorMod(userid, shardCount);
+    }
+
+    private void flushLoop(Shard shard) {
+        while (running || !shard.queue.isEmpty()) {
+            try {
+                PendingWrites.Write first = shard.queue.poll(flushInterval.toNanos(), TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<PendingWrites.Write> group = new ArrayList<>();
+                group.add(first);
+                int slots = first.size();
+                long deadline = System.nanoTime() + flushInterval.toNanos();
+                while (slots < batchSize) {
+                    PendingWrites.Write next = shard.queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                    slots += next.size();
+                }
+                flush(shard, group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Write-behind flush failed", e);
+            }
+        }
+    }
+
+    private void flush(Shard shard, List<PendingWrites.Write> group) {
+        Timer.Sample sample = availabilityMetrics.start();
+        try {
+            transactionTemplate.executeWithoutResult(status -> apply(group));
+            group.forEach(write -> complete(shard, write, null));
+        } catch (RuntimeException e) {
+            if (group.size() == 1) {
+                complete(shard, group.get(0), e);
+                return;
+            }
+            log.warn("Group commit of {} writes failed, retrying them one by one", group.size(), e);
+            for (PendingWrites.Write write : group) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> apply(List.of(write)));
+                    complete(shard, write, null);
+                } catch (RuntimeException writeException) {
+                    complete(shard, write, writeException);
+                }
+            }
+        } finally {
+            availabilityMetrics.stopBatch(sample, "group_commit");
+        }
+    }
+
+    private void apply(List<PendingWrites.Write> group) {
+        List<UserAvailability> availabilities = new ArrayList<>();
+        for (PendingWrites.Write write : group) {
+            availabilities.addAll(write.getAvailabilities());
+            if (write.getRecurringAvailability() != null) {
+                availabilityHelper.addRecurringAvailability(write.getRecurringAvailability());
+            }
+        }
+        if (!availabilities.isEmpty()) {
+            availabilityHelper.addAvailability(availabilities);
+        }
+    }
+
+    // The index was refreshed when the transaction committed, so the write can leave the overlay
+    private void complete(Shard shard, PendingWrites.Write write, RuntimeException e) {
+        pendingWrites.remove(write);
+        shard.room.release(write.size());
+        if (e == null) {
+            write.getFuture().complete(null);
+        } else {
+            write.getFuture().completeExceptionally(e);
+        }
+    }
+
+    private static final class Shard {
+
+        private final BlockingQueue<PendingWrites.Write> queue = new LinkedBlockingQueue<>();
+        private final Semaphore room;
+        private Thread flusher;
+
+        Shard(int capacity) {
+            this.room = new Semaphore(capacity);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package co.harbor.calendly.entity;
+
+import lombok.Data;
+
+import javax.persistence.*;
+import java.sql.Date;
+import java.sql.Time;
+
+/**
+ * Represents a booked window of a user in the database. A booking of a group has a row per user, sharing a reference.
+ */
+@Data
+@Entity(name = "booking")
+@Table(indexes = {@Index(name = "idx_booking_userid_date_start", columnList = "userid, _date, _start"),
+        @Index(name = "idx_booking_reference", columnList = "reference")})
+public class Booking {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(name = "reference")
+    private String reference;
+
+    @Column(name = "_date")
+    private Date _date;
+
+    @Column(name = "_start")
+    private Time _start;
+
+    @Column(name = "_end")
+    private Time _end;
+
+    @Column(name = "userid")
+    private Integer userid;
+}
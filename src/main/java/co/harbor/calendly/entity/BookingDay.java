@@ -0,0 +1,26 @@
+package co.harbor.calendly.entity;
+
+import lombok.Data;
+
+import javax.persistence.*;
+import java.sql.Date;
+
+/**
+ * Represents a day of a user that has been booked. The row carries no data, bookings of the day lock it to serialize
+ * their overlap check and insert in the database, see {@link Booking}.
+ */
+@Data
+@Entity(name = "booking_day")
+@Table(uniqueConstraints = {@UniqueConstraint(name = "uk_booking_day_userid_date", columnNames = {"userid", "_date"})})
+public class BookingDay {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(name = "userid")
+    private Integer userid;
+
+    @Column(name = "_date")
+    private Date _date;
+}
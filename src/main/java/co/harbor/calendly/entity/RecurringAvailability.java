@@ -0,0 +1,44 @@
+package co.harbor.calendly.entity;
+
+
+import lombok.Data;
+
+import javax.persistence.*;
+import java.sql.Date;
+import java.sql.Time;
+
+/**
+ * Represents a recurring availability rule in the database. Occurrences are not stored,
+ * they are expanded only for the dates being queried.
+ */
+@Data
+@Entity(name = "recurring_availability")
+@Table(indexes = {@Index(name = "idx_recurring_availability_userid", columnList = "userid")})
+public class RecurringAvailability {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(name = "userid")
+    private Integer userid;
+
+    @Column(name = "startdate")
+    private Date startdate;
+
+    // Last date the rule can occur on, inclusive. Open ended when null.
+    @Column(name = "enddate")
+    private Date enddate;
+
+    @Column(name = "_start")
+    private Time _start;
+
+    @Column(name = "_end")
+    private Time _end;
+
+    @Column(name = "frequency")
+    private String frequency;
+
+    @Column(name = "every_n")
+    private Integer every;
+}
@@ -0,0 +1,33 @@
+package co.harbor.calendly.entity;
+
+
+import lombok.Data;
+
+import javax.persistence.*;
+import java.sql.Date;
+import java.sql.Time;
+
+/**
+ * Represents a window deleted from a single occurrence of a {@link RecurringAvailability} rule.
+ */
+@Data
+@Entity(name = "recurring_availability_exception")
+@Table(indexes = {@Index(name = "idx_recurring_availability_exception_rule_date", columnList = "ruleid, _date")})
+public class RecurringAvailabilityException {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(name = "ruleid")
+    private Integer ruleid;
+
+    @Column(name = "_date")
+    private Date _date;
+
+    @Column(name = "_start")
+    private Time _start;
+
+    @Column(name = "_end")
+    private Time _end;
+}
@@ -22,4 +22,16 @@ public class User {
 
     @Column(name = "email", unique = true)
     private String emailId;
+
+    /**
+     * Returns a new, unmanaged user with the same fields.
+     */
+    public User copy() {
+        User user = new User();
+        user.setId(id);
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+        user.setEmailId(emailId);
+        return user;
+    }
 }
@@ -12,7 +12,8 @@ import java.sql.Time;
  */
 @Data
 @Entity(name = "user_availability")
-@Table(uniqueConstraints = {@UniqueConstraint(columnNames = { "_date", "_start", "_end", "userid" })})
+@Table(uniqueConstraints = {@UniqueConstraint(columnNames = { "_date", "_start", "_end", "userid" })},
+        indexes = {@Index(name = "idx_user_availability_userid_date_start", columnList = "userid, _date, _start")})
 public class UserAvailability {
 
     @Id
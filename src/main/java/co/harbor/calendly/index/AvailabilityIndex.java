@@ -0,0 +1,217 @@
+package co.harbor.calendly.index;
+
+import co.harbor.calendly.controller.helper.RecurringAvailabilityHelper;
+import co.harbor.calendly.entity.UserAvailability;
+import co.harbor.calendly.metrics.AvailabilityMetrics;
+import co.harbor.calendly.repository.IAvailabilityRepository;
+import co.harbor.calendly.utils.TimeUtils;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.sql.Date;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory index of user availability, keyed by user and date, that sits in front of {@link IAvailabilityRepository}.
+ * A user's day is loaded from the database the first time it is read and is then served from memory. A day holds
+ * the stored slots plus the occurrences of the user's recurring availability rules on that date.
+ * Every write path refreshes the days it touched once its transaction commits, so reads never see uncommitted data
+ * and don't go to the database again for days that are already indexed. Days that aren't indexed are left alone, so
+ * writes neither query them nor pull them into the index.
+ * <p>
+ * Days are held in a Caffeine cache bounded by {@code calendly.index.maximum-size} and expired
+ * {@code calendly.index.expire-after-write} after they were loaded or refreshed. Its hit, miss and eviction counts are
+ * exported as the {@code cache.*} metrics of the {@code availabilityIndex} cache.
+ */
+@Component
+public class AvailabilityIndex {
+
+    @Autowired
+    private IAvailabilityRepository availabilityRepository;
+
+    @Autowired
+    private RecurringAvailabilityHelper recurringAvailabilityHelper;
+
+    @Autowired
+    private AvailabilityMetrics availabilityMetrics;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${calendly.index.maximum-size:100000}")
+    private long maximumSize;
+
+    @Value("${calendly.index.expire-after-write:30m}")
+    private Duration expireAfterWrite;
+
+    // View of the Caffeine cache, its atomic compute and putIfAbsent keep the refresh logic below race free
+    private ConcurrentMap<Long, DaySlots> days;
+
+    // Bumped by every refresh, lets a load that raced with one detect that it may be stale
+    private final AtomicLong generation = new AtomicLong();
+
+    private final List<IndexRefreshListener> listeners = new CopyOnWriteArrayList<>();
+
+    @PostConstruct
+    void init() {
+        Cache<Long, DaySlots> cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "availabilityIndex");
+        days = cache.asMap();
+    }
+
+    /**
+     * Returns the indexed slots of a user on a date, loading them from the database on a miss.
+     */
+    public DaySlots get(Integer userid, Date date) {
+        long key = key(userid, TimeUtils.toEpochDay(date));
+        DaySlots slots = days.get(key);
+        availabilityMetrics.indexLookup(slots != null);
+        if (slots == null) {
+            // Loaded outside of the map so a slow query never blocks other keys; a concurrent refresh always wins
+            long loadedGeneration = generation.get();
+            DaySlots loaded = load(key);
+            slots = days.putIfAbsent(key, loaded);
+            if (slots == null) {
+                slots = loaded;
+            }
+            if (generation.get() != loadedGeneration) {
+                reload(key);
+                DaySlots reloaded = days.get(key);
+                slots = reloaded != null ? reloaded : load(key);
+            }
+        }
+        return slots;
+    }
+
+    /**
+     * Indexes a day loaded in bulk, e.g. at startup, unless the day is indexed already.
+     */
+    public void preload(DaySlots slots) {
+        days.putIfAbsent(key(slots.getUserid(), slots.getEpochDay()), slots);
+    }
+
+    /**
+     * Drops every indexed day, e.g. after a snapshot replaced the tables. Days are loaded again when next read.
+     */
+    public void clear() {
+        generation.incrementAndGet();
+        days.clear();
+        listeners.forEach(IndexRefreshListener::indexCleared);
+    }
+
+    /**
+     * Registers a listener called after each refresh, on the thread that committed the write.
+     */
+    public void addRefreshListener(IndexRefreshListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Reloads the given user's day, when indexed, once the current transaction commits, or right away when there is none.
+     */
+    public void refreshAfterCommit(Integer userid, Date date) {
+        Set<Long> keys = new LinkedHashSet<>();
+        keys.add(key(userid, TimeUtils.toEpochDay(date)));
+        afterCommit(() -> keys.forEach(this::refresh));
+    }
+
+    /**
+     * Reloads every indexed user day touched by the given availabilities once the current transaction commits.
+     */
+    public void refreshAfterCommit(Collection<? extends UserAvailability> availabilities) {
+        Set<Long> keys = new LinkedHashSet<>();
+        for (UserAvailability availability : availabilities) {
+            keys.add(key(availability.getUserid(), TimeUtils.toEpochDay(availability.get_date())));
+        }
+        afterCommit(() -> keys.forEach(this::refresh));
+    }
+
+    /**
+     * Reloads every indexed day of a user once the current transaction commits, e.g. after a recurring rule changed.
+     */
+    public void refreshUserAfterCommit(Integer userid) {
+        afterCommit(() -> {
+            generation.incrementAndGet();
+            List<Long> keys = new ArrayList<>();
+            for (Long key : days.keySet()) {
+                if ((int) (key >>> 32) == userid) {
+                    keys.add(key);
+                }
+            }
+            keys.forEach(this::refresh);
+            listeners.forEach(listener -> listener.userRefreshed(userid));
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // Only indexed days are reloaded, a day that isn't is loaded from the database when next read. The reload runs
+    // outside of the map and is installed only over the day it started from, so an older, slower reload can't overwrite
+    // a newer one; it is retried until no other refresh replaced the day in between.
+    private void refresh(long key) {
+        // Makes a read that is loading the day concurrently reload it, see get()
+        generation.incrementAndGet();
+        reload(key);
+    }
+
+    private void reload(long key) {
+        DaySlots previous = days.get(key);
+        while (previous != null) {
+            DaySlots refreshed = load(key);
+            if (days.replace(key, previous, refreshed)) {
+                listeners.forEach(listener -> listener.dayRefreshed(refreshed));
+                return;
+            }
+            previous = days.get(key);
+        }
+        listeners.forEach(listener -> listener.dayChanged((int) (key >>> 32), (int) key));
+    }
+
+    private DaySlots load(long key) {
+        int userid = (int) (key >>> 32);
+        int epochDay = (int) key;
+        Date date = TimeUtils.toDate(epochDay);
+        List<UserAvailability> availabilities = new ArrayList<>(availabilityRepository.findBy_dateAndUserid(date, userid));
+        availabilityMetrics.rowsRead("index", availabilities.size());
+        availabilities.addAll(recurringAvailabilityHelper.findOccurrences(userid, date));
+        return DaySlots.of(userid, epochDay, DaySlots.coalesce(userid, epochDay, availabilities));
+    }
+
+    /**
+     * Packs a user (or any other int id) and an epoch day into a single map key.
+     */
+    public static long key(int userid, int epochDay) {
+        return ((long) userid << 32) | (epochDay & 0xFFFFFFFFL);
+    }
+}
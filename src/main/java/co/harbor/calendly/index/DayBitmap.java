@@ -0,0 +1,162 @@
+package co.harbor.calendly.index;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Free/busy bitmap of one user's day. The day is cut into fixed size time slots, one minute by default, and bit
+ * {@code i} is set when the user is free for the whole of slot {@code i}, so a day at minute resolution is 1440 bits
+ * or 23 longs. Intersecting users is a word-wide AND, whose cost depends on the slot size only and not on how many
+ * availability slots the users have.
+ * <p>
+ * Free windows are rounded inwards to whole time slots, so with one minute slots a window of 10:00:30 to 11:00:00
+ * is free from 10:01:00.
+ */
+public final class DayBitmap {
+
+    public static final int SECONDS_PER_DAY = 86400;
+
+    private final int slotSeconds;
+    private final long[] words;
+
+    private DayBitmap(int slotSeconds, long[] words) {
+        this.slotSeconds = slotSeconds;
+        this.words = words;
+    }
+
+    /**
+     * Builds the bitmap of a day's free windows.
+     *
+     * @param windows sorted, disjoint second-of-day windows as a flat {@code [start0, end0, start1, end1, ...]} array
+     * @param slotSeconds size of a time slot in seconds, a divisor of a day
+     */
+    public static DayBitmap of(int[] windows, int slotSeconds) {
+        long[] words = new long[wordCount(slotSeconds)];
+        for (int i = 0; i < windows.length; i += 2) {
+            // Only time slots the window fully covers are free
+            int from = (windows[i] + slotSeconds - 1) / slotSeconds;
+            int to = windows[i + 1] / slotSeconds;
+            set(words, from, to);
+        }
+        return new DayBitmap(slotSeconds, words);
+    }
+
+    public int getSlotSeconds() {
+        return slotSeconds;
+    }
+
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Converts the bitmap back into free windows.
+     *
+     * @return sorted, disjoint second-of-day windows as a flat {@code [start0, end0, start1, end1, ...]} array
+     */
+    public int[] toWindows() {
+        return toWindows(words, slotSeconds);
+    }
+
+    /**
+     * Intersects the bitmaps of several users' days, all with the same slot size, and returns the windows during
+     * which every one of them is free. Stops as soon as the intersection is empty.
+     *
+     * @return sorted, disjoint second-of-day windows as a flat {@code [start0, end0, start1, end1, ...]} array
+     */
+    public static int[] intersect(List<DayBitmap> bitmaps) {
+        if (bitmaps.isEmpty()) {
+            return new int[0];
+        }
+        int slotSeconds = bitmaps.get(0).slotSeconds;
+        long[] common = bitmaps.get(0).words.clone();
+        for (int b = 1; b < bitmaps.size(); b++) {
+            DayBitmap bitmap = bitmaps.get(b);
+            if (bitmap.slotSeconds != slotSeconds) {
+                throw new IllegalArgumentException("Bitmaps have different slot sizes");
+            }
+            long any = 0;
+            for (int w = 0; w < common.length; w++) {
+                common[w] &= bitmap.words[w];
+                any |= common[w];
+            }
+            if (any == 0) {
+                return new int[0];
+            }
+        }
+        return toWindows(common, slotSeconds);
+    }
+
+    private static int wordCount(int slotSeconds) {
+        if (slotSeconds <= 0 || SECONDS_PER_DAY % slotSeconds != 0) {
+            throw new IllegalArgumentException("Slot size must divide a day, got " + slotSeconds + " seconds");
+        }
+        return (SECONDS_PER_DAY / slotSeconds + 63) >>> 6;
+    }
+
+    // Sets bits [from, to)
+    private static void set(long[] words, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (first == last) {
+            words[first] |= firstMask & lastMask;
+            return;
+        }
+        words[first] |= firstMask;
+        for (int w = first + 1; w < last; w++) {
+            words[w] = -1L;
+        }
+        words[last] |= lastMask;
+    }
+
+    private static int[] toWindows(long[] words, int slotSeconds) {
+        int[] windows = new int[8];
+        int size = 0;
+        int bits = words.length << 6;
+        int bit = nextSetBit(words, 0);
+        while (bit >= 0) {
+            int end = nextClearBit(words, bit);
+            if (size == windows.length) {
+                windows = Arrays.copyOf(windows, size * 2);
+            }
+            windows[size++] = bit * slotSeconds;
+            windows[size++] = end * slotSeconds;
+            bit = end < bits ? nextSetBit(words, end) : -1;
+        }
+        return Arrays.copyOf(windows, size);
+    }
+
+    private static int nextSetBit(long[] words, int from) {
+        int w = from >>> 6;
+        long word = words[w] & (-1L << from);
+        while (word == 0) {
+            if (++w == words.length) {
+                return -1;
+            }
+            word = words[w];
+        }
+        return (w << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    private static int nextClearBit(long[] words, int from) {
+        int w = from >>> 6;
+        long word = ~words[w] & (-1L << from);
+        while (word == 0) {
+            if (++w == words.length) {
+                return words.length << 6;
+            }
+            word = ~words[w];
+        }
+        return (w << 6) + Long.numberOfTrailingZeros(word);
+    }
+}
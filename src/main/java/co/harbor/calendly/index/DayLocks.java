@@ -0,0 +1,112 @@
+package co.harbor.calendly.index;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+
+/**
+ * Striped locks for user days, keyed by {@link AvailabilityIndex#key(int, int)}, that serialize the read-modify-write
+ * of availability for the same user and date without raising the isolation of the whole table. Each day maps to one of
+ * {@code calendly.locks.stripes} locks, so writes to different days, e.g. of different users, almost never wait for each
+ * other, while writes to the same day run one at a time.
+ * <p>
+ * Stripes are always locked in ascending order, so writers of several days can't deadlock each other. A lock that is
+ * not available within {@code calendly.locks.timeout-millis} fails the write instead of waiting forever.
+ */
+@Component
+public class DayLocks {
+
+    private final ReentrantLock[] locks;
+    private final long timeoutMillis;
+
+    public DayLocks(@Value("${calendly.locks.stripes:1024}") int stripes,
+                    @Value("${calendly.locks.timeout-millis:10000}") long timeoutMillis) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Locks the given days until the current transaction completes, so that no other writer reads them before this
+     * transaction's writes are committed or rolled back.
+     *
+     * @throws IllegalStateException when there is no transaction
+     * @throws CannotAcquireLockException when a lock is not available in time
+     */
+    public void lockUntilCompletion(Collection<Long> days) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Day locks are held until the transaction completes, lock within a transaction");
+        }
+        Held held = lock(days);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                held.close();
+            }
+        });
+    }
+
+    /**
+     * Locks the given days until the returned {@link Held} is closed, on the same thread.
+     *
+     * @throws CannotAcquireLockException when a lock is not available in time
+     */
+    public Held lock(Collection<Long> days) {
+        int[] stripes = days.stream().mapToInt(this::stripe).sorted().distinct().toArray();
+        for (int i = 0; i < stripes.length; i++) {
+            boolean locked;
+            try {
+                locked = locks[stripes[i]].tryLock(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                locked = false;
+            }
+            if (!locked) {
+                unlock(stripes, i);
+                throw new CannotAcquireLockException("Timed out waiting for a concurrent write to the same day");
+            }
+        }
+        return new Held(stripes);
+    }
+
+    private int stripe(long day) {
+        // Spreads users and consecutive days of a user over the stripes
+        long mixed = day * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32)) & (locks.length - 1);
+    }
+
+    private void unlock(int[] stripes, int count) {
+        IntStream.range(0, count).map(i -> stripes[count - 1 - i]).forEach(stripe -> locks[stripe].unlock());
+    }
+
+    /**
+     * Locks held by a writer, released once on {@link #close()}.
+     */
+    public final class Held implements AutoCloseable {
+
+        private final int[] stripes;
+        private boolean released;
+
+        private Held(int[] stripes) {
+            this.stripes = stripes;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                unlock(stripes, stripes.length);
+            }
+        }
+    }
+}
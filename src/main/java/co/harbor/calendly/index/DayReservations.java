@@ -0,0 +1,112 @@
+package co.harbor.calendly.index;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * Windows of user days claimed by bookings in flight, keyed by {@link AvailabilityIndex#key(int, int)}. A day's claimed
+ * windows are an immutable sorted array that is only ever swapped with compare-and-set, so of concurrent claims of
+ * overlapping windows exactly one wins and the others fail right away, without waiting for a lock or reaching the
+ * database. Windows are released once their booking committed or failed and a day's entry goes with its last window.
+ */
+@Component
+public class DayReservations {
+
+    private final ConcurrentMap<Long, int[]> windowsByDay = new ConcurrentHashMap<>();
+
+    /**
+     * Claims a window on every one of the given days, all or none.
+     *
+     * @return whether the window was free on every day and is now claimed
+     */
+    public boolean tryReserve(Collection<Long> days, int start, int end) {
+        List<Long> sorted = days.stream().distinct().sorted().collect(Collectors.toList());
+        for (int i = 0; i < sorted.size(); i++) {
+            if (!tryReserve(sorted.get(i), start, end)) {
+                sorted.subList(0, i).forEach(day -> release(day, start, end));
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Releases a window claimed with {@link #tryReserve(Collection, int, int)}.
+     */
+    public void release(Collection<Long> days, int start, int end) {
+        days.stream().distinct().forEach(day -> release(day, start, end));
+    }
+
+    public boolean isReserved(long day, int start, int end) {
+        int[] windows = windowsByDay.get(day);
+        return windows != null && overlaps(windows, start, end);
+    }
+
+    private boolean tryReserve(long day, int start, int end) {
+        while (true) {
+            int[] windows = windowsByDay.get(day);
+            if (windows == null) {
+                if (windowsByDay.putIfAbsent(day, new int[]{start, end}) == null) {
+                    return true;
+                }
+            } else if (overlaps(windows, start, end)) {
+                return false;
+            } else if (windowsByDay.replace(day, windows, insert(windows, start, end))) {
+                return true;
+            }
+        }
+    }
+
+    private void release(long day, int start, int end) {
+        while (true) {
+            int[] windows = windowsByDay.get(day);
+            int index = windows == null ? -1 : indexOf(windows, start, end);
+            if (index < 0) {
+                return;
+            }
+            int[] remaining = new int[windows.length - 2];
+            System.arraycopy(windows, 0, remaining, 0, index);
+            System.arraycopy(windows, index + 2, remaining, index, windows.length - index - 2);
+            if (remaining.length == 0 ? windowsByDay.remove(day, windows) : windowsByDay.replace(day, windows, remaining)) {
+                return;
+            }
+        }
+    }
+
+    // Windows that merely touch don't overlap, back to back bookings are fine
+    private static boolean overlaps(int[] windows, int start, int end) {
+        for (int i = 0; i < windows.length; i += 2) {
+            if (windows[i] < end && windows[i + 1] > start) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] insert(int[] windows, int start, int end) {
+        int index = 0;
+        while (index < windows.length && windows[index] < start) {
+            index += 2;
+        }
+        int[] inserted = Arrays.copyOf(windows, windows.length + 2);
+        System.arraycopy(windows, index, inserted, index + 2, windows.length - index);
+        inserted[index] = start;
+        inserted[index + 1] = end;
+        return inserted;
+    }
+
+    private static int indexOf(int[] windows, int start, int end) {
+        for (int i = 0; i < windows.length; i += 2) {
+            if (windows[i] == start && windows[i + 1] == end) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
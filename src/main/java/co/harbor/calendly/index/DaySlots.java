@@ -0,0 +1,221 @@
+package co.harbor.calendly.index;
+
+import co.harbor.calendly.entity.UserAvailability;
+import co.harbor.calendly.model.Slot;
+import co.harbor.calendly.utils.IntervalUtils;
+import co.harbor.calendly.utils.TimeUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, sorted view of one user's availability on one date.
+ * Slots are kept as parallel primitive arrays ordered by start (then end), with times stored as second-of-day.
+ * {@code maxEnds[i]} holds the largest end among slots {@code 0..i}, which lets overlap lookups stop scanning early.
+ */
+public final class DaySlots {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final int userid;
+    private final int epochDay;
+    private final int[] ids;
+    private final int[] starts;
+    private final int[] ends;
+    private final int[] maxEnds;
+
+    // Built on first use; a racing build just computes the same bitmap twice
+    private volatile DayBitmap bitmap;
+
+    private DaySlots(int userid, int epochDay, int[] ids, int[] starts, int[] ends) {
+        this.userid = userid;
+        this.epochDay = epochDay;
+        this.ids = ids;
+        this.starts = starts;
+        this.ends = ends;
+        this.maxEnds = new int[ends.length];
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < ends.length; i++) {
+            max = Math.max(max, ends[i]);
+            maxEnds[i] = max;
+        }
+    }
+
+    public static DaySlots empty(int userid, int epochDay) {
+        return new DaySlots(userid, epochDay, EMPTY, EMPTY, EMPTY);
+    }
+
+    public static DaySlots of(int userid, int epochDay, List<UserAvailability> availabilities) {
+        List<UserAvailability> sorted = new ArrayList<>(availabilities);
+        sorted.sort(Comparator.comparing(UserAvailability::get_start).thenComparing(UserAvailability::get_end));
+
+        int size = sorted.size();
+        int[] ids = new int[size];
+        int[] starts = new int[size];
+        int[] ends = new int[size];
+        for (int i = 0; i < size; i++) {
+            UserAvailability availability = sorted.get(i);
+            ids[i] = availability.getId() == null ? 0 : availability.getId();
+            starts[i] = TimeUtils.toSecondOfDay(availability.get_start());
+            ends[i] = TimeUtils.toSecondOfDay(availability.get_end());
+        }
+        return new DaySlots(userid, epochDay, ids, starts, ends);
+    }
+
+    /**
+     * Merges the overlapping and touching slots of a user's day, e.g. stored slots and recurring occurrences, with
+     * {@link IntervalUtils#union(int[])}. A slot that is not merged into another keeps its entity, and so its id.
+     *
+     * @return the day's disjoint slots, the given list itself when no slots had to be merged
+     */
+    public static List<UserAvailability> coalesce(int userid, int epochDay, List<UserAvailability> availabilities) {
+        if (availabilities.size() < 2) {
+            return availabilities;
+        }
+        int[] all = new int[availabilities.size() * 2];
+        Map<Long, UserAvailability> bySlot = new HashMap<>();
+        for (int i = 0; i < availabilities.size(); i++) {
+            UserAvailability availability = availabilities.get(i);
+            all[2 * i] = TimeUtils.toSecondOfDay(availability.get_start());
+            all[2 * i + 1] = TimeUtils.toSecondOfDay(availability.get_end());
+            bySlot.putIfAbsent(Slot.of(epochDay, all[2 * i], all[2 * i + 1]), availability);
+        }
+        int[] merged = IntervalUtils.union(all);
+        if (merged.length == all.length) {
+            return availabilities;
+        }
+        List<UserAvailability> coalesced = new ArrayList<>(merged.length / 2);
+        for (int i = 0; i < merged.length; i += 2) {
+            long slot = Slot.of(epochDay, merged[i], merged[i + 1]);
+            UserAvailability availability = bySlot.get(slot);
+            coalesced.add(availability != null ? availability : Slot.toEntity(slot, userid));
+        }
+        return coalesced;
+    }
+
+    public int getUserid() {
+        return userid;
+    }
+
+    public int getEpochDay() {
+        return epochDay;
+    }
+
+    public int size() {
+        return starts.length;
+    }
+
+    public int startAt(int index) {
+        return starts[index];
+    }
+
+    public int endAt(int index) {
+        return ends[index];
+    }
+
+    /**
+     * Materializes the slots back into entities, in start order.
+     */
+    public List<UserAvailability> toEntities() {
+        List<UserAvailability> availabilities = new ArrayList<>(starts.length);
+        for (int i = 0; i < starts.length; i++) {
+            UserAvailability availability = new UserAvailability();
+            availability.setId(ids[i] == 0 ? null : ids[i]);
+            availability.set_date(TimeUtils.toDate(epochDay));
+            availability.set_start(TimeUtils.toTime(starts[i]));
+            availability.set_end(TimeUtils.toTime(ends[i]));
+            availability.setUserid(userid);
+            availabilities.add(availability);
+        }
+        return availabilities;
+    }
+
+    /**
+     * Computes the distinct pairwise overlaps between the slots of this day and the slots of another day.
+     * Two slots overlap when {@code start < other.end && end > other.start}, so touching slots don't produce
+     * a zero length window while fully contained slots do.
+     *
+     * @param other slots of the other user on the same date
+     * @return overlapping windows as {@code [start, end]} second-of-day pairs, sorted and without duplicates
+     */
+    public List<int[]> overlap(DaySlots other) {
+        List<int[]> windows = new ArrayList<>();
+        for (int i = 0; i < starts.length; i++) {
+            int start = starts[i];
+            int end = ends[i];
+            // Every candidate starts before this slot ends, scan them backwards until none can still be open
+            for (int j = other.upperBound(end) - 1; j >= 0 && other.maxEnds[j] > start; j--) {
+                if (other.ends[j] > start) {
+                    windows.add(new int[]{Math.max(start, other.starts[j]), Math.min(end, other.ends[j])});
+                }
+            }
+        }
+        return distinct(windows);
+    }
+
+    /**
+     * Merges overlapping and touching slots into the user's free windows for the day.
+     *
+     * @return sorted, disjoint windows as a flat {@code [start0, end0, start1, end1, ...]} array
+     */
+    public int[] union() {
+        int[] windows = new int[starts.length * 2];
+        int size = 0;
+        for (int i = 0; i < starts.length; i++) {
+            if (size > 0 && starts[i] <= windows[size - 1]) {
+                windows[size - 1] = Math.max(windows[size - 1], ends[i]);
+            } else {
+                windows[size++] = starts[i];
+                windows[size++] = ends[i];
+            }
+        }
+        return size == windows.length ? windows : Arrays.copyOf(windows, size);
+    }
+
+    /**
+     * Returns the free/busy bitmap of the day at the given slot size, built once and kept with the slots.
+     */
+    public DayBitmap bitmap(int slotSeconds) {
+        DayBitmap current = bitmap;
+        if (current == null || current.getSlotSeconds() != slotSeconds) {
+            current = DayBitmap.of(union(), slotSeconds);
+            bitmap = current;
+        }
+        return current;
+    }
+
+    // Index of the first slot starting at or after the given second-of-day
+    int upperBound(int secondOfDay) {
+        int low = 0;
+        int high = starts.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] < secondOfDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static List<int[]> distinct(List<int[]> windows) {
+        if (windows.size() < 2) {
+            return windows;
+        }
+        windows.sort(Comparator.<int[]>comparingInt(w -> w[0]).thenComparingInt(w -> w[1]));
+        List<int[]> distinct = new ArrayList<>(windows.size());
+        int[] previous = null;
+        for (int[] window : windows) {
+            if (previous == null || !Arrays.equals(previous, window)) {
+                distinct.add(window);
+            }
+            previous = window;
+        }
+        return distinct;
+    }
+}
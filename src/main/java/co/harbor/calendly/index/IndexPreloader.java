@@ -0,0 +1,94 @@
+package co.harbor.calendly.index;
+
+import co.harbor.calendly.controller.helper.RecurringAvailabilityHelper;
+import co.harbor.calendly.entity.UserAvailability;
+import co.harbor.calendly.repository.AvailabilityBatchRepository;
+import co.harbor.calendly.utils.TimeUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Warms up {@link AvailabilityIndex} at startup with every user's days from {@code calendly.index.preload.days-back}
+ * days ago to {@code calendly.index.preload.days-ahead} days ahead, the days most queries are about. Enabled with
+ * {@code calendly.index.preload.enabled=true}, e.g. with the persistent database. The days are read with one streamed
+ * range query, and rule occurrences are expanded for the whole range at once. This runs once every bean is created and
+ * before the web server starts, so the first requests are served from memory.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "calendly.index.preload.enabled", havingValue = "true")
+public class IndexPreloader implements SmartInitializingSingleton {
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private AvailabilityBatchRepository availabilityBatchRepository;
+
+    @Autowired
+    private RecurringAvailabilityHelper recurringAvailabilityHelper;
+
+    @Value("${calendly.index.preload.days-back:0}")
+    private int daysBack;
+
+    @Value("${calendly.index.preload.days-ahead:14}")
+    private int daysAhead;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long started = System.nanoTime();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        Date from = Date.valueOf(today.minusDays(daysBack));
+        Date to = Date.valueOf(today.plusDays(daysAhead));
+
+        Map<Long, List<UserAvailability>> occurrences = new HashMap<>(recurringAvailabilityHelper.findAllOccurrences(from, to));
+        List<UserAvailability> day = new ArrayList<>();
+        int[] days = {0};
+        // Rows come ordered by user and date, so a day is complete when the next row belongs to another one
+        availabilityBatchRepository.forEachBetween(from, to, availability -> {
+            if (!day.isEmpty() && (!day.get(0).getUserid().equals(availability.getUserid())
+                    || !day.get(0).get_date().equals(availability.get_date()))) {
+                preload(day, occurrences);
+                days[0]++;
+            }
+            day.add(availability);
+        });
+        if (!day.isEmpty()) {
+            preload(day, occurrences);
+            days[0]++;
+        }
+        // Days with occurrences only
+        occurrences.forEach((key, dayOccurrences) -> {
+            int userid = (int) (key >>> 32);
+            int epochDay = (int) (long) key;
+            availabilityIndex.preload(DaySlots.of(userid, epochDay, DaySlots.coalesce(userid, epochDay, dayOccurrences)));
+            days[0]++;
+        });
+        log.info("Preloaded {} user days from {} to {} into the availability index in {} ms",
+                days[0], from, to, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void preload(List<UserAvailability> day, Map<Long, List<UserAvailability>> occurrences) {
+        int userid = day.get(0).getUserid();
+        int epochDay = TimeUtils.toEpochDay(day.get(0).get_date());
+        List<UserAvailability> dayOccurrences = occurrences.remove(AvailabilityIndex.key(userid, epochDay));
+        if (dayOccurrences != null) {
+            day.addAll(dayOccurrences);
+        }
+        // Coalesced as AvailabilityIndex loads a day, occurrences may overlap stored slots and each other
+        availabilityIndex.preload(DaySlots.of(userid, epochDay, DaySlots.coalesce(userid, epochDay, day)));
+        day.clear();
+    }
+}
@@ -0,0 +1,29 @@
+package co.harbor.calendly.index;
+
+/**
+ * Notified by {@link AvailabilityIndex} when committed writes reloaded a user's indexed days, or changed days that
+ * aren't indexed, so state derived from them can be kept up to date.
+ */
+public interface IndexRefreshListener {
+
+    /**
+     * A user's day was reloaded after a write to it committed.
+     */
+    void dayRefreshed(DaySlots slots);
+
+    /**
+     * A write to a user's day that isn't indexed committed, nothing was reloaded. The day may have been indexed, and
+     * used, before it was evicted.
+     */
+    void dayChanged(int userid, int epochDay);
+
+    /**
+     * Any day of a user may have changed, e.g. after a recurring rule was added, including days that aren't indexed.
+     */
+    void userRefreshed(int userid);
+
+    /**
+     * Every indexed day was dropped, any day of any user may have changed.
+     */
+    void indexCleared();
+}
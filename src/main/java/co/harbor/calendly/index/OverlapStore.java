@@ -0,0 +1,298 @@
+package co.harbor.calendly.index;
+
+import co.harbor.calendly.model.OverlapEngine;
+import co.harbor.calendly.utils.TimeUtils;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Materialized overlapping availability of hot user pairs, so that asking for the overlap of such a pair on a date is
+ * a single key lookup. Pairs are hot when listed in {@code calendly.overlap.materialized.pairs}, as {@code user1:user2},
+ * or once they were looked up {@code calendly.overlap.materialized.hot-threshold} times within a day (0 turns
+ * detection off). Only single overlap lookups count, see {@link #lookup(int, int, int)}, not the pairs a bulk report
+ * goes through. At most {@code calendly.overlap.materialized.max-pairs} pairs are detected as hot, and a detected pair
+ * that is not looked up for a day goes cold again, making room for others.
+ * <p>
+ * A pair's overlap on a date is materialized the first time it is read and is then kept up to date incrementally:
+ * whenever {@link AvailabilityIndex} reloads a day after a committed write, the overlaps of that user's hot pairs on that
+ * day are recomputed, and when the written day isn't indexed they are dropped. Other pairs are computed from the index
+ * on every lookup.
+ */
+@Component
+public class OverlapStore implements IndexRefreshListener {
+
+    // Windows of an empty overlap, shared by every pair and day without one
+    private static final int[] NONE = new int[0];
+
+    // Lookups are counted, and detected pairs kept hot, over this window
+    private static final Duration HOT_WINDOW = Duration.ofDays(1);
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${calendly.overlap.engine:interval}")
+    private OverlapEngine overlapEngine;
+
+    @Value("${calendly.overlap.bitmap.slot-seconds:60}")
+    private int bitmapSlotSeconds;
+
+    @Value("${calendly.overlap.materialized.pairs:}")
+    private String[] configuredPairs;
+
+    @Value("${calendly.overlap.materialized.hot-threshold:0}")
+    private long hotThreshold;
+
+    @Value("${calendly.overlap.materialized.max-pairs:1000}")
+    private int maxHotPairs;
+
+    @Value("${calendly.overlap.materialized.maximum-size:100000}")
+    private long maximumSize;
+
+    // Hot pairs as pairKey(user1, user2), and the hot partners of each user
+    private final Set<Long> hotPairs = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<Integer, Set<Integer>> partners = new ConcurrentHashMap<>();
+
+    // Bumped by every refresh of a hot user, lets a computation that raced with one detect that it may be stale
+    private final AtomicLong generation = new AtomicLong();
+
+    private Cache<PairDay, int[]> overlaps;
+    private Cache<Long, LongAdder> lookups;
+    // Hot pairs that were detected rather than configured, expired once not looked up for a while
+    private Cache<Long, Boolean> detectedPairs;
+
+    @PostConstruct
+    void init() {
+        for (String pair : configuredPairs) {
+            String[] users = pair.trim().split(":");
+            if (users.length != 2) {
+                throw new IllegalArgumentException("Invalid materialized overlap pair " + pair + ", expected user1:user2");
+            }
+            addHotPair(Integer.parseInt(users[0].trim()), Integer.parseInt(users[1].trim()));
+        }
+        overlaps = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, overlaps, "overlapStore");
+        lookups = Caffeine.newBuilder()
+                .maximumSize(maxHotPairs * 10L)
+                .expireAfterWrite(HOT_WINDOW)
+                .build();
+        // Demoted on the thread that expired the pair, so it is cold before the next lookup sees the cache
+        detectedPairs = Caffeine.newBuilder()
+                .expireAfterAccess(HOT_WINDOW)
+                .executor(Runnable::run)
+                .removalListener((Long pair, Boolean hot, RemovalCause cause) -> {
+                    if (cause.wasEvicted()) {
+                        removeHotPair(pair);
+                    }
+                })
+                .build();
+        availabilityIndex.addRefreshListener(this);
+    }
+
+    /**
+     * Looks up the overlap of two distinct users on a date, as {@link #overlap(int, int, int)} does, and counts the
+     * lookup towards detecting the pair as hot. Meant for single lookups made by clients, e.g. {@code /v1/overlap}.
+     *
+     * @return sorted second-of-day windows as a flat {@code [start0, end0, start1, end1, ...]} array
+     */
+    public int[] lookup(int user1, int user2, int epochDay) {
+        long pair = pairKey(user1, user2);
+        if (hotPairs.contains(pair)) {
+            // Keeps a detected pair hot
+            detectedPairs.getIfPresent(pair);
+        } else {
+            countLookup(pair, user1, user2);
+        }
+        return overlap(user1, user2, epochDay);
+    }
+
+    /**
+     * Returns the windows during which two distinct users are both available on a date, computed with the configured
+     * overlap engine. Hot pairs are served from the store, the lookup doesn't count towards detecting hot pairs.
+     *
+     * @return sorted second-of-day windows as a flat {@code [start0, end0, start1, end1, ...]} array
+     */
+    public int[] overlap(int user1, int user2, int epochDay) {
+        long pair = pairKey(user1, user2);
+        if (!hotPairs.contains(pair)) {
+            return compute(user1, user2, epochDay);
+        }
+        PairDay key = new PairDay(pair, epochDay);
+        int[] windows = overlaps.getIfPresent(key);
+        if (windows == null) {
+            // Computed outside of the cache, loading the users' days may refresh the index and call back into the store
+            long computedGeneration = generation.get();
+            int[] computed = compute(user1, user2, epochDay);
+            overlaps.asMap().compute(key, (k, previous) ->
+                    previous != null || generation.get() != computedGeneration ? previous : computed);
+            if (!hotPairs.contains(pair)) {
+                // The pair went cold meanwhile, it would no longer be kept up to date
+                overlaps.invalidate(key);
+            }
+            windows = computed;
+        }
+        return windows;
+    }
+
+    public boolean isMaterialized(int user1, int user2, int epochDay) {
+        return overlaps.getIfPresent(new PairDay(pairKey(user1, user2), epochDay)) != null;
+    }
+
+    @Override
+    public void dayRefreshed(DaySlots slots) {
+        int userid = slots.getUserid();
+        Set<Integer> userPartners = partners.get(userid);
+        if (userPartners == null) {
+            return;
+        }
+        // Also stops lookups that computed from the previous days from materializing their result
+        long refreshGeneration = generation.incrementAndGet();
+        for (Integer partner : userPartners) {
+            PairDay key = new PairDay(pairKey(userid, partner), slots.getEpochDay());
+            if (overlaps.getIfPresent(key) == null) {
+                continue;
+            }
+            int[] computed = compute(userid, partner, slots.getEpochDay());
+            // A newer refresh of either user makes this result stale, it is dropped and recomputed on the next lookup
+            overlaps.asMap().computeIfPresent(key, (k, previous) ->
+                    generation.get() == refreshGeneration ? computed : null);
+        }
+    }
+
+    @Override
+    public void dayChanged(int userid, int epochDay) {
+        Set<Integer> userPartners = partners.get(userid);
+        if (userPartners == null) {
+            return;
+        }
+        // Nothing to recompute from, the overlaps are dropped and computed again on the next lookup
+        generation.incrementAndGet();
+        for (Integer partner : userPartners) {
+            overlaps.invalidate(new PairDay(pairKey(userid, partner), epochDay));
+        }
+    }
+
+    @Override
+    public void userRefreshed(int userid) {
+        if (partners.containsKey(userid)) {
+            generation.incrementAndGet();
+            overlaps.asMap().keySet().removeIf(key -> key.involves(userid));
+        }
+    }
+
+    @Override
+    public void indexCleared() {
+        generation.incrementAndGet();
+        overlaps.invalidateAll();
+    }
+
+    /**
+     * Computes the windows during which both users' indexed slots overlap. With the bitmap engine these are the merged
+     * windows during which both users are free, instead of one window per pair of slots.
+     */
+    private int[] compute(int user1, int user2, int epochDay) {
+        DaySlots first = availabilityIndex.get(user1, TimeUtils.toDate(epochDay));
+        DaySlots second = availabilityIndex.get(user2, TimeUtils.toDate(epochDay));
+        int[] windows;
+        if (overlapEngine == OverlapEngine.BITMAP) {
+            windows = DayBitmap.intersect(Arrays.asList(first.bitmap(bitmapSlotSeconds), second.bitmap(bitmapSlotSeconds)));
+        } else {
+            List<int[]> pairs = first.overlap(second);
+            windows = new int[pairs.size() * 2];
+            for (int i = 0; i < pairs.size(); i++) {
+                windows[2 * i] = pairs.get(i)[0];
+                windows[2 * i + 1] = pairs.get(i)[1];
+            }
+        }
+        return windows.length == 0 ? NONE : windows;
+    }
+
+    // Counts a lookup of a pair that isn't hot yet and detects it as hot once it reached the threshold
+    private void countLookup(long pair, int user1, int user2) {
+        if (hotThreshold <= 0) {
+            return;
+        }
+        LongAdder count = lookups.get(pair, key -> new LongAdder());
+        count.increment();
+        // Cleans up expired detected pairs first, so cold pairs make room for this one
+        detectedPairs.cleanUp();
+        if (count.sum() < hotThreshold || hotPairs.size() >= maxHotPairs) {
+            return;
+        }
+        addHotPair(user1, user2);
+        detectedPairs.put(pair, Boolean.TRUE);
+        lookups.invalidate(pair);
+    }
+
+    private synchronized void addHotPair(int user1, int user2) {
+        partners.computeIfAbsent(user1, user -> ConcurrentHashMap.newKeySet()).add(user2);
+        partners.computeIfAbsent(user2, user -> ConcurrentHashMap.newKeySet()).add(user1);
+        hotPairs.add(pairKey(user1, user2));
+    }
+
+    // Demotes a detected pair that went cold, its overlaps are dropped as they are no longer kept up to date
+    private synchronized void removeHotPair(long pair) {
+        int user1 = (int) (pair >>> 32);
+        int user2 = (int) pair;
+        hotPairs.remove(pair);
+        partners.computeIfPresent(user1, (user, userPartners) -> userPartners.remove(user2) && userPartners.isEmpty() ? null : userPartners);
+        partners.computeIfPresent(user2, (user, userPartners) -> userPartners.remove(user1) && userPartners.isEmpty() ? null : userPartners);
+        generation.incrementAndGet();
+        overlaps.asMap().keySet().removeIf(key -> key.pair == pair);
+    }
+
+    // The overlap is symmetric, so both orders of a pair share one key
+    private static long pairKey(int user1, int user2) {
+        return AvailabilityIndex.key(Math.min(user1, user2), Math.max(user1, user2));
+    }
+
+    private static final class PairDay {
+
+        private final long pair;
+        private final int epochDay;
+
+        PairDay(long pair, int epochDay) {
+            this.pair = pair;
+            this.epochDay = epochDay;
+        }
+
+        boolean involves(int userid) {
+            return (int) (pair >>> 32) == userid || (int) pair == userid;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof PairDay)) {
+                return false;
+            }
+            PairDay other = (PairDay) o;
+            return pair == other.pair && epochDay == other.epochDay;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(pair) * 31 + epochDay;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package co.harbor.calendly.index;
+
+import co.harbor.calendly.entity.RecurringAvailability;
+import co.harbor.calendly.entity.UserAvailability;
+import co.harbor.calendly.model.Interval;
+import co.harbor.calendly.model.RecurringUserAvailability;
+import co.harbor.calendly.model.Slot;
+import co.harbor.calendly.utils.IntervalUtils;
+import co.harbor.calendly.utils.TimeUtils;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Writes that were accepted in write-behind mode but are not committed yet, and the read-your-writes overlay that
+ * shows them on top of the {@link AvailabilityIndex}. A write is added when it is queued and removed once its group
+ * commit refreshed the index, or failed, so a read always sees it either here or in the index.
+ */
+@Component
+public class PendingWrites {
+
+    private final ConcurrentMap<Integer, Set<Write>> writesByUser = new ConcurrentHashMap<>();
+
+    public void add(Write write) {
+        writesByUser.computeIfAbsent(write.userid, userid -> ConcurrentHashMap.newKeySet()).add(write);
+    }
+
+    public void remove(Write write) {
+        writesByUser.computeIfPresent(write.userid, (userid, writes) -> {
+            writes.remove(write);
+            return writes.isEmpty() ? null : writes;
+        });
+    }
+
+    public boolean isPending(int userid, int epochDay) {
+        Set<Write> writes = writesByUser.get(userid);
+        if (writes == null) {
+            return false;
+        }
+        for (Write write : writes) {
+            if (write.occursOn(epochDay)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the futures of a user's pending writes, completed once each write is committed or failed.
+     */
+    public List<CompletableFuture<Void>> futures(int userid) {
+        Set<Write> writes = writesByUser.get(userid);
+        if (writes == null) {
+            return Collections.emptyList();
+        }
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        writes.forEach(write -> futures.add(write.future));
+        return futures;
+    }
+
+    /**
+     * Returns a user's indexed day with the user's pending writes on that day merged in, as disjoint slots. Slots of
+     * a day with pending writes have no ids until they are committed.
+     */
+    public DaySlots overlay(DaySlots slots) {
+        Set<Write> writes = writesByUser.get(slots.getUserid());
+        if (writes == null) {
+            return slots;
+        }
+        int epochDay = slots.getEpochDay();
+        List<Integer> windows = new ArrayList<>();
+        for (Write write : writes) {
+            write.addWindows(epochDay, windows);
+        }
+        if (windows.isEmpty()) {
+            return slots;
+        }
+
+        int[] all = new int[slots.size() * 2 + windows.size()];
+        for (int i = 0; i < slots.size(); i++) {
+            all[2 * i] = slots.startAt(i);
+            all[2 * i + 1] = slots.endAt(i);
+        }
+        for (int i = 0; i < windows.size(); i++) {
+            all[slots.size() * 2 + i] = windows.get(i);
+        }
+        int[] merged = IntervalUtils.union(all);
+        List<UserAvailability> availabilities = new ArrayList<>(merged.length / 2);
+        for (int i = 0; i < merged.length; i += 2) {
+            availabilities.add(Slot.toEntity(Slot.of(epochDay, merged[i], merged[i + 1]), slots.getUserid()));
+        }
+        return DaySlots.of(slots.getUserid(), epochDay, availabilities);
+    }
+
+    /**
+     * A queued write of one user: availability slots, or a recurring rule together with the rule it will be stored as.
+     */
+    public static final class Write {
+
+        private final int userid;
+        private final List<UserAvailability> availabilities;
+        private final RecurringUserAvailability recurringAvailability;
+        private final RecurringAvailability rule;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private Write(int userid, List<UserAvailability> availabilities, RecurringUserAvailability recurringAvailability,
+                      RecurringAvailability rule) {
+            this.userid = userid;
+            this.availabilities = availabilities;
+            this.recurringAvailability = recurringAvailability;
+            this.rule = rule;
+        }
+
+        public static Write of(int userid, List<UserAvailability> availabilities) {
+            return new Write(userid, availabilities, null, null);
+        }
+
+        public static Write of(RecurringUserAvailability recurringAvailability, RecurringAvailability rule) {
+            return new Write(recurringAvailability.getUserid(), Collections.emptyList(), recurringAvailability, rule);
+        }
+
+        public int getUserid() {
+            return userid;
+        }
+
+        public List<UserAvailability> getAvailabilities() {
+            return availabilities;
+        }
+
+        public RecurringUserAvailability getRecurringAvailability() {
+            return recurringAvailability;
+        }
+
+        public CompletableFuture<Void> getFuture() {
+            return future;
+        }
+
+        // Rows the write adds, a rule counts as one
+        public int size() {
+            return rule == null ? availabilities.size() : 1;
+        }
+
+        boolean occursOn(int epochDay) {
+            List<Integer> windows = new ArrayList<>();
+            addWindows(epochDay, windows);
+            return !windows.isEmpty();
+        }
+
+        void addWindows(int epochDay, List<Integer> windows) {
+            for (UserAvailability availability : availabilities) {
+                if (TimeUtils.toEpochDay(availability.get_date()) == epochDay) {
+                    windows.add(TimeUtils.toSecondOfDay(availability.get_start()));
+                    windows.add(TimeUtils.toSecondOfDay(availability.get_end()));
+                }
+            }
+            if (rule != null) {
+                LocalDate date = LocalDate.ofEpochDay(epochDay);
+                if ((rule.getEnddate() == null || !date.isAfter(rule.getEnddate().toLocalDate()))
+                        && Interval.valueOf(rule.getFrequency()).occursOn(rule.getStartdate().toLocalDate(), date, rule.getEvery())) {
+                    windows.add(TimeUtils.toSecondOfDay(rule.get_start()));
+                    windows.add(TimeUtils.toSecondOfDay(rule.get_end()));
+                }
+            }
+        }
+    }
+}
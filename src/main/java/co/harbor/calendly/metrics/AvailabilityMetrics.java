@@ -0,0 +1,125 @@
+package co.harbor.calendly.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Custom meters of the availability hot paths, exposed through actuator (and Prometheus) next to Spring's own
+ * {@code http.server.requests} and {@code spring.data.repository.invocations}. Timers and summaries publish percentile
+ * histograms, so percentiles can be aggregated across instances.
+ * <p>
+ * Meters are registered on first use and cached by operation, so recording costs a map lookup.
+ */
+@Component
+public class AvailabilityMetrics {
+
+    public static final String OPERATION_TIMER = "calendly.availability.operation";
+    public static final String BATCH_TIMER = "calendly.availability.batch";
+    public static final String ROWS_READ = "calendly.availability.rows.read";
+    public static final String INTERVALS_PRODUCED = "calendly.availability.intervals.produced";
+    public static final String DELETE_FRAGMENTS = "calendly.availability.delete.fragments";
+    public static final String RECURRING_OCCURRENCES = "calendly.availability.recurring.occurrences";
+    public static final String INDEX_LOOKUPS = "calendly.availability.index.lookups";
+    public static final String BOOKING_CLAIMS = "calendly.booking.claims";
+    public static final String SEARCH_DAYS = "calendly.availability.search.days";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, DistributionSummary> summaries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+
+    /**
+     * Stops a sample started with {@link #start()} and records it against an operation, see {@link TimedOperation}.
+     */
+    public void stop(Timer.Sample sample, String operation) {
+        sample.stop(timer(OPERATION_TIMER, operation));
+    }
+
+    /**
+     * Stops a sample started with {@link #start()} and records it against a JDBC batch write.
+     */
+    public void stopBatch(Timer.Sample sample, String operation) {
+        sample.stop(timer(BATCH_TIMER, operation));
+    }
+
+    /**
+     * Rows read from the database by a query, tagged by where the query came from.
+     */
+    public void rowsRead(String source, long rows) {
+        summary(ROWS_READ, "source", source, "rows").record(rows);
+    }
+
+    /**
+     * Windows or slots returned by an operation.
+     */
+    public void intervalsProduced(String operation, long intervals) {
+        summary(INTERVALS_PRODUCED, "operation", operation, "intervals").record(intervals);
+    }
+
+    /**
+     * Fragments left behind by the slots a delete request cut into.
+     */
+    public void deleteFragments(long fragments) {
+        summary(DELETE_FRAGMENTS, "operation", "delete", "fragments").record(fragments);
+    }
+
+    /**
+     * Occurrences expanded from recurring rules, tagged by where they were expanded.
+     */
+    public void recurringOccurrences(String source, long occurrences) {
+        summary(RECURRING_OCCURRENCES, "source", source, "occurrences").record(occurrences);
+    }
+
+    /**
+     * Dates a slot search walked before it found enough slots or reached its horizon.
+     */
+    public void searchDays(long days) {
+        summary(SEARCH_DAYS, "operation", "earliest_slots", "days").record(days);
+    }
+
+    public void indexLookup(boolean hit) {
+        String result = hit ? "hit" : "miss";
+        counters.computeIfAbsent(result, r -> Counter.builder(INDEX_LOOKUPS)
+                .description("AvailabilityIndex lookups by result")
+                .tag("result", r)
+                .register(meterRegistry)).increment();
+    }
+
+    /**
+     * Booking claims by result: booked, or why the claim lost.
+     */
+    public void bookingClaim(String result) {
+        counters.computeIfAbsent(BOOKING_CLAIMS + ':' + result, k -> Counter.builder(BOOKING_CLAIMS)
+                .description("Booking claims by result")
+                .tag("result", result)
+                .register(meterRegistry)).increment();
+    }
+
+    private Timer timer(String name, String operation) {
+        return timers.computeIfAbsent(name + ':' + operation, k -> Timer.builder(name)
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    private DistributionSummary summary(String name, String tag, String value, String unit) {
+        return summaries.computeIfAbsent(name + ':' + value, k -> DistributionSummary.builder(name)
+                .tag(tag, value)
+                .baseUnit(unit)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+}
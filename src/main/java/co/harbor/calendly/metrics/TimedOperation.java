@@ -0,0 +1,24 @@
+package co.harbor.calendly.metrics;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Times every call of the annotated method, whether it returns or throws, against the
+ * {@link AvailabilityMetrics#OPERATION_TIMER} of the given operation, see {@link TimedOperationAspect}.
+ * <p>
+ * Like other Spring proxies, calls from within the same bean are not timed.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface TimedOperation {
+
+    /**
+     * The {@code operation} tag of the timer.
+     */
+    String value();
+}
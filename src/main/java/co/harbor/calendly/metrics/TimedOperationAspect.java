@@ -0,0 +1,32 @@
+package co.harbor.calendly.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records the methods annotated with {@link TimedOperation} through {@link AvailabilityMetrics}, so they keep the
+ * meters and tags of the operations that are timed by hand, e.g. the reactive and batch ones. Micrometer's
+ * {@code TimedAspect} would add class, method and exception tags, and Prometheus rejects meters of one name with
+ * different tag keys.
+ */
+@Aspect
+@Component
+public class TimedOperationAspect {
+
+    @Autowired
+    private AvailabilityMetrics availabilityMetrics;
+
+    @Around("@annotation(timedOperation)")
+    public Object time(ProceedingJoinPoint joinPoint, TimedOperation timedOperation) throws Throwable {
+        Timer.Sample sample = availabilityMetrics.start();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            availabilityMetrics.stop(sample, timedOperation.value());
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package co.harbor.calendly.model;
+
+import lombok.Data;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.util.List;
+
+/**
+ * Represents a booking request: a window of a date to be booked for a user, or for every user of a group.
+ */
+@Data
+public class BookingRequest {
+    private List<Integer> userids;
+    private Date _date;
+    private Time _start;
+    private Time _end;
+}
@@ -0,0 +1,30 @@
+package co.harbor.calendly.model;
+
+import lombok.Value;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A page of keyset pagination. {@code next} is the opaque cursor of the following page, {@code null} on the last page.
+ * Unlike {@link org.springframework.data.domain.Page} there is no total count, so no page needs a count query.
+ */
+@Value
+public class CursorPage<T> {
+    List<T> content;
+    String next;
+
+    /**
+     * Builds a page from up to {@code size + 1} rows fetched after the previous cursor; the extra row only tells that
+     * there is a next page.
+     *
+     * @param cursorOf cursor of the page following a row
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, String> cursorOf) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> content = rows.subList(0, size);
+        return new CursorPage<>(content, cursorOf.apply(content.get(size - 1)));
+    }
+}
@@ -0,0 +1,18 @@
+package co.harbor.calendly.model;
+
+import lombok.Value;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.util.List;
+
+/**
+ * A window on a date during which every user of a group is available.
+ */
+@Value
+public class GroupOverlappingAvailability {
+    Date date;
+    List<Integer> users;
+    Time overlappingStartTime;
+    Time overlappingEndTime;
+}
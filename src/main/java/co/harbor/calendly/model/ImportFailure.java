@@ -0,0 +1,12 @@
+package co.harbor.calendly.model;
+
+import lombok.Value;
+
+/**
+ * A row of a bulk import that was not imported, with its 1-based line number in the input.
+ */
+@Value
+public class ImportFailure {
+    long line;
+    String message;
+}
@@ -0,0 +1,30 @@
+package co.harbor.calendly.model;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static co.harbor.calendly.constants.Constants.MAX_IMPORT_FAILURES_REPORTED;
+
+/**
+ * Outcome of a bulk import: how many rows were imported and which ones failed. Only the first
+ * {@link co.harbor.calendly.constants.Constants#MAX_IMPORT_FAILURES_REPORTED} failures are listed, all are counted.
+ */
+@Getter
+public class ImportReport {
+    private long imported;
+    private long failed;
+    private final List<ImportFailure> failures = new ArrayList<>();
+
+    public void imported(long rows) {
+        imported += rows;
+    }
+
+    public void fail(long line, String message) {
+        failed++;
+        if (failures.size() < MAX_IMPORT_FAILURES_REPORTED) {
+            failures.add(new ImportFailure(line, message));
+        }
+    }
+}
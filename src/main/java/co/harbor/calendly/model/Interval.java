@@ -1,7 +1,13 @@
 package co.harbor.calendly.model;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
 public enum Interval {
-    WEEKLY("weekly", 7);
+    DAILY("daily", 1),
+    WEEKLY("weekly", 7),
+    WEEKDAYS("weekdays", 1);
 
     private String interval;
     private Integer days;
@@ -18,4 +24,29 @@ public enum Interval {
     public Integer getDays() {
         return days;
     }
+
+    /**
+     * Checks whether a recurrence that starts on a date and repeats every {@code every} intervals occurs on another date.
+     * For WEEKDAYS, {@code every} counts weeks: every Monday to Friday of every N-th week.
+     *
+     * @param startDate first date of the recurrence
+     * @param date date to check
+     * @param every number of intervals between occurrences, at least 1
+     * @return true if the recurrence occurs on the date
+     */
+    public boolean occursOn(LocalDate startDate, LocalDate date, int every) {
+        long daysSinceStart = ChronoUnit.DAYS.between(startDate, date);
+        if (daysSinceStart < 0) {
+            return false;
+        }
+        if (this == WEEKDAYS) {
+            DayOfWeek dayOfWeek = date.getDayOfWeek();
+            if (dayOfWeek == DayOfWeek.SATURDAY || dayOfWeek == DayOfWeek.SUNDAY) {
+                return false;
+            }
+            long weeksSinceStart = ChronoUnit.WEEKS.between(startDate.with(DayOfWeek.MONDAY), date.with(DayOfWeek.MONDAY));
+            return weeksSinceStart % every == 0;
+        }
+        return daysSinceStart % ((long) days * every) == 0;
+    }
 }
@@ -0,0 +1,18 @@
+package co.harbor.calendly.model;
+
+import lombok.Value;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.util.List;
+
+/**
+ * A window of a meeting's duration on a date during which every user is available.
+ */
+@Value
+public class MeetingSlot {
+    Date date;
+    List<Integer> users;
+    Time startTime;
+    Time endTime;
+}
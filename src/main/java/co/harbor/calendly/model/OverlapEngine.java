@@ -0,0 +1,11 @@
+package co.harbor.calendly.model;
+
+/**
+ * How overlapping availability is computed, set with {@code calendly.overlap.engine}.
+ * {@link #INTERVAL} compares the slots themselves and is exact to the second. {@link #BITMAP} intersects per day
+ * free/busy bitmaps with word-wide ANDs, at the resolution of {@code calendly.overlap.bitmap.slot-seconds}.
+ */
+public enum OverlapEngine {
+    INTERVAL,
+    BITMAP
+}
@@ -0,0 +1,18 @@
+package co.harbor.calendly.model;
+
+import lombok.Value;
+
+import java.sql.Date;
+import java.sql.Time;
+
+/**
+ * An {@link OverlappingAvailability} computed in-process, outside of the overlap SQL query.
+ */
+@Value
+public class OverlapWindow implements OverlappingAvailability {
+    Date date;
+    Integer firstUser;
+    Integer secondUser;
+    Time overlappingStartTime;
+    Time overlappingEndTime;
+}
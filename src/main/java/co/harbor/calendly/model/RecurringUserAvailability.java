@@ -4,23 +4,29 @@ import lombok.Data;
 import org.springframework.validation.annotation.Validated;
 
 import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 import java.sql.Date;
 import java.sql.Time;
 
 /**
- * Represents user availability entity in the database.
+ * Represents a recurring user availability request. It is stored as a rule, bounded either by
+ * an end date or by a number of occurrences, and open ended when both are null.
  */
 @Validated
 @Data
 public class RecurringUserAvailability {
     private Integer id;
     private Date startdate;
+    private Date enddate;
     private Time _start;
     private Time _end;
     private Integer userid;
     private String interval;
 
+    // Repeat every N days or weeks, e.g. 2 with weekly for every other week
+    @Min(1)
+    private Integer every = 1;
+
     @Max(100)
     private Integer occurrences = 30;
 }
-
@@ -0,0 +1,54 @@
+package co.harbor.calendly.model;
+
+import co.harbor.calendly.entity.UserAvailability;
+import co.harbor.calendly.utils.TimeUtils;
+
+/**
+ * Compact representation of an availability slot of a user, packed into a single {@code long}.
+ * The date is stored as an epoch day and the start and end as second-of-day, laid out as
+ * {@code [0][epoch day + offset : 29 bits][start : 17 bits][end : 17 bits]}, so slots order naturally by date,
+ * start and then end when compared as longs. The user id is not part of the slot, it's the key of the collection.
+ * Split, merge and overlap logic runs on this type and converts to {@link UserAvailability} only at the persistence boundary.
+ */
+public final class Slot {
+
+    private static final int TIME_BITS = 17;
+    private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+    private static final int DAY_SHIFT = 2 * TIME_BITS;
+    private static final long DAY_MASK = (1L << 29) - 1;
+    private static final int DAY_OFFSET = 1 << 28;
+
+    private Slot() {
+    }
+
+    public static long of(int epochDay, int start, int end) {
+        return ((epochDay + DAY_OFFSET) & DAY_MASK) << DAY_SHIFT | ((long) start & TIME_MASK) << TIME_BITS | ((long) end & TIME_MASK);
+    }
+
+    public static long of(UserAvailability availability) {
+        return of(TimeUtils.toEpochDay(availability.get_date()),
+                TimeUtils.toSecondOfDay(availability.get_start()),
+                TimeUtils.toSecondOfDay(availability.get_end()));
+    }
+
+    public static int epochDay(long slot) {
+        return (int) ((slot >>> DAY_SHIFT) & DAY_MASK) - DAY_OFFSET;
+    }
+
+    public static int start(long slot) {
+        return (int) ((slot >>> TIME_BITS) & TIME_MASK);
+    }
+
+    public static int end(long slot) {
+        return (int) (slot & TIME_MASK);
+    }
+
+    public static UserAvailability toEntity(long slot, Integer userid) {
+        UserAvailability availability = new UserAvailability();
+        availability.set_date(TimeUtils.toDate(epochDay(slot)));
+        availability.set_start(TimeUtils.toTime(start(slot)));
+        availability.set_end(TimeUtils.toTime(end(slot)));
+        availability.setUserid(userid);
+        return availability;
+    }
+}
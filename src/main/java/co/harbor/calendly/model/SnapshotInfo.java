@@ -0,0 +1,16 @@
+package co.harbor.calendly.model;
+
+import lombok.Value;
+
+import java.util.Map;
+
+/**
+ * A snapshot written or restored: its file name, size and the rows of each table in it.
+ */
+@Value
+public class SnapshotInfo {
+    String name;
+    long bytes;
+    Map<String, Long> rows;
+    long millis;
+}
@@ -0,0 +1,86 @@
+package co.harbor.calendly.repository;
+
+import co.harbor.calendly.entity.UserAvailability;
+import co.harbor.calendly.metrics.AvailabilityMetrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * JDBC batch writes for {@link UserAvailability}. IDENTITY id generation disables Hibernate's insert batching,
+ * so bulk changes go through {@link JdbcTemplate} batches instead. Participates in the surrounding JPA transaction.
+ * Bulk reads are streamed from the result set without going through the persistence context.
+ */
+@Repository
+public class AvailabilityBatchRepository {
+
+    public static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_SQL = "INSERT INTO user_availability (_date, _start, _end, userid) VALUES (?, ?, ?, ?)";
+    private static final String DELETE_SQL = "DELETE FROM user_availability WHERE id = ?";
+    private static final String SELECT_BETWEEN_SQL = "SELECT id, _date, _start, _end, userid FROM user_availability " +
+            "WHERE _date BETWEEN ? AND ? ORDER BY userid, _date, _start";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AvailabilityMetrics availabilityMetrics;
+
+    public void insertAll(Collection<UserAvailability> availabilities) {
+        if (availabilities.isEmpty()) {
+            return;
+        }
+        Timer.Sample sample = availabilityMetrics.start();
+        jdbcTemplate.batchUpdate(INSERT_SQL, availabilities, BATCH_SIZE, (ps, availability) -> {
+            ps.setDate(1, availability.get_date());
+            ps.setTime(2, availability.get_start());
+            ps.setTime(3, availability.get_end());
+            ps.setInt(4, availability.getUserid());
+        });
+        availabilityMetrics.stopBatch(sample, "insert");
+    }
+
+    /**
+     * Passes every user's availability between two dates, inclusive, to the consumer ordered by user, date and start
+     * time, one row at a time.
+     */
+    public void forEachBetween(Date from, Date to, Consumer<UserAvailability> consumer) {
+        Timer.Sample sample = availabilityMetrics.start();
+        long[] rows = {0};
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_BETWEEN_SQL);
+            statement.setFetchSize(BATCH_SIZE);
+            statement.setDate(1, from);
+            statement.setDate(2, to);
+            return statement;
+        }, (RowCallbackHandler) resultSet -> {
+            UserAvailability availability = new UserAvailability();
+            availability.setId(resultSet.getInt(1));
+            availability.set_date(resultSet.getDate(2));
+            availability.set_start(resultSet.getTime(3));
+            availability.set_end(resultSet.getTime(4));
+            availability.setUserid(resultSet.getInt(5));
+            consumer.accept(availability);
+            rows[0]++;
+        });
+        availabilityMetrics.rowsRead("bulk", rows[0]);
+        availabilityMetrics.stopBatch(sample, "select");
+    }
+
+    public void deleteAllById(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Timer.Sample sample = availabilityMetrics.start();
+        jdbcTemplate.batchUpdate(DELETE_SQL, ids, BATCH_SIZE, (ps, id) -> ps.setInt(1, id));
+        availabilityMetrics.stopBatch(sample, "delete");
+    }
+}
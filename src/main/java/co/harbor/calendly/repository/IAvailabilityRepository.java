@@ -6,11 +6,18 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
 import java.sql.Date;
+import java.sql.Time;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 /**
  * Repository for {@link UserAvailability} entity. Provides custom CRUD operations for user availability.
@@ -22,6 +29,41 @@ public interface IAvailabilityRepository extends JpaRepository<UserAvailability,
 
     List<UserAvailability> findBy_dateAndUserid(@Param("_date") Date date, @Param("userid") Integer userid);
 
+    /*
+     * Keyset pagination in (userid, _date, _start) order, which is unique as a user's slots on a date are disjoint.
+     * The redundant >= bound of the leading column lets each page start with a range scan of the
+     * (userid, _date, _start) index at the previous page's last row, whatever its position.
+     */
+
+    @Query("SELECT a FROM user_availability a WHERE a.userid = :userid ORDER BY a._date, a._start")
+    List<UserAvailability> findFirstPageByUserid(@Param("userid") Integer userid, Pageable pageable);
+
+    @Query("SELECT a FROM user_availability a WHERE a.userid = :userid AND a._date >= :date " +
+            "AND (a._date > :date OR a._start > :start) ORDER BY a._date, a._start")
+    List<UserAvailability> findPageByUseridAfter(@Param("userid") Integer userid, @Param("date") Date date,
+                                                 @Param("start") Time start, Pageable pageable);
+
+    @Query("SELECT a FROM user_availability a ORDER BY a.userid, a._date, a._start")
+    List<UserAvailability> findFirstPage(Pageable pageable);
+
+    @Query("SELECT a FROM user_availability a WHERE a.userid >= :userid " +
+            "AND (a.userid > :userid OR a._date > :date OR (a._date = :date AND a._start > :start)) " +
+            "ORDER BY a.userid, a._date, a._start")
+    List<UserAvailability> findPageAfter(@Param("userid") Integer userid, @Param("date") Date date,
+                                         @Param("start") Time start, Pageable pageable);
+
+    /**
+     * Streams the availability of the given users over a date range, ordered by date, user and start time.
+     * Must be consumed inside a transaction and the returned stream must be closed.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT a FROM user_availability a WHERE a.userid IN :userids AND a._date BETWEEN :from AND :to ORDER BY a._date, a.userid, a._start")
+    Stream<UserAvailability> streamByUseridInAndDateBetween(@Param("userids") Collection<Integer> userids, @Param("from") Date from, @Param("to") Date to);
+
+    /**
+     * Overlap of two users' slots on a date. Two slots overlap when each starts before the other ends, which also
+     * covers one slot containing the other, and both sides can range scan the (userid, _date, _start) index.
+     */
     @Query(value =
             "SELECT distinct\n" +
                     "\t\n" +
@@ -34,10 +76,7 @@ public interface IAvailabilityRepository extends JpaRepository<UserAvailability,
                     "FROM user_availability u1\n" +
                     "INNER JOIN user_availability u2\n" +
                     "ON u1.userid != u2.userid AND u1._date = u2._date\n" +
-                    "AND (\n" +
-                    "\tu1._start BETWEEN u2._start AND u2._end \n" +
-                    "\tOR u1._end BETWEEN u2._start AND u2._end\n" +
-                    ")\n" +
+                    "AND u1._start < u2._end AND u1._end > u2._start\n" +
                     "WHERE u1._date = :date AND u1.userid = :user1 AND u2.userid= :user2"
     )
     Page<OverlappingAvailability> findOverlappingAvailabilityForDate(@Param("user1") Integer user1, @Param("user2") Integer user2, @Param("date") Date date, Pageable pageable);
@@ -0,0 +1,63 @@
+package co.harbor.calendly.repository;
+
+import co.harbor.calendly.entity.Booking;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.util.List;
+
+/**
+ * Repository for {@link Booking} entity.
+ */
+@Transactional(readOnly = true)
+public interface IBookingRepository extends JpaRepository<Booking, Integer> {
+
+    List<Booking> findByReference(@Param("reference") String reference);
+
+    @Query("SELECT b FROM booking b WHERE b.userid = :userid AND b._date = :date ORDER BY b._start")
+    List<Booking> findByUseridAndDate(@Param("userid") Integer userid, @Param("date") Date date);
+
+    /**
+     * Inserts the {@link co.harbor.calendly.entity.BookingDay} row of a user and date unless it exists. Two concurrent
+     * inserts of the same row fail the second with a unique constraint violation.
+     *
+     * @return 1 when the row was inserted, 0 when it already existed
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO booking_day (userid, _date) " +
+            "SELECT CAST(:userid AS INT), CAST(:date AS DATE) FROM DUAL " +
+            "WHERE NOT EXISTS (SELECT 1 FROM booking_day d WHERE d.userid = :userid AND d._date = :date)",
+            nativeQuery = true)
+    int insertDayIfAbsent(@Param("userid") Integer userid, @Param("date") Date date);
+
+    /**
+     * Locks the {@link co.harbor.calendly.entity.BookingDay} row of a user and date until the calling transaction
+     * completes, so bookings of that day on every instance sharing the database run one at a time.
+     *
+     * @return the id of the row, null when there is none
+     */
+    @Transactional
+    @Query(value = "SELECT id FROM booking_day WHERE userid = :userid AND _date = :date FOR UPDATE", nativeQuery = true)
+    Integer lockDay(@Param("userid") Integer userid, @Param("date") Date date);
+
+    /**
+     * Inserts a booking unless the user already has a booking overlapping it on that date, as a single statement. The
+     * check only excludes concurrent bookings from other instances while the day is locked with {@link #lockDay}.
+     *
+     * @return 1 when the booking was inserted, 0 otherwise
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO booking (reference, userid, _date, _start, _end) " +
+            "SELECT CAST(:reference AS VARCHAR(255)), CAST(:userid AS INT), CAST(:date AS DATE), CAST(:start AS TIME), CAST(:end AS TIME) FROM DUAL " +
+            "WHERE NOT EXISTS (SELECT 1 FROM booking b WHERE b.userid = :userid AND b._date = :date AND b._start < :end AND b._end > :start)",
+            nativeQuery = true)
+    int insertIfFree(@Param("reference") String reference, @Param("userid") Integer userid, @Param("date") Date date,
+                     @Param("start") Time start, @Param("end") Time end);
+}
@@ -0,0 +1,21 @@
+package co.harbor.calendly.repository;
+
+import co.harbor.calendly.entity.RecurringAvailabilityException;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for {@link RecurringAvailabilityException} entity.
+ */
+@Transactional(readOnly = true)
+public interface IRecurringAvailabilityExceptionRepository extends JpaRepository<RecurringAvailabilityException, Integer> {
+
+    @Query("SELECT e FROM recurring_availability_exception e WHERE e.ruleid IN :ruleids AND e._date BETWEEN :from AND :to")
+    List<RecurringAvailabilityException> findExceptions(@Param("ruleids") Collection<Integer> ruleids, @Param("from") Date from, @Param("to") Date to);
+}
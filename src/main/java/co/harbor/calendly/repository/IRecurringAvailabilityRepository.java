@@ -0,0 +1,30 @@
+package co.harbor.calendly.repository;
+
+import co.harbor.calendly.entity.RecurringAvailability;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for {@link RecurringAvailability} rules.
+ */
+@Transactional(readOnly = true)
+public interface IRecurringAvailabilityRepository extends JpaRepository<RecurringAvailability, Integer> {
+
+    /**
+     * Finds the rules of the given users that are active at some point between two dates, inclusive.
+     */
+    @Query("SELECT r FROM recurring_availability r WHERE r.userid IN :userids AND r.startdate <= :to AND (r.enddate IS NULL OR r.enddate >= :from)")
+    List<RecurringAvailability> findActiveRules(@Param("userids") Collection<Integer> userids, @Param("from") Date from, @Param("to") Date to);
+
+    /**
+     * Finds every user's rules that are active at some point between two dates, inclusive.
+     */
+    @Query("SELECT r FROM recurring_availability r WHERE r.startdate <= :to AND (r.enddate IS NULL OR r.enddate >= :from)")
+    List<RecurringAvailability> findAllActiveRules(@Param("from") Date from, @Param("to") Date to);
+}
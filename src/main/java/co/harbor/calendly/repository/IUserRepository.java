@@ -1,13 +1,82 @@
 package co.harbor.calendly.repository;
 
+import co.harbor.calendly.config.EvictUsers;
 import co.harbor.calendly.entity.User;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
+import java.util.Optional;
+
+import static co.harbor.calendly.config.CacheConfig.USERS_BY_EMAIL;
+import static co.harbor.calendly.config.CacheConfig.USERS_BY_ID;
+
 /**
  * Repository for {@link User} entity. Provides custom CRUD operations for user.
+ * Lookups by id and by email are cached; unknown users are not, so a user added later is found right away. The caches
+ * hold copies of the users, see {@link co.harbor.calendly.config.CacheConfig}, and every method writing users drops
+ * both of them.
  */
 public interface IUserRepository extends JpaRepository<User, Integer> {
 
+    @Cacheable(cacheNames = USERS_BY_EMAIL, unless = "#result == null")
     User findByEmailId(String email);
 
+    // Keyset pagination in id order
+    List<User> findByIdGreaterThanOrderByIdAsc(Integer id, Pageable pageable);
+
+    @Cacheable(cacheNames = USERS_BY_ID, unless = "#result == null")
+    @Override
+    Optional<User> findById(Integer id);
+
+    // Saving users with ids updates them, the rare user writes drop both caches. The deprecated deleteInBatch calls
+    // deleteAllInBatch through the proxy, so it evicts too
+    @EvictUsers
+    @Override
+    <S extends User> S save(S entity);
+
+    @EvictUsers
+    @Override
+    <S extends User> S saveAndFlush(S entity);
+
+    @EvictUsers
+    @Override
+    <S extends User> List<S> saveAll(Iterable<S> entities);
+
+    @EvictUsers
+    @Override
+    <S extends User> List<S> saveAllAndFlush(Iterable<S> entities);
+
+    @EvictUsers
+    @Override
+    void delete(User entity);
+
+    @EvictUsers
+    @Override
+    void deleteById(Integer id);
+
+    @EvictUsers
+    @Override
+    void deleteAllById(Iterable<? extends Integer> ids);
+
+    @EvictUsers
+    @Override
+    void deleteAll(Iterable<? extends User> entities);
+
+    @EvictUsers
+    @Override
+    void deleteAll();
+
+    @EvictUsers
+    @Override
+    void deleteAllInBatch(Iterable<User> entities);
+
+    @EvictUsers
+    @Override
+    void deleteAllByIdInBatch(Iterable<Integer> ids);
+
+    @EvictUsers
+    @Override
+    void deleteAllInBatch();
 }
@@ -0,0 +1,115 @@
+package co.harbor.calendly.repository;
+
+import co.harbor.calendly.entity.RecurringAvailability;
+import co.harbor.calendly.entity.RecurringAvailabilityException;
+import co.harbor.calendly.entity.UserAvailability;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Row;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import javax.annotation.PostConstruct;
+import java.sql.Date;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
+
+/**
+ * Non-blocking reads of availability and recurring rules through R2DBC, for the reactive API. Rows are emitted as they
+ * are fetched and only as fast as the subscriber requests them. Writes go through the JPA repositories.
+ */
+@Repository
+public class ReactiveAvailabilityRepository {
+
+    private static final String AVAILABILITY_SQL = "SELECT id, _date, _start, _end, userid FROM user_availability " +
+            "WHERE userid IN (:userids) AND _date BETWEEN :from AND :to ORDER BY _date, userid, _start";
+
+    private static final String ACTIVE_RULES_SQL = "SELECT id, userid, startdate, enddate, _start, _end, frequency, every_n " +
+            "FROM recurring_availability WHERE userid IN (:userids) AND startdate <= :to AND (enddate IS NULL OR enddate >= :from)";
+
+    private static final String EXCEPTIONS_SQL = "SELECT id, ruleid, _date, _start, _end FROM recurring_availability_exception " +
+            "WHERE ruleid IN (:ruleids) AND _date BETWEEN :from AND :to";
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    private DatabaseClient databaseClient;
+
+    @PostConstruct
+    void init() {
+        databaseClient = DatabaseClient.create(connectionFactory);
+    }
+
+    /**
+     * Streams the availability of the given users over a date range, ordered by date, user and start time.
+     */
+    public Flux<UserAvailability> findByUseridInAndDateBetween(Collection<Integer> userids, Date from, Date to) {
+        return databaseClient.sql(AVAILABILITY_SQL)
+                .bind("userids", userids)
+                .bind("from", from.toLocalDate())
+                .bind("to", to.toLocalDate())
+                .map((row, metadata) -> {
+                    UserAvailability availability = new UserAvailability();
+                    availability.setId(row.get("id", Integer.class));
+                    availability.set_date(date(row, "_date"));
+                    availability.set_start(time(row, "_start"));
+                    availability.set_end(time(row, "_end"));
+                    availability.setUserid(row.get("userid", Integer.class));
+                    return availability;
+                })
+                .all();
+    }
+
+    /**
+     * Finds the rules of the given users that are active at some point between two dates, inclusive.
+     */
+    public Flux<RecurringAvailability> findActiveRules(Collection<Integer> userids, Date from, Date to) {
+        return databaseClient.sql(ACTIVE_RULES_SQL)
+                .bind("userids", userids)
+                .bind("from", from.toLocalDate())
+                .bind("to", to.toLocalDate())
+                .map((row, metadata) -> {
+                    RecurringAvailability rule = new RecurringAvailability();
+                    rule.setId(row.get("id", Integer.class));
+                    rule.setUserid(row.get("userid", Integer.class));
+                    rule.setStartdate(date(row, "startdate"));
+                    rule.setEnddate(date(row, "enddate"));
+                    rule.set_start(time(row, "_start"));
+                    rule.set_end(time(row, "_end"));
+                    rule.setFrequency(row.get("frequency", String.class));
+                    rule.setEvery(row.get("every_n", Integer.class));
+                    return rule;
+                })
+                .all();
+    }
+
+    public Flux<RecurringAvailabilityException> findExceptions(Collection<Integer> ruleids, Date from, Date to) {
+        return databaseClient.sql(EXCEPTIONS_SQL)
+                .bind("ruleids", ruleids)
+                .bind("from", from.toLocalDate())
+                .bind("to", to.toLocalDate())
+                .map((row, metadata) -> {
+                    RecurringAvailabilityException exception = new RecurringAvailabilityException();
+                    exception.setId(row.get("id", Integer.class));
+                    exception.setRuleid(row.get("ruleid", Integer.class));
+                    exception.set_date(date(row, "_date"));
+                    exception.set_start(time(row, "_start"));
+                    exception.set_end(time(row, "_end"));
+                    return exception;
+                })
+                .all();
+    }
+
+    private static Date date(Row row, String column) {
+        LocalDate date = row.get(column, LocalDate.class);
+        return date == null ? null : Date.valueOf(date);
+    }
+
+    private static Time time(Row row, String column) {
+        LocalTime time = row.get(column, LocalTime.class);
+        return time == null ? null : Time.valueOf(time);
+    }
+}
@@ -0,0 +1,246 @@
+package co.harbor.calendly.repository;
+
+import co.harbor.calendly.metrics.AvailabilityMetrics;
+import co.harbor.calendly.utils.ColumnBlock;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static co.harbor.calendly.repository.AvailabilityBatchRepository.BATCH_SIZE;
+import static co.harbor.calendly.utils.ColumnBlock.Type.*;
+
+/**
+ * Snapshots of every table, users, availability and recurring rules with their exceptions, in a compact columnar file
+ * made of {@link ColumnBlock}s. Rows are read with streamed queries ordered so that consecutive ids, users and dates
+ * differ little, and are written through a {@link FileChannel} one compressed block at a time. A snapshot is restored
+ * from a memory-mapped view of the file with JDBC batch inserts that keep the ids.
+ * <p>
+ * A snapshot starts with {@link #MAGIC} and a version byte, followed by a section per table: its name as a length
+ * prefixed UTF-8 string, then its blocks up to an empty block.
+ */
+@Repository
+public class SnapshotRepository {
+
+    public static final int BLOCK_ROWS = 65536;
+
+    private static final byte[] MAGIC = "CALSNAP".getBytes(StandardCharsets.US_ASCII);
+    private static final byte VERSION = 2;
+    // Snapshots of version 1 were taken before bookings, they hold the first tables only
+    private static final int VERSION_1_TABLES = 4;
+
+    private static final List<Table> TABLES = Arrays.asList(
+            new Table("user", "id", new String[]{"id", "fname", "lname", "email"},
+                    INT, STRING, STRING, STRING),
+            new Table("user_availability", "userid, _date, _start, id", new String[]{"userid", "_date", "_start", "_end", "id"},
+                    INT, DATE, TIME, TIME, INT),
+            new Table("recurring_availability", "userid, id", new String[]{"userid", "id", "startdate", "enddate", "_start", "_end", "frequency", "every_n"},
+                    INT, INT, DATE, DATE, TIME, TIME, STRING, INT),
+            new Table("recurring_availability_exception", "ruleid, _date, id", new String[]{"ruleid", "_date", "_start", "_end", "id"},
+                    INT, DATE, TIME, TIME, INT),
+            new Table("booking", "userid, _date, _start, id", new String[]{"userid", "_date", "_start", "_end", "id", "reference"},
+                    INT, DATE, TIME, TIME, INT, STRING));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AvailabilityMetrics availabilityMetrics;
+
+    /**
+     * Writes every table to a new file, all read in one SERIALIZABLE transaction. Under the default READ COMMITTED
+     * every query would see the rows committed when it started, so a write committed between two tables could be in
+     * one but not the other, e.g. a booking without the availability it took.
+     *
+     * @return the rows written per table
+     */
+    @Transactional(readOnly = true, isolation = Isolation.SERIALIZABLE)
+    public Map<String, Long> export(Path file) throws IOException {
+        Map<String, Long> rows = new LinkedHashMap<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(MAGIC.length + 1);
+            header.put(MAGIC).put(VERSION).flip();
+            writeFully(channel, header);
+            for (Table table : TABLES) {
+                rows.put(table.name, exportTable(table, channel));
+            }
+            channel.force(true);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return rows;
+    }
+
+    /**
+     * Replaces the content of every table with the snapshot in the given file, in one transaction. Ids are kept, so
+     * {@link #restartIds()} must be called once the transaction committed.
+     *
+     * @return the rows restored per table
+     * @throws IllegalArgumentException when the file is not a valid snapshot
+     */
+    @Transactional
+    public Map<String, Long> restore(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Snapshots larger than 2 GB can't be restored");
+            }
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            try {
+                return restore(in);
+            } catch (BufferUnderflowException e) {
+                throw new IllegalArgumentException("Truncated snapshot", e);
+            }
+        }
+    }
+
+    /**
+     * Makes ids generated from now on follow the largest restored ids. H2 commits any open transaction on DDL,
+     * so this runs on its own.
+     */
+    public void restartIds() {
+        for (Table table : TABLES) {
+            Integer maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table.name, Integer.class);
+            jdbcTemplate.execute("ALTER TABLE " + table.name + " ALTER COLUMN id RESTART WITH " + (maxId == null ? 1 : maxId + 1));
+        }
+    }
+
+    private Map<String, Long> restore(ByteBuffer in) {
+        byte[] magic = new byte[MAGIC.length];
+        in.get(magic);
+        byte version = in.get();
+        if (!Arrays.equals(magic, MAGIC) || version < 1 || version > VERSION) {
+            throw new IllegalArgumentException("Not a snapshot, or one of another version");
+        }
+        for (int i = TABLES.size() - 1; i >= 0; i--) {
+            jdbcTemplate.update("DELETE FROM " + TABLES.get(i).name);
+        }
+
+        Map<String, Long> rows = new LinkedHashMap<>();
+        for (Table table : version == 1 ? TABLES.subList(0, VERSION_1_TABLES) : TABLES) {
+            byte[] name = new byte[in.getShort()];
+            in.get(name);
+            if (!table.name.equals(new String(name, StandardCharsets.UTF_8))) {
+                throw new IllegalArgumentException("Unexpected snapshot section " + new String(name, StandardCharsets.UTF_8));
+            }
+            Timer.Sample sample = availabilityMetrics.start();
+            long restored = 0;
+            List<Object[]> block;
+            while (!(block = ColumnBlock.decode(in, table.types)).isEmpty()) {
+                for (int from = 0; from < block.size(); from += BATCH_SIZE) {
+                    jdbcTemplate.batchUpdate(table.insertSql, block.subList(from, Math.min(block.size(), from + BATCH_SIZE)), table.sqlTypes);
+                }
+                restored += block.size();
+            }
+            availabilityMetrics.stopBatch(sample, "restore");
+            rows.put(table.name, restored);
+        }
+        return rows;
+    }
+
+    private long exportTable(Table table, FileChannel channel) throws IOException {
+        byte[] name = table.name.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer header = ByteBuffer.allocate(Short.BYTES + name.length);
+        header.putShort((short) name.length).put(name).flip();
+        writeFully(channel, header);
+
+        Timer.Sample sample = availabilityMetrics.start();
+        ColumnBlock block = new ColumnBlock(table.types);
+        long[] rows = {0};
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(table.selectSql);
+            statement.setFetchSize(BATCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) resultSet -> {
+            block.add(read(resultSet, table.types));
+            rows[0]++;
+            if (block.size() == BLOCK_ROWS) {
+                writeUnchecked(channel, block.encode());
+            }
+        });
+        if (block.size() > 0) {
+            writeFully(channel, block.encode());
+        }
+        writeFully(channel, ColumnBlock.end());
+        availabilityMetrics.rowsRead("snapshot", rows[0]);
+        availabilityMetrics.stopBatch(sample, "snapshot");
+        return rows[0];
+    }
+
+    private static Object[] read(ResultSet resultSet, ColumnBlock.Type[] types) throws SQLException {
+        Object[] row = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            switch (types[i]) {
+                case INT:
+                    int value = resultSet.getInt(i + 1);
+                    row[i] = resultSet.wasNull() ? null : value;
+                    break;
+                case DATE:
+                    row[i] = resultSet.getDate(i + 1);
+                    break;
+                case TIME:
+                    row[i] = resultSet.getTime(i + 1);
+                    break;
+                default:
+                    row[i] = resultSet.getString(i + 1);
+            }
+        }
+        return row;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    // For the row callback, which can't throw IOException
+    private static void writeUnchecked(FileChannel channel, ByteBuffer buffer) {
+        try {
+            writeFully(channel, buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class Table {
+
+        private final String name;
+        private final ColumnBlock.Type[] types;
+        private final int[] sqlTypes;
+        private final String selectSql;
+        private final String insertSql;
+
+        Table(String name, String orderBy, String[] columns, ColumnBlock.Type... types) {
+            this.name = name;
+            this.types = types;
+            this.sqlTypes = new int[types.length];
+            for (int i = 0; i < types.length; i++) {
+                sqlTypes[i] = types[i] == INT ? Types.INTEGER : types[i] == DATE ? Types.DATE : types[i] == TIME ? Types.TIME : Types.VARCHAR;
+            }
+            String columnList = String.join(", ", columns);
+            this.selectSql = "SELECT " + columnList + " FROM " + name + " ORDER BY " + orderBy;
+            this.insertSql = "INSERT INTO " + name + " (" + columnList + ") VALUES (" + "?, ".repeat(columns.length - 1) + "?)";
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package co.harbor.calendly.repository;
+
+import co.harbor.calendly.entity.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static co.harbor.calendly.repository.AvailabilityBatchRepository.BATCH_SIZE;
+
+/**
+ * JDBC batch writes for {@link User}, for bulk imports. IDENTITY id generation disables Hibernate's insert batching,
+ * so users are inserted through {@link JdbcTemplate} batches instead.
+ */
+@Repository
+public class UserBatchRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO user (fname, lname, email) VALUES (?, ?, ?)";
+    private static final String EXISTING_EMAILS_SQL = "SELECT email FROM user WHERE email IN (:emails)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @PostConstruct
+    void init() {
+        namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    /**
+     * Inserts the given users in one transaction, all or none of them.
+     */
+    @Transactional
+    public void insertAll(Collection<User> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, users, BATCH_SIZE, (ps, user) -> {
+            ps.setString(1, user.getFirstName());
+            ps.setString(2, user.getLastName());
+            ps.setString(3, user.getEmailId());
+        });
+    }
+
+    /**
+     * Returns which of the given email ids already belong to a user.
+     */
+    public Set<String> findExistingEmailIds(Collection<String> emailIds) {
+        if (emailIds.isEmpty()) {
+            return new HashSet<>();
+        }
+        return new HashSet<>(namedParameterJdbcTemplate.queryForList(EXISTING_EMAILS_SQL,
+                Collections.singletonMap("emails", emailIds), String.class));
+    }
+}
@@ -0,0 +1,287 @@
+package co.harbor.calendly.utils;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Time;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A block of table rows stored column by column and compressed, the unit of calendar snapshots.
+ * <p>
+ * Numbers are stored as varints: ints as they are, dates as epoch days and times as seconds of the day, each as the
+ * zigzag encoded difference to the previous value of its column, so sorted ids and dates take a single byte per row.
+ * 0 stands for null, every other value is shifted by one. Strings are stored as their UTF-8 length plus one, 0 for
+ * null, followed by their bytes. Keeping a column's values together makes them compress well with {@link Deflater}.
+ * <p>
+ * An encoded block is {@code rows, raw length, compressed length} as big endian ints followed by the compressed
+ * columns, each prefixed with its length as a varint. A block with 0 rows ends a sequence of blocks. Every block is
+ * decoded on its own, and its lengths are checked against the bytes that are left before anything is allocated.
+ */
+public final class ColumnBlock {
+
+    public enum Type {
+        INT, DATE, TIME, STRING
+    }
+
+    private static final int HEADER_BYTES = 3 * Integer.BYTES;
+    // Far above a snapshot block of 65536 rows, a larger header is corrupt and would only exhaust memory
+    private static final int MAX_RAW_BYTES = 1 << 28;
+
+    private final Type[] types;
+    private final Column[] columns;
+    private int rows;
+
+    public ColumnBlock(Type... types) {
+        this.types = types;
+        this.columns = new Column[types.length];
+        for (int i = 0; i < types.length; i++) {
+            columns[i] = new Column();
+        }
+    }
+
+    /**
+     * Adds a row, whose values are {@link Integer}, {@link Date}, {@link Time}, {@link String} or null according to
+     * the column types.
+     */
+    public void add(Object[] row) {
+        for (int i = 0; i < types.length; i++) {
+            Column column = columns[i];
+            Object value = row[i];
+            if (types[i] == Type.STRING) {
+                if (value == null) {
+                    column.bytes.writeVarLong(0);
+                } else {
+                    byte[] utf8 = ((String) value).getBytes(StandardCharsets.UTF_8);
+                    column.bytes.writeVarLong(utf8.length + 1L);
+                    column.bytes.write(utf8);
+                }
+            } else if (value == null) {
+                column.bytes.writeVarLong(0);
+            } else {
+                long number = toNumber(types[i], value);
+                column.bytes.writeVarLong(zigzag(number - column.previous) + 1);
+                column.previous = number;
+            }
+        }
+        rows++;
+    }
+
+    public int size() {
+        return rows;
+    }
+
+    /**
+     * Encodes and compresses the rows added so far and empties the block.
+     */
+    public ByteBuffer encode() {
+        Bytes raw = new Bytes();
+        for (Column column : columns) {
+            raw.writeVarLong(column.bytes.size);
+            raw.write(column.bytes.data, column.bytes.size);
+        }
+
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        deflater.setInput(raw.data, 0, raw.size);
+        deflater.finish();
+        byte[] compressed = new byte[Math.max(64, raw.size + raw.size / 1000 + 64)];
+        int compressedLength = 0;
+        while (!deflater.finished()) {
+            if (compressedLength == compressed.length) {
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            }
+            compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+        }
+        deflater.end();
+
+        ByteBuffer block = ByteBuffer.allocate(HEADER_BYTES + compressedLength);
+        block.putInt(rows).putInt(raw.size).putInt(compressedLength).put(compressed, 0, compressedLength).flip();
+        clear();
+        return block;
+    }
+
+    /**
+     * The block that ends a sequence of blocks.
+     */
+    public static ByteBuffer end() {
+        ByteBuffer block = ByteBuffer.allocate(HEADER_BYTES);
+        block.putInt(0).putInt(0).putInt(0).flip();
+        return block;
+    }
+
+    /**
+     * Decodes the block at the position of the buffer and moves past it.
+     *
+     * @return the rows of the block, none at the end of a sequence of blocks
+     * @throws IllegalArgumentException when the buffer does not hold a valid block
+     */
+    public static List<Object[]> decode(ByteBuffer in, Type... types) {
+        if (in.remaining() < HEADER_BYTES) {
+            throw new IllegalArgumentException("Truncated snapshot block");
+        }
+        int rows = in.getInt();
+        int rawLength = in.getInt();
+        int compressedLength = in.getInt();
+        if (rows == 0) {
+            return new ArrayList<>();
+        }
+        // Every row takes at least a byte per column
+        if (rows < 0 || rawLength < (long) rows * types.length || rawLength > MAX_RAW_BYTES || compressedLength < 0) {
+            throw new IllegalArgumentException("Corrupt snapshot block header");
+        }
+        if (compressedLength > in.remaining()) {
+            throw new IllegalArgumentException("Truncated snapshot block");
+        }
+
+        byte[] raw;
+        Inflater inflater = new Inflater();
+        try {
+            byte[] compressed = new byte[compressedLength];
+            in.get(compressed);
+            raw = new byte[rawLength];
+            inflater.setInput(compressed);
+            if (inflater.inflate(raw) != rawLength || !inflater.finished()) {
+                throw new IllegalArgumentException("Truncated snapshot block");
+            }
+        } catch (DataFormatException | NegativeArraySizeException e) {
+            throw new IllegalArgumentException("Corrupt snapshot block", e);
+        } finally {
+            inflater.end();
+        }
+
+        try {
+            return decodeColumns(ByteBuffer.wrap(raw), rows, types);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Corrupt snapshot block", e);
+        }
+    }
+
+    private static List<Object[]> decodeColumns(ByteBuffer columns, int rows, Type... types) {
+        List<Object[]> decoded = new ArrayList<>(rows);
+        for (int r = 0; r < rows; r++) {
+            decoded.add(new Object[types.length]);
+        }
+        for (int i = 0; i < types.length; i++) {
+            long length = readVarLong(columns);
+            if (length < 0 || length > columns.remaining()) {
+                throw new IllegalArgumentException("Corrupt snapshot column");
+            }
+            ByteBuffer column = columns.slice();
+            column.limit((int) length);
+            columns.position(columns.position() + (int) length);
+            long previous = 0;
+            for (Object[] row : decoded) {
+                long encoded = readVarLong(column);
+                if (encoded == 0) {
+                    continue;
+                }
+                if (types[i] == Type.STRING) {
+                    if (encoded < 0 || encoded - 1 > column.remaining()) {
+                        throw new IllegalArgumentException("Corrupt snapshot string");
+                    }
+                    byte[] utf8 = new byte[(int) encoded - 1];
+                    column.get(utf8);
+                    row[i] = new String(utf8, StandardCharsets.UTF_8);
+                } else {
+                    previous += unzigzag(encoded - 1);
+                    row[i] = fromNumber(types[i], previous);
+                }
+            }
+        }
+        return decoded;
+    }
+
+    private void clear() {
+        for (Column column : columns) {
+            column.bytes.size = 0;
+            column.previous = 0;
+        }
+        rows = 0;
+    }
+
+    private static long toNumber(Type type, Object value) {
+        switch (type) {
+            case DATE:
+                return TimeUtils.toEpochDay((Date) value);
+            case TIME:
+                return TimeUtils.toSecondOfDay((Time) value);
+            default:
+                return ((Number) value).longValue();
+        }
+    }
+
+    private static Object fromNumber(Type type, long number) {
+        switch (type) {
+            case DATE:
+                return TimeUtils.toDate(number);
+            case TIME:
+                return TimeUtils.toTime((int) number);
+            default:
+                return (int) number;
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+            if (shift > 56) {
+                throw new IllegalArgumentException("Corrupt varint in snapshot block");
+            }
+        }
+    }
+
+    private static final class Column {
+        private final Bytes bytes = new Bytes();
+        private long previous;
+    }
+
+    // Growable byte array with varint writes
+    private static final class Bytes {
+        private byte[] data = new byte[256];
+        private int size;
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                data[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[size++] = (byte) value;
+        }
+
+        void write(byte[] bytes) {
+            write(bytes, bytes.length);
+        }
+
+        void write(byte[] bytes, int length) {
+            ensure(length);
+            System.arraycopy(bytes, 0, data, size, length);
+            size += length;
+        }
+
+        private void ensure(int length) {
+            if (size + length > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, size + length));
+            }
+        }
+    }
+}
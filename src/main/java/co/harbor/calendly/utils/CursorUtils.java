@@ -0,0 +1,44 @@
+package co.harbor.calendly.utils;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+import static co.harbor.calendly.constants.Constants.INVALID_CURSOR_ERROR_MSG;
+
+/**
+ * Opaque continuation tokens of keyset pagination. A token is the sort key of the last row of a page, packed as ints
+ * and URL safe Base64 encoded, so clients can pass it back as is without depending on what it holds.
+ */
+public class CursorUtils {
+
+    public static String encode(int... key) {
+        ByteBuffer buffer = ByteBuffer.allocate(key.length * Integer.BYTES);
+        for (int value : key) {
+            buffer.putInt(value);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode(int...)} for a key of the given length.
+     *
+     * @throws IllegalArgumentException when the token is not such a token
+     */
+    public static int[] decode(String cursor, int length) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(INVALID_CURSOR_ERROR_MSG, e);
+        }
+        if (bytes.length != length * Integer.BYTES) {
+            throw new IllegalArgumentException(INVALID_CURSOR_ERROR_MSG);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int[] key = new int[length];
+        for (int i = 0; i < length; i++) {
+            key[i] = buffer.getInt();
+        }
+        return key;
+    }
+}
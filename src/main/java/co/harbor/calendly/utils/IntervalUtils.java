@@ -0,0 +1,193 @@
+package co.harbor.calendly.utils;
+
+import co.harbor.calendly.model.Slot;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Interval algorithms over primitive second-of-day windows.
+ * A window list is a flat, sorted {@code int[]} of {@code [start0, end0, start1, end1, ...]} half-open windows.
+ * Slots are packed {@link Slot} longs.
+ */
+public class IntervalUtils {
+
+    private static final int[] EMPTY = new int[0];
+
+    /**
+     * Subtracts the window {@code [start, end)} from a slot and writes what is left of it to {@code out}.
+     * There are 4 cases of overlap
+     * Case 1. No overlap, the slot is written unchanged
+     * Case 2. The window covers the slot, nothing is written
+     * Case 3. The window is contained within the slot, the fragments before and after it are written
+     * Case 4. The window partially overlaps the slot, the fragment outside of it is written
+     *
+     * @param slot the existing slot
+     * @param start start of the window to remove, second-of-day
+     * @param end end of the window to remove, second-of-day
+     * @param out receives the remaining fragments, needs room for two
+     * @param offset position in {@code out} of the first fragment
+     * @return number of fragments written, 0 to 2
+     */
+    public static int subtract(long slot, int start, int end, long[] out, int offset) {
+        int epochDay = Slot.epochDay(slot);
+        int slotStart = Slot.start(slot);
+        int slotEnd = Slot.end(slot);
+        if (start >= slotEnd || end <= slotStart) {
+            out[offset] = slot;
+            return 1;
+        }
+        int count = 0;
+        if (slotStart < start) {
+            out[offset + count++] = Slot.of(epochDay, slotStart, start);
+        }
+        if (end < slotEnd) {
+            out[offset + count++] = Slot.of(epochDay, end, slotEnd);
+        }
+        return count;
+    }
+
+    /**
+     * Subtracts a set of windows from a slot and writes what is left of it to {@code out}.
+     * The slot is written unchanged when no window overlaps it, so callers can tell untouched slots apart with
+     * {@code count == 1 && out[offset] == slot}.
+     *
+     * @param slot the existing slot
+     * @param windows sorted, disjoint windows to remove, see {@link #union(int[])}
+     * @param out receives the remaining fragments, needs room for {@code windows.length / 2 + 1}
+     * @param offset position in {@code out} of the first fragment
+     * @return number of fragments written
+     */
+    public static int subtractAll(long slot, int[] windows, long[] out, int offset) {
+        int epochDay = Slot.epochDay(slot);
+        int slotEnd = Slot.end(slot);
+        int cursor = Slot.start(slot);
+        int count = 0;
+        boolean changed = false;
+        for (int i = 0; i < windows.length && cursor < slotEnd; i += 2) {
+            int start = windows[i];
+            int end = windows[i + 1];
+            if (end <= cursor) {
+                continue;
+            }
+            if (start >= slotEnd) {
+                break;
+            }
+            if (start > cursor) {
+                out[offset + count++] = Slot.of(epochDay, cursor, start);
+            }
+            cursor = end;
+            changed = true;
+        }
+        if (!changed) {
+            out[offset] = slot;
+            return 1;
+        }
+        if (cursor < slotEnd) {
+            out[offset + count++] = Slot.of(epochDay, cursor, slotEnd);
+        }
+        return count;
+    }
+
+    /**
+     * Sorts and merges arbitrary windows into a sorted, disjoint window list. Empty or inverted windows are dropped.
+     *
+     * @param windows flat {@code [start0, end0, start1, end1, ...]} windows in any order
+     * @return sorted, disjoint windows
+     */
+    public static int[] union(int[] windows) {
+        long[] packed = new long[windows.length / 2];
+        int count = 0;
+        for (int i = 0; i + 1 < windows.length; i += 2) {
+            if (windows[i] >= 0 && windows[i] < windows[i + 1]) {
+                packed[count++] = (long) windows[i] << 32 | windows[i + 1];
+            }
+        }
+        Arrays.sort(packed, 0, count);
+
+        int[] union = new int[count * 2];
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            int start = (int) (packed[i] >>> 32);
+            int end = (int) packed[i];
+            if (size > 0 && start <= union[size - 1]) {
+                union[size - 1] = Math.max(union[size - 1], end);
+            } else {
+                union[size++] = start;
+                union[size++] = end;
+            }
+        }
+        return size == union.length ? union : Arrays.copyOf(union, size);
+    }
+
+    /**
+     * Intersects the free windows of several users with a k-way sweep-line merge.
+     * Each input must be sorted and disjoint (e.g. the union of a user's slots for a day). The boundaries of all
+     * lists are merged through a heap of size k and a window is emitted while all k users are free, so the cost is
+     * O(n log k) in the total number of windows instead of growing with the number of user pairs.
+     *
+     * @param windowLists one sorted, disjoint window list per user
+     * @return windows where every user is free, sorted
+     */
+    public static int[] intersectAll(List<int[]> windowLists) {
+        int k = windowLists.size();
+        if (k == 0) {
+            return EMPTY;
+        }
+        int total = 0;
+        for (int[] windows : windowLists) {
+            if (windows.length == 0) {
+                return EMPTY;
+            }
+            total += windows.length;
+        }
+
+        // cursor[i] is the next boundary of list i, even positions are starts and odd positions are ends
+        int[] cursor = new int[k];
+        PriorityQueue<Integer> heap = new PriorityQueue<>(k, (a, b) -> {
+            int timeA = windowLists.get(a)[cursor[a]];
+            int timeB = windowLists.get(b)[cursor[b]];
+            if (timeA != timeB) {
+                return Integer.compare(timeA, timeB);
+            }
+            // Ends sort before starts at the same time, touching windows don't overlap
+            return Integer.compare(cursor[b] & 1, cursor[a] & 1);
+        });
+        for (int i = 0; i < k; i++) {
+            heap.add(i);
+        }
+
+        int[] result = new int[Math.max(2, total / k)];
+        int size = 0;
+        int free = 0;
+        int windowStart = 0;
+        while (!heap.isEmpty()) {
+            int list = heap.poll();
+            int[] windows = windowLists.get(list);
+            int time = windows[cursor[list]];
+            boolean isStart = (cursor[list] & 1) == 0;
+
+            if (isStart) {
+                if (++free == k) {
+                    windowStart = time;
+                }
+            } else {
+                if (free-- == k && time > windowStart) {
+                    if (size + 2 > result.length) {
+                        result = Arrays.copyOf(result, result.length * 2);
+                    }
+                    result[size++] = windowStart;
+                    result[size++] = time;
+                }
+                if (cursor[list] == windows.length - 1) {
+                    // Once any user has no free time left nothing else can be common
+                    break;
+                }
+            }
+            cursor[list]++;
+            heap.add(list);
+        }
+        return Arrays.copyOf(result, size);
+    }
+}
@@ -0,0 +1,131 @@
+package co.harbor.calendly.utils;
+
+import java.sql.Time;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * A calendar date in a time zone and the span of time it covers. Availability is stored in UTC day buckets, and a local
+ * day is 23, 24 or 25 hours long and, unless its zone is at UTC+0, covers parts of two UTC days. The windows of those
+ * UTC days are shifted to seconds since the start of the local day, clipped to it and merged with {@link #merge}, so
+ * a window crossing UTC midnight comes back whole. {@link #toTime(int)} turns such seconds back into wall clock times.
+ * <p>
+ * As for stored slots, a window ending at 23:59:59 is taken to last until midnight, and a window lasting until the end
+ * of the local day ends at 23:59:59.
+ */
+public final class LocalDay {
+
+    private static final int SECONDS_PER_DAY = 86400;
+    private static final int LAST_SECOND = SECONDS_PER_DAY - 1;
+
+    private final LocalDate date;
+    private final ZoneRules rules;
+    private final long start;
+    private final long end;
+
+    private LocalDay(LocalDate date, ZoneRules rules, long start, long end) {
+        this.date = date;
+        this.rules = rules;
+        this.start = start;
+        this.end = end;
+    }
+
+    public static LocalDay of(LocalDate date, ZoneRules rules) {
+        return new LocalDay(date, rules, startOf(date, rules), startOf(date.plusDays(1), rules));
+    }
+
+    // Epoch second of the first instant of a date, which is later than midnight when midnight falls in a DST gap
+    private static long startOf(LocalDate date, ZoneRules rules) {
+        LocalDateTime midnight = date.atStartOfDay();
+        List<ZoneOffset> offsets = rules.getValidOffsets(midnight);
+        if (offsets.isEmpty()) {
+            ZoneOffsetTransition gap = rules.getTransition(midnight);
+            return gap.getInstant().getEpochSecond();
+        }
+        return midnight.toEpochSecond(offsets.get(0));
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    /**
+     * Returns the length of the day in seconds.
+     */
+    public int length() {
+        return (int) (end - start);
+    }
+
+    public int firstEpochDay() {
+        return (int) Math.floorDiv(start, SECONDS_PER_DAY);
+    }
+
+    public int lastEpochDay() {
+        return (int) Math.floorDiv(end - 1, SECONDS_PER_DAY);
+    }
+
+    /**
+     * Shifts the windows of a UTC day to seconds since the start of this day and clips them to it.
+     *
+     * @param epochDay the UTC day
+     * @param windows sorted, disjoint {@code [start0, end0, ...]} seconds of the UTC day
+     * @return sorted, disjoint windows in seconds since the start of this day
+     */
+    public int[] fromUtc(int epochDay, int[] windows) {
+        long shift = (long) epochDay * SECONDS_PER_DAY - start;
+        int[] local = new int[windows.length];
+        int size = 0;
+        for (int i = 0; i + 1 < windows.length; i += 2) {
+            int windowEnd = windows[i + 1] == LAST_SECOND ? SECONDS_PER_DAY : windows[i + 1];
+            long from = Math.max(0, windows[i] + shift);
+            long to = Math.min(length(), windowEnd + shift);
+            if (from < to) {
+                local[size++] = (int) from;
+                local[size++] = (int) to;
+            }
+        }
+        return size == local.length ? local : Arrays.copyOf(local, size);
+    }
+
+    /**
+     * Collects the windows of every UTC day this day covers and merges them into the day's windows, so that windows
+     * touching at UTC midnight become one.
+     *
+     * @param windowsOfUtcDay sorted, disjoint windows of a UTC day, by epoch day
+     * @return sorted, disjoint windows in seconds since the start of this day
+     */
+    public int[] merge(IntFunction<int[]> windowsOfUtcDay) {
+        int first = firstEpochDay();
+        int last = lastEpochDay();
+        if (first == last) {
+            return fromUtc(first, windowsOfUtcDay.apply(first));
+        }
+        int[] all = new int[0];
+        for (int epochDay = first; epochDay <= last; epochDay++) {
+            int[] local = fromUtc(epochDay, windowsOfUtcDay.apply(epochDay));
+            int size = all.length;
+            all = Arrays.copyOf(all, size + local.length);
+            System.arraycopy(local, 0, all, size, local.length);
+        }
+        return IntervalUtils.union(all);
+    }
+
+    /**
+     * Returns the wall clock time of a second since the start of this day, 23:59:59 for its end.
+     */
+    public Time toTime(int second) {
+        if (second >= length()) {
+            return TimeUtils.toTime(LAST_SECOND);
+        }
+        long epochSecond = start + second;
+        int offset = rules.getOffset(Instant.ofEpochSecond(epochSecond)).getTotalSeconds();
+        return TimeUtils.toTime((int) Math.floorMod(epochSecond + offset, (long) SECONDS_PER_DAY));
+    }
+}
@@ -1,18 +1,27 @@
 package co.harbor.calendly.utils;
 
 import java.sql.Date;
-import java.text.SimpleDateFormat;
+import java.sql.Time;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.time.ZoneId;
-import java.util.TimeZone;
+import java.time.format.DateTimeFormatter;
+import java.time.zone.ZoneRules;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static co.harbor.calendly.constants.Constants.INVALID_TIME_ZONE_ERROR_MSG;
 
 public class TimeUtils {
 
-    public static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd");
+    // Immutable and thread-safe, unlike SimpleDateFormat
+    public static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE;
     public static final String DEFAULT_TIME_ZONE = "UTC";
 
-    static {
-        DATE_FORMAT.setTimeZone(TimeZone.getTimeZone(ZoneId.of(DEFAULT_TIME_ZONE)));
-    }
+    // Rules of the time zones clients asked for, bounded since ids like "+05:30" and "GMT+5:30" name the same zone
+    private static final int MAX_CACHED_ZONES = 1024;
+    private static final ConcurrentMap<String, ZoneRules> ZONE_RULES = new ConcurrentHashMap<>();
 
     public static Date addDays(Date oldDate, int days) {
         if (null != oldDate) {
@@ -21,4 +30,55 @@ public class TimeUtils {
 
         return null;
     }
+
+    public static int toEpochDay(Date date) {
+        return (int) date.toLocalDate().toEpochDay();
+    }
+
+    public static Date toDate(long epochDay) {
+        return Date.valueOf(LocalDate.ofEpochDay(epochDay));
+    }
+
+    public static int toSecondOfDay(Time time) {
+        return time.toLocalTime().toSecondOfDay();
+    }
+
+    public static Time toTime(int secondOfDay) {
+        return Time.valueOf(LocalTime.ofSecondOfDay(secondOfDay));
+    }
+
+    /**
+     * Parses a {@code yyyy-MM-dd} date.
+     *
+     * @throws IllegalArgumentException when the date can't be parsed
+     */
+    public static LocalDate parseDate(String date) {
+        try {
+            return LocalDate.parse(date, DATE_FORMAT);
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the rules of a time zone, given as a region id such as {@code America/New_York} or as an offset such as
+     * {@code +05:30}. Rules are looked up once per id and cached.
+     *
+     * @throws IllegalArgumentException when the id is not a known time zone
+     */
+    public static ZoneRules zoneRules(String tz) {
+        ZoneRules rules = ZONE_RULES.get(tz);
+        if (rules != null) {
+            return rules;
+        }
+        try {
+            rules = ZoneId.of(tz).getRules();
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException(INVALID_TIME_ZONE_ERROR_MSG, e);
+        }
+        if (ZONE_RULES.size() < MAX_CACHED_ZONES) {
+            ZONE_RULES.putIfAbsent(tz, rules);
+        }
+        return rules;
+    }
 }
@@ -11,4 +11,48 @@ create table user_availability(
     _start time not null,
     _end time not null,
     userid int not null
-);
\ No newline at end of file
+);
+
+create index idx_user_availability_userid_date_start on user_availability(userid, _date, _start);
+
+create table recurring_availability(
+    id int auto_increment primary key,
+    userid int not null,
+    startdate date not null,
+    enddate date,
+    _start time not null,
+    _end time not null,
+    frequency varchar(20) not null,
+    every_n int not null default 1
+);
+
+create index idx_recurring_availability_userid on recurring_availability(userid);
+
+create table recurring_availability_exception(
+    id int auto_increment primary key,
+    ruleid int not null,
+    _date date not null,
+    _start time not null,
+    _end time not null
+);
+
+create index idx_recurring_availability_exception_rule_date on recurring_availability_exception(ruleid, _date);
+
+create table booking(
+    id int auto_increment primary key,
+    reference varchar(255),
+    _date date,
+    _start time,
+    _end time,
+    userid int
+);
+
+create index idx_booking_userid_date_start on booking(userid, _date, _start);
+create index idx_booking_reference on booking(reference);
+
+create table booking_day(
+    id int auto_increment primary key,
+    userid int not null,
+    _date date not null,
+    constraint uk_booking_day_userid_date unique (userid, _date)
+);
@@ -1,12 +1,59 @@
 package co.harbor.calendly;
 
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
+@AutoConfigureMockMvc
 public class CalendlyApplicationTests {
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private MockMvc mockMvc;
+
     @Test
     public void contextLoads() {
+        assertThat(entityManagerFactory.isOpen()).isTrue();
+    }
+
+    @Test
+    public void testJdbcAndR2dbcShareTheDatabase() {
+        jdbcTemplate.update("INSERT INTO user_availability (_date, _start, _end, userid) VALUES ('2023-09-20', '09:00:00', '10:00:00', 1601)");
+
+        Long rows = databaseClient.sql("SELECT COUNT(*) AS n FROM user_availability WHERE userid = 1601")
+                .map(row -> row.get("n", Long.class))
+                .one()
+                .block();
+        assertThat(rows).isEqualTo(1L);
+    }
+
+    @Test
+    public void testReactiveEndpointsStart() throws Exception {
+        MvcResult result = mockMvc.perform(get("/v1/reactive/availability").param("user_id", "1602").param("date", "2023-09-20"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
     }
 }
@@ -0,0 +1,34 @@
+package co.harbor.calendly;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "calendly.data-dir=target/test-data")
+@ActiveProfiles("persistent")
+public class PersistentProfileTests {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Test
+    public void testJdbcAndR2dbcOpenTheSameFile() {
+        jdbcTemplate.update("DELETE FROM user_availability WHERE userid = 1701");
+        jdbcTemplate.update("INSERT INTO user_availability (_date, _start, _end, userid) VALUES ('2023-09-21', '09:00:00', '10:00:00', 1701)");
+
+        Long rows = databaseClient.sql("SELECT COUNT(*) AS n FROM user_availability WHERE userid = 1701")
+                .map(row -> row.get("n", Long.class))
+                .one()
+                .block();
+        assertThat(rows).isEqualTo(1L);
+        assertThat(jdbcTemplate.queryForObject("SELECT DATABASE_PATH()", String.class)).contains("test-data");
+    }
+}
@@ -0,0 +1,34 @@
+package co.harbor.calendly;
+
+import co.harbor.calendly.entity.UserAvailability;
+
+import java.sql.Date;
+import java.sql.Time;
+
+/**
+ * Builders shared by the tests.
+ */
+public final class TestFixtures {
+
+    private TestFixtures() {
+    }
+
+    /**
+     * Returns an unsaved availability slot, dates as {@code yyyy-mm-dd} and times as {@code hh:mm:ss}.
+     */
+    public static UserAvailability newAvailability(String date, String start, String end, Integer userid) {
+        UserAvailability availability = new UserAvailability();
+        availability.set_date(Date.valueOf(date));
+        availability.set_start(Time.valueOf(start));
+        availability.set_end(Time.valueOf(end));
+        availability.setUserid(userid);
+        return availability;
+    }
+
+    /**
+     * Returns the second-of-day of a {@code hh:mm:ss} time.
+     */
+    public static int seconds(String time) {
+        return Time.valueOf(time).toLocalTime().toSecondOfDay();
+    }
+}
@@ -0,0 +1,163 @@
+package co.harbor.calendly.controller;
+
+import co.harbor.calendly.controller.helper.AvailabilityHelper;
+import co.harbor.calendly.utils.CursorUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static co.harbor.calendly.TestFixtures.newAvailability;
+import static co.harbor.calendly.constants.Constants.INVALID_CURSOR_ERROR_MSG;
+import static co.harbor.calendly.constants.Constants.INVALID_DATE_ERROR_MSG;
+import static co.harbor.calendly.constants.Constants.INVALID_DATE_RANGE_ERROR_MSG;
+import static co.harbor.calendly.constants.Constants.INVALID_TIME_ZONE_ERROR_MSG;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class AvailabilityControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AvailabilityHelper availabilityHelper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    public void testAvailabilityRangeStreamsOneLinePerSlot() throws Exception {
+        availabilityHelper.addAvailability(Arrays.asList(
+                newAvailability("2023-09-25", "09:00:00", "10:00:00", 2001),
+                newAvailability("2023-09-25", "14:00:00", "15:00:00", 2001),
+                newAvailability("2023-09-26", "11:00:00", "12:00:00", 2001)));
+
+        List<JsonNode> lines = stream(get("/v1/availability/range")
+                .param("user_id", "2001").param("from", "2023-09-25").param("to", "2023-09-26"));
+
+        assertThat(lines).hasSize(3);
+        assertThat(lines).extracting(line -> line.get("userid").asInt()).containsOnly(2001);
+        assertThat(lines).extracting(line -> line.get("_start").asText()).containsExactly("09:00:00", "14:00:00", "11:00:00");
+    }
+
+    @Test
+    public void testOverlapRangeStreamsOneLinePerWindow() throws Exception {
+        availabilityHelper.addAvailability(Arrays.asList(
+                newAvailability("2023-09-25", "09:00:00", "12:00:00", 2002),
+                newAvailability("2023-09-26", "09:00:00", "12:00:00", 2002),
+                newAvailability("2023-09-25", "10:00:00", "11:00:00", 2003),
+                newAvailability("2023-09-26", "11:30:00", "13:00:00", 2003)));
+
+        List<JsonNode> lines = stream(get("/v1/overlap/range")
+                .param("user1", "2002").param("user2", "2003").param("from", "2023-09-25").param("to", "2023-09-26"));
+
+        assertThat(lines).hasSize(2);
+        assertThat(lines).extracting(line -> line.get("overlappingStartTime").asText()).containsExactly("10:00:00", "11:30:00");
+        assertThat(lines).extracting(line -> line.get("overlappingEndTime").asText()).containsExactly("11:00:00", "12:00:00");
+    }
+
+    @Test
+    public void testEmptyRangeStreamsNothing() throws Exception {
+        assertThat(stream(get("/v1/availability/range")
+                .param("user_id", "2004").param("from", "2023-09-25").param("to", "2023-09-26"))).isEmpty();
+        assertThat(stream(get("/v1/overlap/range")
+                .param("user1", "2004").param("user2", "2005").param("from", "2023-09-25").param("to", "2023-09-26"))).isEmpty();
+    }
+
+    @Test
+    public void testInvalidRangesAreRejected() throws Exception {
+        mockMvc.perform(get("/v1/availability/range").param("user_id", "2001").param("from", "2023-09-26").param("to", "2023-09-25"))
+                .andExpect(status().isBadRequest())
+                .andExpect(status().reason(INVALID_DATE_RANGE_ERROR_MSG));
+        mockMvc.perform(get("/v1/availability/range").param("user_id", "2001").param("from", "2023-01-01").param("to", "2024-01-03"))
+                .andExpect(status().isBadRequest())
+                .andExpect(status().reason(INVALID_DATE_RANGE_ERROR_MSG));
+        mockMvc.perform(get("/v1/overlap/range").param("user1", "2002").param("user2", "2003").param("from", "2023-09-26").param("to", "2023-09-25"))
+                .andExpect(status().isBadRequest())
+                .andExpect(status().reason(INVALID_DATE_RANGE_ERROR_MSG));
+        mockMvc.perform(get("/v1/overlap/range").param("user1", "2002").param("user2", "2003").param("from", "not-a-date").param("to", "2023-09-25"))
+                .andExpect(status().isBadRequest())
+                .andExpect(status().reason(INVALID_DATE_ERROR_MSG));
+    }
+
+    @Test
+    public void testRangeQueriesAnswerForLocalDaysOfATimeZone() throws Exception {
+        availabilityHelper.addAvailability(Arrays.asList(
+                newAvailability("2023-10-03", "22:00:00", "23:59:59", 2601),
+                newAvailability("2023-10-04", "00:00:00", "02:00:00", 2601),
+                newAvailability("2023-10-04", "01:00:00", "03:00:00", 2602)));
+
+        // 22:00 UTC to 02:00 UTC the next day is one window of 2023-10-03 in New York
+        List<JsonNode> availability = stream(get("/v1/availability/range").param("user_id", "2601")
+                .param("from", "2023-10-03").param("to", "2023-10-03").param("tz", "America/New_York"));
+        assertThat(availability).extracting(line -> line.get("_start").asText()).containsExactly("18:00:00");
+        assertThat(availability).extracting(line -> line.get("_end").asText()).containsExactly("22:00:00");
+
+        List<JsonNode> overlaps = stream(get("/v1/overlap/range").param("user1", "2601").param("user2", "2602")
+                .param("from", "2023-10-03").param("to", "2023-10-03").param("tz", "America/New_York"));
+        assertThat(overlaps).extracting(line -> line.get("overlappingStartTime").asText()).containsExactly("21:00:00");
+        assertThat(overlaps).extracting(line -> line.get("overlappingEndTime").asText()).containsExactly("22:00:00");
+
+        List<JsonNode> groupOverlaps = stream(get("/v1/overlap/group/range").param("user_ids", "2601,2602")
+                .param("from", "2023-10-03").param("to", "2023-10-03").param("tz", "America/New_York"));
+        assertThat(groupOverlaps).hasSize(1);
+
+        List<JsonNode> bulk = stream(get("/v1/overlap/bulk").param("user_ids", "2601,2602")
+                .param("from", "2023-10-03").param("to", "2023-10-03").param("tz", "America/New_York"));
+        assertThat(bulk).extracting(line -> line.get("overlappingStartTime").asText()).containsExactly("21:00:00");
+
+        mockMvc.perform(get("/v1/slots/earliest").param("user_ids", "2601,2602").param("duration", "30")
+                        .param("from", "2023-10-03").param("tz", "America/New_York"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].startTime").value("21:00:00"));
+
+        mockMvc.perform(get("/v1/overlap/range").param("user1", "2601").param("user2", "2602")
+                        .param("from", "2023-10-03").param("to", "2023-10-03").param("tz", "Not/A_Zone"))
+                .andExpect(status().isBadRequest())
+                .andExpect(status().reason(INVALID_TIME_ZONE_ERROR_MSG));
+    }
+
+    @Test
+    public void testTamperedCursorIsRejected() throws Exception {
+        mockMvc.perform(get("/v1/availability/cursor").param("cursor", CursorUtils.encode(2603, 19633, 999999)))
+                .andExpect(status().isBadRequest())
+                .andExpect(status().reason(INVALID_CURSOR_ERROR_MSG));
+    }
+
+    // Performs a range request, whose body is streamed asynchronously, and parses its newline delimited JSON lines
+    private List<JsonNode> stream(MockHttpServletRequestBuilder requestBuilder) throws Exception {
+        MvcResult result = mockMvc.perform(requestBuilder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            if (!line.isEmpty()) {
+                lines.add(objectMapper.readTree(line));
+            }
+        }
+        assertThat(body.isEmpty() || body.endsWith("\n")).isTrue();
+        return lines;
+    }
+}
@@ -0,0 +1,73 @@
+package co.harbor.calendly.controller;
+
+import co.harbor.calendly.controller.helper.AvailabilityHelper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Time;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static co.harbor.calendly.constants.Constants.RECURRING_AVAILABILITY_API_RESPONSE_SUCCESS_MESSAGE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+// A pool of two connections, so that requests holding a connection while they wait would starve the flusher
+@SpringBootTest(properties = {"calendly.write-behind.enabled=true", "calendly.write-behind.flush-interval=100ms",
+        "spring.datasource.hikari.maximum-pool-size=2", "spring.datasource.hikari.connection-timeout=2000"})
+@AutoConfigureMockMvc
+public class WriteBehindControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AvailabilityHelper availabilityHelper;
+
+    @Test
+    public void testConcurrentWaitingRecurringWritesAreSaved() throws Exception {
+        int requests = 6;
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        try {
+            List<Future<String>> responses = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                int userid = 2201 + i;
+                responses.add(executor.submit(() -> mockMvc.perform(post("/v1/recurring").param("wait", "true")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"userid\":" + userid + ",\"startdate\":\"2023-09-28\",\"_start\":\"09:00:00\","
+                                        + "\"_end\":\"10:00:00\",\"interval\":\"daily\",\"occurrences\":2}"))
+                        .andReturn().getResponse().getStatus() + " " + userid));
+            }
+            for (int i = 0; i < requests; i++) {
+                assertThat(responses.get(i).get(30, TimeUnit.SECONDS)).isEqualTo("201 " + (2201 + i));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (int userid = 2201; userid < 2201 + requests; userid++) {
+            assertThat(availabilityHelper.findAvailabilityForAUserAndDate(userid, "2023-09-29"))
+                    .extracting(availability -> availability.get_start())
+                    .containsExactly(Time.valueOf("09:00:00"));
+        }
+    }
+
+    @Test
+    public void testWaitingRecurringWriteReportsItsResponse() throws Exception {
+        String body = mockMvc.perform(post("/v1/recurring").param("wait", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userid\":2210,\"startdate\":\"2023-09-28\",\"_start\":\"11:00:00\","
+                                + "\"_end\":\"12:00:00\",\"interval\":\"weekly\",\"occurrences\":1}"))
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(body).contains(RECURRING_AVAILABILITY_API_RESPONSE_SUCCESS_MESSAGE);
+    }
+}
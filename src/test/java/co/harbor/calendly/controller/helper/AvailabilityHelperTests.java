@@ -1,19 +1,40 @@
 package co.harbor.calendly.controller.helper;
 
 import co.harbor.calendly.entity.UserAvailability;
+import co.harbor.calendly.metrics.AvailabilityMetrics;
+import co.harbor.calendly.model.CursorPage;
+import co.harbor.calendly.model.GroupOverlappingAvailability;
 import co.harbor.calendly.model.Interval;
+import co.harbor.calendly.model.MeetingSlot;
+import co.harbor.calendly.model.OverlappingAvailability;
 import co.harbor.calendly.model.RecurringUserAvailability;
+import co.harbor.calendly.utils.CursorUtils;
+import co.harbor.calendly.utils.TimeUtils;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 
 import java.sql.Date;
 import java.sql.Time;
-import java.text.ParseException;
+import java.time.zone.ZoneRules;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
+import static co.harbor.calendly.TestFixtures.newAvailability;
+import static co.harbor.calendly.constants.Constants.INVALID_CURSOR_ERROR_MSG;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @SpringBootTest
 public class AvailabilityHelperTests {
@@ -21,8 +42,11 @@ public class AvailabilityHelperTests {
     @Autowired
     private AvailabilityHelper availabilityHelper;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Test
-    public void testComputeUpdatedAvailabilityForContainedDeletion() throws ParseException {
+    public void testComputeUpdatedAvailabilityForContainedDeletion() {
 
         UserAvailability existingAvailability = newAvailability("2023-07-05", "10:00:00", "11:00:00", 1);
 
@@ -39,7 +63,7 @@ public class AvailabilityHelperTests {
     }
 
     @Test
-    public void testComputeUpdatedAvailabilityForPartialOverlap1() throws ParseException {
+    public void testComputeUpdatedAvailabilityForPartialOverlap1() {
 
         UserAvailability existingAvailability = new UserAvailability();
         existingAvailability.set_date(Date.valueOf("2023-07-05"));
@@ -63,7 +87,7 @@ public class AvailabilityHelperTests {
     }
 
     @Test
-    public void testComputeUpdatedAvailabilityForPartialOverlap2() throws ParseException {
+    public void testComputeUpdatedAvailabilityForPartialOverlap2() {
 
         UserAvailability existingAvailability = new UserAvailability();
         existingAvailability.set_date(Date.valueOf("2023-07-05"));
@@ -88,7 +112,7 @@ public class AvailabilityHelperTests {
     }
 
     @Test
-    public void testComputeUpdatedAvailabilityNoOverlap() throws ParseException {
+    public void testComputeUpdatedAvailabilityNoOverlap() {
         UserAvailability existingAvailability = new UserAvailability();
         existingAvailability.set_date(Date.valueOf("2023-07-05"));
         existingAvailability.set_start(Time.valueOf("15:30:00"));
@@ -111,7 +135,7 @@ public class AvailabilityHelperTests {
     }
 
     @Test
-    public void testAddRecurringAvailability() throws ParseException {
+    public void testAddRecurringAvailability() {
 
         RecurringUserAvailability recurringAvailability = new RecurringUserAvailability();
         recurringAvailability.setStartdate(Date.valueOf("2023-07-06"));
@@ -131,14 +155,244 @@ public class AvailabilityHelperTests {
         assertThat(actualRecurringAvailability).isEqualTo(expectedRecurringAvailability);
     }
 
-    private UserAvailability newAvailability(String date, String start, String end, Integer userid) {
-        UserAvailability newAvailability = new UserAvailability();
-        newAvailability.set_date(Date.valueOf(date));
-        newAvailability.set_start(Time.valueOf(start));
-        newAvailability.set_end(Time.valueOf(end));
-        newAvailability.setUserid(userid);
+    @Test
+    public void testFindOverlappingAvailabilityForContainedAvailability() {
+        availabilityHelper.addAvailability(Arrays.asList(newAvailability("2023-08-01", "09:00:00", "12:00:00", 201)));
+        availabilityHelper.addAvailability(Arrays.asList(newAvailability("2023-08-01", "10:00:00", "11:00:00", 202)));
+
+        Page<OverlappingAvailability> overlap = availabilityHelper.findOverlappingAvailabilityForDate(201, 202, "2023-08-01", PageRequest.of(0, 5));
+
+        assertThat(overlap.getContent()).hasSize(1);
+        assertThat(overlap.getContent().get(0).getOverlappingStartTime()).isEqualTo(Time.valueOf("10:00:00"));
+        assertThat(overlap.getContent().get(0).getOverlappingEndTime()).isEqualTo(Time.valueOf("11:00:00"));
+        assertThat(availabilityHelper.findAvailabilityForAUserAndDate(202, "2023-08-01")).hasSize(1);
+    }
+
+    @Test
+    public void testDeleteAvailabilityWindowsOnlyRewritesAffectedSlots() {
+        availabilityHelper.addAvailability(Arrays.asList(
+                newAvailability("2023-08-02", "09:00:00", "10:00:00", 203),
+                newAvailability("2023-08-02", "11:00:00", "12:00:00", 203),
+                newAvailability("2023-08-02", "14:00:00", "15:00:00", 203),
+                newAvailability("2023-08-02", "16:00:00", "17:00:00", 203)));
+        Integer untouchedId = availabilityHelper.findAvailabilityForAUserAndDate(203, "2023-08-02").get(3).getId();
+
+        availabilityHelper.deleteAvailability(Arrays.asList(
+                newAvailability("2023-08-02", "09:30:00", "11:30:00", 203),
+                newAvailability("2023-08-02", "14:00:00", "14:15:00", 203)));
+
+        List<UserAvailability> availabilities = availabilityHelper.findAvailabilityForAUserAndDate(203, "2023-08-02");
+        assertThat(availabilities).extracting(UserAvailability::get_start)
+                .containsExactly(Time.valueOf("09:00:00"), Time.valueOf("11:30:00"), Time.valueOf("14:15:00"), Time.valueOf("16:00:00"));
+        assertThat(availabilities).extracting(UserAvailability::get_end)
+                .containsExactly(Time.valueOf("09:30:00"), Time.valueOf("12:00:00"), Time.valueOf("15:00:00"), Time.valueOf("17:00:00"));
+        assertThat(availabilities.get(3).getId()).isEqualTo(untouchedId);
+    }
+
+    @Test
+    public void testDeleteAvailabilityRecordsTimerAndSplitFragments() {
+        availabilityHelper.addAvailability(Arrays.asList(newAvailability("2023-08-04", "09:00:00", "12:00:00", 206)));
+        Timer timer = meterRegistry.timer(AvailabilityMetrics.OPERATION_TIMER, "operation", "delete");
+        DistributionSummary fragments = meterRegistry.summary(AvailabilityMetrics.DELETE_FRAGMENTS, "operation", "delete");
+        long deletes = timer.count();
+        double fragmentsBefore = fragments.totalAmount();
+
+        availabilityHelper.deleteAvailability(newAvailability("2023-08-04", "10:00:00", "11:00:00", 206));
+
+        assertThat(timer.count()).isEqualTo(deletes + 1);
+        assertThat(fragments.totalAmount() - fragmentsBefore).isEqualTo(2.0);
+    }
+
+    @Test
+    public void testAddAvailabilityCoalescesOverlappingAndTouchingSlots() {
+        availabilityHelper.addAvailability(Arrays.asList(
+                newAvailability("2023-08-03", "09:00:00", "10:00:00", 204),
+                newAvailability("2023-08-03", "13:00:00", "14:00:00", 204)));
+        Integer untouchedId = availabilityHelper.findAvailabilityForAUserAndDate(204, "2023-08-03").get(1).getId();
+
+        availabilityHelper.addAvailability(Arrays.asList(
+                newAvailability("2023-08-03", "10:00:00", "11:00:00", 204),
+                newAvailability("2023-08-03", "10:30:00", "12:00:00", 204),
+                newAvailability("2023-08-03", "09:00:00", "10:00:00", 204)));
+
+        List<UserAvailability> availabilities = availabilityHelper.findAvailabilityForAUserAndDate(204, "2023-08-03");
+        assertThat(availabilities).extracting(UserAvailability::get_start)
+                .containsExactly(Time.valueOf("09:00:00"), Time.valueOf("13:00:00"));
+        assertThat(availabilities).extracting(UserAvailability::get_end)
+                .containsExactly(Time.valueOf("12:00:00"), Time.valueOf("14:00:00"));
+        assertThat(availabilities.get(1).getId()).isEqualTo(untouchedId);
+    }
+
+    @Test
+    public void testComputeRecurringAvailabilityForWeekdaysEveryOtherWeek() {
+        RecurringUserAvailability recurringAvailability = new RecurringUserAvailability();
+        recurringAvailability.setStartdate(Date.valueOf("2023-07-06"));
+        recurringAvailability.set_start(Time.valueOf("10:00:00"));
+        recurringAvailability.set_end(Time.valueOf("11:00:00"));
+        recurringAvailability.setInterval(Interval.WEEKDAYS.name());
+        recurringAvailability.setEvery(2);
+        recurringAvailability.setOccurrences(4);
+        recurringAvailability.setUserid(100);
+
+        List<UserAvailability> actualRecurringAvailability = availabilityHelper.computeRecurringAvailability(recurringAvailability);
+
+        assertThat(actualRecurringAvailability).extracting(UserAvailability::get_date).containsExactly(
+                Date.valueOf("2023-07-06"), Date.valueOf("2023-07-07"), Date.valueOf("2023-07-17"), Date.valueOf("2023-07-18"));
+    }
+
+    @Test
+    public void testRecurringAvailabilityIsExpandedAndCarvedLazily() {
+        RecurringUserAvailability recurringAvailability = new RecurringUserAvailability();
+        recurringAvailability.setStartdate(Date.valueOf("2023-08-07"));
+        recurringAvailability.setEnddate(Date.valueOf("2023-08-18"));
+        recurringAvailability.set_start(Time.valueOf("09:00:00"));
+        recurringAvailability.set_end(Time.valueOf("10:00:00"));
+        recurringAvailability.setInterval("weekdays");
+        recurringAvailability.setUserid(205);
+        availabilityHelper.addRecurringAvailability(recurringAvailability);
+
+        assertThat(availabilityHelper.findAvailabilityForAUserAndDate(205, "2023-08-09")).hasSize(1);
+        assertThat(availabilityHelper.findAvailabilityForAUserAndDate(205, "2023-08-12")).isEmpty();
+        assertThat(availabilityHelper.findAvailabilityForAUserAndDate(205, "2023-08-21")).isEmpty();
+
+        availabilityHelper.deleteAvailability(newAvailability("2023-08-09", "09:15:00", "09:30:00", 205));
+
+        List<UserAvailability> carved = availabilityHelper.findAvailabilityForAUserAndDate(205, "2023-08-09");
+        assertThat(carved).extracting(UserAvailability::get_start).containsExactly(Time.valueOf("09:00:00"), Time.valueOf("09:30:00"));
+        assertThat(carved).extracting(UserAvailability::get_end).containsExactly(Time.valueOf("09:15:00"), Time.valueOf("10:00:00"));
+        assertThat(availabilityHelper.findAvailabilityForAUserAndDate(205, "2023-08-10")).hasSize(1);
+    }
 
-        return newAvailability;
+    @Test
+    public void testFindAvailabilityAfterPagesByCursor() {
+        availabilityHelper.addAvailability(Arrays.asList(
+                newAvailability("2023-08-25", "09:00:00", "10:00:00", 801),
+                newAvailability("2023-08-24", "14:00:00", "15:00:00", 801),
+                newAvailability("2023-08-24", "09:00:00", "10:00:00", 801)));
+
+        CursorPage<UserAvailability> first = availabilityHelper.findAvailabilityAfter(801, null, 2);
+        assertThat(first.getContent()).extracting(UserAvailability::get_start)
+                .containsExactly(Time.valueOf("09:00:00"), Time.valueOf("14:00:00"));
+        assertThat(first.getNext()).isNotNull();
+
+        CursorPage<UserAvailability> second = availabilityHelper.findAvailabilityAfter(801, first.getNext(), 2);
+        assertThat(second.getContent()).extracting(UserAvailability::get_date).containsExactly(Date.valueOf("2023-08-25"));
+        assertThat(second.getNext()).isNull();
+
+        // A cursor only continues the listing it came from
+        assertThatThrownBy(() -> availabilityHelper.findAvailabilityAfter(802, first.getNext(), 2))
+                .isInstanceOf(IllegalArgumentException.class);
+        // A well formed token whose start is not a time of day
+        assertThatThrownBy(() -> availabilityHelper.findAvailabilityAfter(801, CursorUtils.encode(801, 19595, 999999), 2))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage(INVALID_CURSOR_ERROR_MSG);
     }
 
+    @Test
+    public void testConcurrentWritesToTheSameDayAreCoalesced() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> writes = new ArrayList<>();
+            for (int hour = 8; hour < 16; hour++) {
+                UserAvailability availability = newAvailability("2023-09-01", String.format("%02d:00:00", hour), String.format("%02d:00:00", hour + 1), 1201);
+                writes.add(executor.submit(() -> availabilityHelper.addAvailability(Collections.singletonList(availability))));
+            }
+            for (Future<?> write : writes) {
+                write.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // Every write saw the slots committed before it, so the touching hours were merged into one slot
+        List<UserAvailability> availability = availabilityHelper.findAvailabilityForAUserAndDate(1201, "2023-09-01");
+        assertThat(availability).hasSize(1);
+        assertThat(availability.get(0).get_start()).isEqualTo(Time.valueOf("08:00:00"));
+        assertThat(availability.get(0).get_end()).isEqualTo(Time.valueOf("16:00:00"));
+    }
+
+    @Test
+    public void testLocalDayQueriesStitchUtcDays() {
+        availabilityHelper.addAvailability(Arrays.asList(
+                newAvailability("2023-09-02", "20:00:00", "23:59:59", 1301),
+                newAvailability("2023-09-03", "00:00:00", "02:00:00", 1301),
+                newAvailability("2023-09-02", "21:00:00", "23:00:00", 1302),
+                newAvailability("2023-09-03", "01:00:00", "03:00:00", 1302)));
+        ZoneRules newYork = TimeUtils.zoneRules("America/New_York");
+
+        // 20:00 UTC to 02:00 UTC the next day is one window of the local day
+        List<UserAvailability> local = availabilityHelper.findAvailabilityForAUserAndDate(1301, "2023-09-02", newYork);
+        assertThat(local).extracting(UserAvailability::get_date).containsExactly(Date.valueOf("2023-09-02"));
+        assertThat(local).extracting(UserAvailability::get_start).containsExactly(Time.valueOf("16:00:00"));
+        assertThat(local).extracting(UserAvailability::get_end).containsExactly(Time.valueOf("22:00:00"));
+
+        Page<OverlappingAvailability> overlaps = availabilityHelper.findOverlappingAvailabilityForDate(1301, 1302, "2023-09-02", newYork, PageRequest.of(0, 5));
+        assertThat(overlaps.getContent()).extracting(OverlappingAvailability::getOverlappingStartTime)
+                .containsExactly(Time.valueOf("17:00:00"), Time.valueOf("21:00:00"));
+        assertThat(overlaps.getContent()).extracting(OverlappingAvailability::getOverlappingEndTime)
+                .containsExactly(Time.valueOf("19:00:00"), Time.valueOf("22:00:00"));
+
+        Page<GroupOverlappingAvailability> groupOverlaps = availabilityHelper.findGroupOverlappingAvailabilityForDate(
+                Arrays.asList(1301, 1302), "2023-09-02", newYork, PageRequest.of(0, 5));
+        assertThat(groupOverlaps.getContent()).hasSize(2);
+    }
+
+    @Test
+    public void testFindEarliestSlotsStopsAtTheLimit() {
+        availabilityHelper.addAvailability(Arrays.asList(
+                newAvailability("2023-09-12", "09:00:00", "10:00:00", 1501),
+                newAvailability("2023-09-13", "09:00:00", "12:00:00", 1501),
+                newAvailability("2023-09-14", "09:00:00", "12:00:00", 1501),
+                newAvailability("2023-09-12", "09:30:00", "10:00:00", 1502),
+                newAvailability("2023-09-13", "10:00:00", "11:30:00", 1502),
+                newAvailability("2023-09-14", "09:00:00", "12:00:00", 1502)));
+        DistributionSummary searchDays = meterRegistry.summary(AvailabilityMetrics.SEARCH_DAYS, "operation", "earliest_slots");
+        double daysBefore = searchDays.totalAmount();
+
+        List<MeetingSlot> slots = availabilityHelper.findEarliestSlots(Arrays.asList(1501, 1502), Date.valueOf("2023-09-10"), 60, 1800, 0, 3);
+        assertThat(slots).extracting(MeetingSlot::getDate)
+                .containsExactly(Date.valueOf("2023-09-12"), Date.valueOf("2023-09-13"), Date.valueOf("2023-09-13"));
+        assertThat(slots).extracting(MeetingSlot::getStartTime)
+                .containsExactly(Time.valueOf("09:30:00"), Time.valueOf("10:00:00"), Time.valueOf("10:30:00"));
+        // 2023-09-10 to 2023-09-13, the rest of the horizon is never read
+        assertThat(searchDays.totalAmount() - daysBefore).isEqualTo(4);
+
+        // The 30 minutes of 2023-09-12 leave no room for buffers
+        List<MeetingSlot> buffered = availabilityHelper.findEarliestSlots(Arrays.asList(1501, 1502), Date.valueOf("2023-09-10"), 60, 1800, 900, 2);
+        assertThat(buffered).extracting(MeetingSlot::getStartTime).containsExactly(Time.valueOf("10:15:00"), Time.valueOf("10:45:00"));
+        assertThat(buffered).extracting(MeetingSlot::getEndTime).containsExactly(Time.valueOf("10:45:00"), Time.valueOf("11:15:00"));
+
+        assertThat(availabilityHelper.findEarliestSlots(Arrays.asList(1501, 1502), Date.valueOf("2023-09-10"), 2, 1800, 0, 1)).isEmpty();
+    }
+
+    @Test
+    public void testOccurrencesOverlappingStoredSlotsAreCoalesced() {
+        availabilityHelper.addAvailability(Arrays.asList(
+                newAvailability("2023-09-22", "09:00:00", "11:00:00", 1801),
+                newAvailability("2023-09-22", "10:30:00", "11:30:00", 1802)));
+        RecurringUserAvailability recurringAvailability = new RecurringUserAvailability();
+        recurringAvailability.setStartdate(Date.valueOf("2023-09-22"));
+        recurringAvailability.set_start(Time.valueOf("10:00:00"));
+        recurringAvailability.set_end(Time.valueOf("12:00:00"));
+        recurringAvailability.setInterval(Interval.DAILY.name());
+        recurringAvailability.setOccurrences(1);
+        recurringAvailability.setUserid(1801);
+        availabilityHelper.addRecurringAvailability(recurringAvailability);
+
+        List<UserAvailability> day = availabilityHelper.findAvailabilityForAUserAndDate(1801, "2023-09-22");
+        assertThat(day).extracting(UserAvailability::get_start).containsExactly(Time.valueOf("09:00:00"));
+        assertThat(day).extracting(UserAvailability::get_end).containsExactly(Time.valueOf("12:00:00"));
+
+        List<UserAvailability> streamed = new ArrayList<>();
+        availabilityHelper.streamAvailabilityForAUser(1801, Date.valueOf("2023-09-22"), Date.valueOf("2023-09-22"), streamed::add);
+        assertThat(streamed).extracting(UserAvailability::get_start).containsExactly(Time.valueOf("09:00:00"));
+        assertThat(streamed).extracting(UserAvailability::get_end).containsExactly(Time.valueOf("12:00:00"));
+
+        // The stored slot and the occurrence both overlap 10:30 to 11:30, which comes back once
+        List<OverlappingAvailability> overlaps = new ArrayList<>();
+        availabilityHelper.streamOverlappingAvailability(1801, 1802, Date.valueOf("2023-09-22"), Date.valueOf("2023-09-22"), overlaps::add);
+        assertThat(overlaps).extracting(OverlappingAvailability::getOverlappingStartTime).containsExactly(Time.valueOf("10:30:00"));
+        assertThat(overlaps).extracting(OverlappingAvailability::getOverlappingEndTime).containsExactly(Time.valueOf("11:30:00"));
+        assertThat(availabilityHelper.findOverlappingAvailabilityForDate(1801, 1802, "2023-09-22", PageRequest.of(0, 10))).hasSize(1);
+    }
 }
@@ -0,0 +1,155 @@
+package co.harbor.calendly.controller.helper;
+
+import co.harbor.calendly.entity.Booking;
+import co.harbor.calendly.entity.UserAvailability;
+import co.harbor.calendly.model.BookingRequest;
+import co.harbor.calendly.repository.IBookingRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static co.harbor.calendly.TestFixtures.newAvailability;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+public class BookingHelperTests {
+
+    @Autowired
+    private BookingHelper bookingHelper;
+
+    @Autowired
+    private AvailabilityHelper availabilityHelper;
+
+    @Autowired
+    private IBookingRepository bookingRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void testConcurrentBookingsOfTheSameWindowHaveOneWinner() throws Exception {
+        availabilityHelper.addAvailability(Collections.singletonList(newAvailability("2023-09-04", "09:00:00", "12:00:00", 1401)));
+
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> bookings = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                bookings.add(executor.submit(() -> {
+                    try {
+                        bookingHelper.book(newBooking("2023-09-04", "10:00:00", "10:30:00", 1401));
+                        booked.incrementAndGet();
+                    } catch (IllegalStateException e) {
+                        conflicts.incrementAndGet();
+                    }
+                }));
+            }
+            for (Future<?> booking : bookings) {
+                booking.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(booked).hasValue(1);
+        assertThat(conflicts).hasValue(63);
+        assertThat(bookingHelper.findBookings(1401, Date.valueOf("2023-09-04"))).hasSize(1);
+        List<UserAvailability> availability = availabilityHelper.findAvailabilityForAUserAndDate(1401, "2023-09-04");
+        assertThat(availability).extracting(UserAvailability::get_start).containsExactly(Time.valueOf("09:00:00"), Time.valueOf("10:30:00"));
+        assertThat(availability).extracting(UserAvailability::get_end).containsExactly(Time.valueOf("10:00:00"), Time.valueOf("12:00:00"));
+    }
+
+    @Test
+    public void testBookingWaitsForTheDayLockOfAnotherInstance() throws Exception {
+        availabilityHelper.addAvailability(Collections.singletonList(newAvailability("2023-09-24", "09:00:00", "12:00:00", 1901)));
+        Date date = Date.valueOf("2023-09-24");
+        bookingRepository.insertDayIfAbsent(1901, date);
+
+        // Another instance books 10:00 to 10:30 directly in the database, bypassing this instance's reservations
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> otherInstance = executor.submit(() -> new TransactionTemplate(transactionManager).execute(status -> {
+                bookingRepository.lockDay(1901, date);
+                bookingRepository.insertIfFree("other-instance", 1901, date, Time.valueOf("10:00:00"), Time.valueOf("10:30:00"));
+                locked.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            }));
+            assertThat(locked.await(5, TimeUnit.SECONDS)).isTrue();
+
+            Future<List<Booking>> booking = executor.submit(() -> bookingHelper.book(newBooking("2023-09-24", "10:15:00", "10:45:00", 1901)));
+            Thread.sleep(200);
+            assertThat(booking).isNotDone();
+
+            release.countDown();
+            otherInstance.get(5, TimeUnit.SECONDS);
+            assertThatThrownBy(() -> booking.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+        assertThat(bookingHelper.findBookings(1901, date)).extracting(Booking::getReference).containsExactly("other-instance");
+    }
+
+    @Test
+    public void testGroupBookingAndCancellation() {
+        availabilityHelper.addAvailability(Arrays.asList(
+                newAvailability("2023-09-05", "09:00:00", "10:00:00", 1402),
+                newAvailability("2023-09-05", "09:30:00", "11:00:00", 1403)));
+
+        assertThatThrownBy(() -> bookingHelper.book(newBooking("2023-09-05", "09:00:00", "09:30:00", 1402, 1403)))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(bookingHelper.findBookings(1402, Date.valueOf("2023-09-05"))).isEmpty();
+
+        List<Booking> bookings = bookingHelper.book(newBooking("2023-09-05", "09:30:00", "10:00:00", 1402, 1403));
+        assertThat(bookings).extracting(Booking::getUserid).containsExactlyInAnyOrder(1402, 1403);
+        assertThat(bookings).extracting(Booking::getReference).containsOnly(bookings.get(0).getReference());
+        assertThat(availabilityHelper.findAvailabilityForAUserAndDate(1403, "2023-09-05"))
+                .extracting(UserAvailability::get_start).containsExactly(Time.valueOf("10:00:00"));
+
+        bookingHelper.cancel(bookings.get(0).getReference());
+        assertThat(bookingHelper.findBookings(1403, Date.valueOf("2023-09-05"))).isEmpty();
+        assertThat(availabilityHelper.findAvailabilityForAUserAndDate(1402, "2023-09-05"))
+                .extracting(UserAvailability::get_end).containsExactly(Time.valueOf("10:00:00"));
+        assertThatThrownBy(() -> bookingHelper.cancel(bookings.get(0).getReference()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testInvalidBooking() {
+        assertThatThrownBy(() -> bookingHelper.book(newBooking("2023-09-05", "10:00:00", "09:00:00", 1404)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private BookingRequest newBooking(String date, String start, String end, Integer... userids) {
+        BookingRequest booking = new BookingRequest();
+        booking.setUserids(Arrays.asList(userids));
+        booking.set_date(Date.valueOf(date));
+        booking.set_start(Time.valueOf(start));
+        booking.set_end(Time.valueOf(end));
+        return booking;
+    }
+}
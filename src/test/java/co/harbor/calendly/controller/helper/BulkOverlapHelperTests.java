@@ -0,0 +1,91 @@
+package co.harbor.calendly.controller.helper;
+
+import co.harbor.calendly.model.OverlappingAvailability;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static co.harbor.calendly.TestFixtures.newAvailability;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+public class BulkOverlapHelperTests {
+
+    @Autowired
+    private AvailabilityHelper availabilityHelper;
+
+    @Autowired
+    private BulkOverlapHelper bulkOverlapHelper;
+
+    @Test
+    public void testFindOverlappingAvailabilityForEveryPairAndForATarget() {
+        availabilityHelper.addAvailability(Arrays.asList(
+                newAvailability("2023-08-08", "09:00:00", "12:00:00", 401),
+                newAvailability("2023-08-09", "09:00:00", "10:00:00", 401),
+                newAvailability("2023-08-08", "10:00:00", "11:00:00", 402),
+                newAvailability("2023-08-09", "09:30:00", "10:30:00", 402),
+                newAvailability("2023-08-08", "11:30:00", "13:00:00", 403)));
+        Date from = Date.valueOf("2023-08-08");
+        Date to = Date.valueOf("2023-08-09");
+
+        List<OverlappingAvailability> everyPair = bulkOverlapHelper.findOverlappingAvailability(Arrays.asList(401, 402, 403), null, from, to);
+
+        assertThat(everyPair).extracting(OverlappingAvailability::getDate)
+                .containsExactly(from, from, to);
+        assertThat(everyPair).extracting(OverlappingAvailability::getSecondUser)
+                .containsExactly(402, 403, 402);
+        assertThat(everyPair).extracting(OverlappingAvailability::getOverlappingStartTime)
+                .containsExactly(Time.valueOf("10:00:00"), Time.valueOf("11:30:00"), Time.valueOf("09:30:00"));
+
+        List<OverlappingAvailability> againstTarget = bulkOverlapHelper.findOverlappingAvailability(Arrays.asList(402, 403), 401, from, to);
+
+        assertThat(againstTarget).extracting(OverlappingAvailability::getFirstUser).containsOnly(401);
+        assertThat(againstTarget).extracting(OverlappingAvailability::getOverlappingEndTime)
+                .containsExactly(Time.valueOf("11:00:00"), Time.valueOf("12:00:00"), Time.valueOf("10:00:00"));
+    }
+
+    @Test
+    public void testFindOverlappingAvailabilityRejectsTooLargeReports() {
+        List<Integer> userIds = IntStream.rangeClosed(1, 2000).boxed().collect(Collectors.toList());
+        Date date = Date.valueOf("2023-08-08");
+
+        assertThatThrownBy(() -> bulkOverlapHelper.findOverlappingAvailability(userIds, null, date, date))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testBulkOverlapMatchesSingleOverlapLookups() throws Exception {
+        availabilityHelper.addAvailability(Arrays.asList(
+                newAvailability("2023-09-27", "09:00:00", "12:00:00", 2101),
+                newAvailability("2023-09-27", "09:30:00", "10:00:00", 2102),
+                newAvailability("2023-09-27", "11:00:00", "13:00:00", 2102)));
+        Date date = Date.valueOf("2023-09-27");
+
+        List<OverlappingAvailability> bulk = bulkOverlapHelper.findOverlappingAvailability(Arrays.asList(2101, 2102), null, date, date);
+        List<OverlappingAvailability> single = availabilityHelper.findOverlappingAvailabilityForDate(2101, 2102, "2023-09-27", PageRequest.of(0, 10)).getContent();
+
+        assertThat(bulk).extracting(OverlappingAvailability::getOverlappingStartTime)
+                .containsExactlyElementsOf(single.stream().map(OverlappingAvailability::getOverlappingStartTime).collect(Collectors.toList()));
+        assertThat(bulk).extracting(OverlappingAvailability::getOverlappingEndTime)
+                .containsExactly(Time.valueOf("10:00:00"), Time.valueOf("12:00:00"));
+    }
+
+    @Test
+    public void testFindOverlappingAvailabilityRejectsLongRangesBeforePairing() {
+        assertThatThrownBy(() -> bulkOverlapHelper.findOverlappingAvailability(Arrays.asList(1, 2, 3), null,
+                Date.valueOf("2023-01-01"), Date.valueOf("3023-01-01")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> bulkOverlapHelper.findOverlappingAvailability(Arrays.asList(1, 2), 3,
+                Date.valueOf("2023-01-01"), Date.valueOf("3023-01-01")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
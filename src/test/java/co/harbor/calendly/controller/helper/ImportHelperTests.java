@@ -0,0 +1,126 @@
+package co.harbor.calendly.controller.helper;
+
+import co.harbor.calendly.entity.UserAvailability;
+import co.harbor.calendly.index.AvailabilityIndex;
+import co.harbor.calendly.index.DayLocks;
+import co.harbor.calendly.model.ImportFailure;
+import co.harbor.calendly.model.ImportReport;
+import co.harbor.calendly.repository.IUserRepository;
+import co.harbor.calendly.utils.TimeUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Time;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static co.harbor.calendly.TestFixtures.newAvailability;
+import static co.harbor.calendly.constants.Constants.DUPLICATE_EMAIL_ERROR_MSG;
+import static co.harbor.calendly.constants.Constants.IMPORT_ROW_NOT_SAVED_ERROR_MSG;
+import static co.harbor.calendly.constants.Constants.INVALID_AVAILABILITY_ERROR_MSG;
+import static co.harbor.calendly.constants.Constants.INVALID_IMPORT_ROW_ERROR_MSG;
+import static co.harbor.calendly.constants.Constants.INVALID_USER_ERROR_MSG;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "calendly.locks.timeout-millis=200")
+public class ImportHelperTests {
+
+    @Autowired
+    private ImportHelper importHelper;
+
+    @Autowired
+    private AvailabilityHelper availabilityHelper;
+
+    @Autowired
+    private IUserRepository userRepository;
+
+    @Autowired
+    private DayLocks dayLocks;
+
+    @Test
+    public void testImportAvailabilityReportsFailedRowsAndImportsTheRest() throws IOException {
+        ImportReport report = importHelper.importAvailability(input(
+                "{\"_date\": \"2023-08-23\", \"_start\": \"09:00:00\", \"_end\": \"10:00:00\", \"userid\": 701}\n" +
+                "{\"_date\": \"2023-08-23\", \"_start\": \"not a time\n" +
+                "\n" +
+                "{\"_date\": \"2023-08-23\", \"_start\": \"12:00:00\", \"_end\": \"11:00:00\", \"userid\": 701}\n" +
+                "{\"_date\": \"2023-08-23\", \"_start\": \"10:00:00\", \"_end\": \"11:00:00\", \"userid\": 701}\n"), false);
+
+        assertThat(report.getImported()).isEqualTo(2);
+        assertThat(report.getFailed()).isEqualTo(2);
+        assertThat(report.getFailures()).extracting(ImportFailure::getLine).containsExactly(2L, 4L);
+        assertThat(report.getFailures()).extracting(ImportFailure::getMessage)
+                .containsExactly(INVALID_IMPORT_ROW_ERROR_MSG, INVALID_AVAILABILITY_ERROR_MSG);
+
+        // Imported rows are coalesced like any other added availability
+        List<UserAvailability> availability = availabilityHelper.findAvailabilityForAUserAndDate(701, "2023-08-23");
+        assertThat(availability).hasSize(1);
+        assertThat(availability.get(0).get_start()).isEqualTo(Time.valueOf("09:00:00"));
+        assertThat(availability.get(0).get_end()).isEqualTo(Time.valueOf("11:00:00"));
+    }
+
+    @Test
+    public void testImportAvailabilityReportsRowsThatTimeOutOnALock() throws Exception {
+        availabilityHelper.addAvailability(Collections.singletonList(newAvailability("2023-09-30", "08:00:00", "09:00:00", 2402)));
+        long lockedDay = AvailabilityIndex.key(2401, TimeUtils.toEpochDay(Date.valueOf("2023-09-30")));
+
+        ImportReport report;
+        // Held by this thread, so the import on another thread times out on it
+        try (DayLocks.Held held = dayLocks.lock(Collections.singletonList(lockedDay))) {
+            report = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return importHelper.importAvailability(input(
+                            "{\"_date\": \"2023-09-30\", \"_start\": \"09:00:00\", \"_end\": \"10:00:00\", \"userid\": 2401}\n" +
+                            "{\"_date\": \"2023-09-30\", \"_start\": \"09:00:00\", \"_end\": \"10:00:00\", \"userid\": 2402}\n" +
+                            "{\"_date\": \"2023-10-01\", \"_start\": \"09:00:00\", \"_end\": \"10:00:00\", \"userid\": 2402}\n"), false);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).get(10, TimeUnit.SECONDS);
+        }
+
+        assertThat(report.getImported()).isEqualTo(2);
+        assertThat(report.getFailures()).extracting(ImportFailure::getLine).containsExactly(1L);
+        assertThat(report.getFailures()).extracting(ImportFailure::getMessage).containsExactly(IMPORT_ROW_NOT_SAVED_ERROR_MSG);
+        assertThat(availabilityHelper.findAvailabilityForAUserAndDate(2401, "2023-09-30")).isEmpty();
+
+        // Coalesced with the stored slot read by the chunk's range query
+        List<UserAvailability> availability = availabilityHelper.findAvailabilityForAUserAndDate(2402, "2023-09-30");
+        assertThat(availability).hasSize(1);
+        assertThat(availability.get(0).get_start()).isEqualTo(Time.valueOf("08:00:00"));
+        assertThat(availability.get(0).get_end()).isEqualTo(Time.valueOf("10:00:00"));
+        assertThat(availabilityHelper.findAvailabilityForAUserAndDate(2402, "2023-10-01")).hasSize(1);
+    }
+
+    @Test
+    public void testImportUsersFromCsvRejectsDuplicateEmails() throws IOException {
+        ImportReport report = importHelper.importUsers(input(
+                "firstName,lastName,emailId\n" +
+                "Ada,\"Lovelace, Countess\",ada.import@harbor.co\n" +
+                ",Nameless,nameless.import@harbor.co\n" +
+                "Ada,Again,ada.import@harbor.co\n"), true);
+
+        assertThat(report.getImported()).isEqualTo(1);
+        assertThat(report.getFailures()).extracting(ImportFailure::getMessage)
+                .containsExactly(INVALID_USER_ERROR_MSG, DUPLICATE_EMAIL_ERROR_MSG);
+        assertThat(userRepository.findByEmailId("ada.import@harbor.co").getLastName()).isEqualTo("Lovelace, Countess");
+
+        ImportReport again = importHelper.importUsers(input("firstName,emailId\nAda,ada.import@harbor.co\n"), true);
+
+        assertThat(again.getImported()).isZero();
+        assertThat(again.getFailures()).extracting(ImportFailure::getLine).containsExactly(2L);
+    }
+
+    private static InputStream input(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
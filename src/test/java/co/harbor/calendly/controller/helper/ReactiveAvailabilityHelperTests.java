@@ -0,0 +1,84 @@
+package co.harbor.calendly.controller.helper;
+
+import co.harbor.calendly.entity.UserAvailability;
+import co.harbor.calendly.model.Interval;
+import co.harbor.calendly.model.OverlappingAvailability;
+import co.harbor.calendly.model.RecurringUserAvailability;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.util.Arrays;
+import java.util.List;
+
+import static co.harbor.calendly.TestFixtures.newAvailability;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class ReactiveAvailabilityHelperTests {
+
+    @Autowired
+    private ReactiveAvailabilityHelper reactiveAvailabilityHelper;
+
+    @Test
+    public void testStreamAvailabilityMergesStoredSlotsAndOccurrences() {
+        reactiveAvailabilityHelper.addAvailability(Arrays.asList(
+                newAvailability("2023-08-15", "14:00:00", "15:00:00", 501),
+                newAvailability("2023-08-15", "09:00:00", "10:00:00", 502))).block();
+        RecurringUserAvailability recurring = new RecurringUserAvailability();
+        recurring.setStartdate(Date.valueOf("2023-08-14"));
+        recurring.set_start(Time.valueOf("09:00:00"));
+        recurring.set_end(Time.valueOf("10:00:00"));
+        recurring.setInterval(Interval.DAILY.name());
+        recurring.setOccurrences(3);
+        recurring.setUserid(501);
+        reactiveAvailabilityHelper.addRecurringAvailability(recurring).block();
+
+        List<UserAvailability> availabilities = reactiveAvailabilityHelper
+                .streamAvailabilityForAUser(501, Date.valueOf("2023-08-14"), Date.valueOf("2023-08-20"))
+                .collectList().block();
+
+        assertThat(availabilities).extracting(UserAvailability::get_date).containsExactly(
+                Date.valueOf("2023-08-14"), Date.valueOf("2023-08-15"), Date.valueOf("2023-08-15"), Date.valueOf("2023-08-16"));
+        assertThat(availabilities).extracting(UserAvailability::get_start).containsExactly(
+                Time.valueOf("09:00:00"), Time.valueOf("09:00:00"), Time.valueOf("14:00:00"), Time.valueOf("09:00:00"));
+
+        List<OverlappingAvailability> overlap = reactiveAvailabilityHelper
+                .streamOverlappingAvailability(501, 502, Date.valueOf("2023-08-14"), Date.valueOf("2023-08-20"))
+                .collectList().block();
+
+        assertThat(overlap).hasSize(1);
+        assertThat(overlap.get(0).getDate()).isEqualTo(Date.valueOf("2023-08-15"));
+        assertThat(overlap.get(0).getOverlappingStartTime()).isEqualTo(Time.valueOf("09:00:00"));
+    }
+
+    @Test
+    public void testStreamAvailabilityCoalescesOverlappingOccurrences() {
+        reactiveAvailabilityHelper.addAvailability(Arrays.asList(
+                newAvailability("2023-09-23", "09:00:00", "11:00:00", 1803),
+                newAvailability("2023-09-23", "10:30:00", "11:30:00", 1804))).block();
+        RecurringUserAvailability recurring = new RecurringUserAvailability();
+        recurring.setStartdate(Date.valueOf("2023-09-23"));
+        recurring.set_start(Time.valueOf("10:00:00"));
+        recurring.set_end(Time.valueOf("12:00:00"));
+        recurring.setInterval(Interval.DAILY.name());
+        recurring.setOccurrences(1);
+        recurring.setUserid(1803);
+        reactiveAvailabilityHelper.addRecurringAvailability(recurring).block();
+
+        List<UserAvailability> availabilities = reactiveAvailabilityHelper
+                .streamAvailabilityForAUser(1803, Date.valueOf("2023-09-23"), Date.valueOf("2023-09-23"))
+                .collectList().block();
+
+        assertThat(availabilities).extracting(UserAvailability::get_start).containsExactly(Time.valueOf("09:00:00"));
+        assertThat(availabilities).extracting(UserAvailability::get_end).containsExactly(Time.valueOf("12:00:00"));
+
+        List<OverlappingAvailability> overlap = reactiveAvailabilityHelper
+                .streamOverlappingAvailability(1803, 1804, Date.valueOf("2023-09-23"), Date.valueOf("2023-09-23"))
+                .collectList().block();
+
+        assertThat(overlap).extracting(OverlappingAvailability::getOverlappingStartTime).containsExactly(Time.valueOf("10:30:00"));
+    }
+}
@@ -0,0 +1,73 @@
+package co.harbor.calendly.controller.helper;
+
+import co.harbor.calendly.entity.User;
+import co.harbor.calendly.entity.UserAvailability;
+import co.harbor.calendly.model.SnapshotInfo;
+import co.harbor.calendly.repository.IUserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.sql.Date;
+import java.sql.Time;
+import java.util.Collections;
+import java.util.List;
+
+import static co.harbor.calendly.constants.Constants.INVALID_SNAPSHOT_NAME_ERROR_MSG;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "calendly.snapshot.dir=target/test-snapshots")
+public class SnapshotHelperTests {
+
+    @Autowired
+    private SnapshotHelper snapshotHelper;
+
+    @Autowired
+    private AvailabilityHelper availabilityHelper;
+
+    @Autowired
+    private IUserRepository userRepository;
+
+    @Test
+    public void testRestoreBringsBackExportedRows() throws IOException {
+        UserAvailability availability = new UserAvailability();
+        availability.setUserid(1001);
+        availability.set_date(Date.valueOf("2023-08-26"));
+        availability.set_start(Time.valueOf("09:00:00"));
+        availability.set_end(Time.valueOf("12:00:00"));
+        availabilityHelper.addAvailability(Collections.singletonList(availability));
+
+        SnapshotInfo exported = snapshotHelper.export();
+        assertThat(exported.getRows().get("user_availability")).isPositive();
+        assertThat(snapshotHelper.list()).contains(exported.getName());
+
+        availabilityHelper.deleteAvailability(availability);
+        assertThat(availabilityHelper.findAvailabilityForAUserAndDate(1001, "2023-08-26")).isEmpty();
+
+        SnapshotInfo restored = snapshotHelper.restore(exported.getName());
+        assertThat(restored.getRows()).isEqualTo(exported.getRows());
+
+        // The index was dropped, so the restored slot is read again
+        List<UserAvailability> found = availabilityHelper.findAvailabilityForAUserAndDate(1001, "2023-08-26");
+        assertThat(found).hasSize(1);
+        assertThat(found.get(0).get_end()).isEqualTo(Time.valueOf("12:00:00"));
+
+        // Ids generated after a restore don't collide with restored ones
+        User user = new User();
+        user.setFirstName("Grace");
+        user.setEmailId("grace.snapshot@harbor.co");
+        assertThat(userRepository.saveAll(Collections.singletonList(user)).get(0).getId()).isNotNull();
+    }
+
+    @Test
+    public void testRestoreRejectsUnknownSnapshots() {
+        assertThatThrownBy(() -> snapshotHelper.restore("../application.properties"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage(INVALID_SNAPSHOT_NAME_ERROR_MSG);
+        assertThatThrownBy(() -> snapshotHelper.restore("missing.calsnap"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage(INVALID_SNAPSHOT_NAME_ERROR_MSG);
+    }
+}
@@ -0,0 +1,84 @@
+package co.harbor.calendly.controller.helper;
+
+import co.harbor.calendly.entity.UserAvailability;
+import co.harbor.calendly.model.RecurringUserAvailability;
+import co.harbor.calendly.repository.IAvailabilityRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static co.harbor.calendly.TestFixtures.newAvailability;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {"calendly.write-behind.enabled=true", "calendly.write-behind.flush-interval=500ms"})
+public class WriteBehindHelperTests {
+
+    @Autowired
+    private WriteBehindHelper writeBehindHelper;
+
+    @Autowired
+    private AvailabilityHelper availabilityHelper;
+
+    @Autowired
+    private IAvailabilityRepository availabilityRepository;
+
+    @Test
+    public void testQueuedWritesAreReadBeforeAndAfterTheirGroupCommit() throws Exception {
+        CompletableFuture<Void> first = writeBehindHelper.addAvailability(Collections.singletonList(newAvailability("2023-08-28", "09:00:00", "10:00:00", 1101)));
+        CompletableFuture<Void> second = writeBehindHelper.addAvailability(Arrays.asList(
+                newAvailability("2023-08-28", "10:00:00", "11:00:00", 1101), newAvailability("2023-08-28", "09:30:00", "12:00:00", 1102)));
+
+        // Read your writes, whether or not the group was committed yet
+        assertWindow(availabilityHelper.findAvailabilityForAUserAndDate(1101, "2023-08-28"), "09:00:00", "11:00:00");
+        assertThat(availabilityHelper.findOverlappingAvailabilityForDate(1101, 1102, "2023-08-28",
+                PageRequest.of(0, 5)).getContent()).hasSize(1);
+
+        CompletableFuture.allOf(first, second).get(10, TimeUnit.SECONDS);
+
+        // Both writes were coalesced into one stored slot
+        List<UserAvailability> stored = availabilityRepository.findBy_dateAndUserid(Date.valueOf("2023-08-28"), 1101);
+        assertWindow(stored, "09:00:00", "11:00:00");
+        assertWindow(availabilityHelper.findAvailabilityForAUserAndDate(1101, "2023-08-28"), "09:00:00", "11:00:00");
+    }
+
+    @Test
+    public void testQueuedRecurringAvailabilityIsRead() throws Exception {
+        RecurringUserAvailability recurring = new RecurringUserAvailability();
+        recurring.setUserid(1103);
+        recurring.setStartdate(Date.valueOf("2023-08-28"));
+        recurring.set_start(Time.valueOf("14:00:00"));
+        recurring.set_end(Time.valueOf("15:00:00"));
+        recurring.setInterval("daily");
+        recurring.setOccurrences(3);
+
+        CompletableFuture<Void> write = writeBehindHelper.addRecurringAvailability(recurring);
+
+        assertWindow(availabilityHelper.findAvailabilityForAUserAndDate(1103, "2023-08-30"), "14:00:00", "15:00:00");
+        assertThat(availabilityHelper.findAvailabilityForAUserAndDate(1103, "2023-08-31")).isEmpty();
+
+        write.get(10, TimeUnit.SECONDS);
+        assertWindow(availabilityHelper.findAvailabilityForAUserAndDate(1103, "2023-08-30"), "14:00:00", "15:00:00");
+    }
+
+    @Test
+    public void testInvalidWritesAreRejectedBeforeBeingQueued() {
+        assertThatThrownBy(() -> writeBehindHelper.addAvailability(Collections.singletonList(newAvailability("2023-08-28", "11:00:00", "10:00:00", 1104))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void assertWindow(List<UserAvailability> availabilities, String start, String end) {
+        assertThat(availabilities).hasSize(1);
+        assertThat(availabilities.get(0).get_start()).isEqualTo(Time.valueOf(start));
+        assertThat(availabilities.get(0).get_end()).isEqualTo(Time.valueOf(end));
+    }
+}
@@ -0,0 +1,60 @@
+package co.harbor.calendly.index;
+
+import co.harbor.calendly.controller.helper.AvailabilityHelper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.sql.Date;
+import java.util.Collections;
+
+import static co.harbor.calendly.TestFixtures.newAvailability;
+import static co.harbor.calendly.TestFixtures.seconds;
+import static co.harbor.calendly.metrics.AvailabilityMetrics.INDEX_LOOKUPS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class AvailabilityIndexTests {
+
+    @Autowired
+    private AvailabilityHelper availabilityHelper;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void testWritesDontIndexDaysThatArentIndexed() {
+        availabilityHelper.addAvailability(Collections.singletonList(newAvailability("2023-09-29", "09:00:00", "10:00:00", 2301)));
+        double misses = misses();
+
+        DaySlots slots = availabilityIndex.get(2301, Date.valueOf("2023-09-29"));
+
+        assertThat(misses()).isEqualTo(misses + 1);
+        assertThat(slots.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testWritesReloadIndexedDays() {
+        Date date = Date.valueOf("2023-09-29");
+        availabilityHelper.addAvailability(Collections.singletonList(newAvailability("2023-09-29", "09:00:00", "10:00:00", 2302)));
+        availabilityIndex.get(2302, date);
+
+        availabilityHelper.addAvailability(Collections.singletonList(newAvailability("2023-09-29", "10:00:00", "11:00:00", 2302)));
+        double misses = misses();
+
+        DaySlots slots = availabilityIndex.get(2302, date);
+
+        assertThat(misses()).isEqualTo(misses);
+        assertThat(slots.size()).isEqualTo(1);
+        assertThat(slots.startAt(0)).isEqualTo(seconds("09:00:00"));
+        assertThat(slots.endAt(0)).isEqualTo(seconds("11:00:00"));
+    }
+
+    private double misses() {
+        return meterRegistry.counter(INDEX_LOOKUPS, "result", "miss").count();
+    }
+}
@@ -0,0 +1,58 @@
+package co.harbor.calendly.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static co.harbor.calendly.TestFixtures.seconds;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class DayBitmapTests {
+
+    @Test
+    public void testToWindowsRoundTripsAcrossWords() {
+        // 01:00 to 02:10 spans the first two 64 minute words, 23:00 to 23:59 ends in the last one
+        int[] windows = {seconds("01:00:00"), seconds("02:10:00"), seconds("23:00:00"), seconds("23:59:00")};
+
+        assertThat(DayBitmap.of(windows, 60).toWindows()).containsExactly(windows);
+    }
+
+    @Test
+    public void testPartialMinutesAreNotFree() {
+        DayBitmap bitmap = DayBitmap.of(new int[]{seconds("10:00:30"), seconds("10:02:45")}, 60);
+
+        assertThat(bitmap.toWindows()).containsExactly(seconds("10:01:00"), seconds("10:02:00"));
+        assertThat(DayBitmap.of(new int[]{seconds("10:00:10"), seconds("10:00:50")}, 60).isEmpty()).isTrue();
+    }
+
+    @Test
+    public void testIntersect() {
+        DayBitmap first = DayBitmap.of(new int[]{seconds("08:00:00"), seconds("12:00:00"), seconds("13:00:00"), seconds("18:00:00")}, 60);
+        DayBitmap second = DayBitmap.of(new int[]{seconds("09:00:00"), seconds("14:00:00")}, 60);
+        DayBitmap third = DayBitmap.of(new int[]{seconds("10:00:00"), seconds("17:00:00")}, 60);
+
+        assertThat(DayBitmap.intersect(Arrays.asList(first, second, third)))
+                .containsExactly(seconds("10:00:00"), seconds("12:00:00"), seconds("13:00:00"), seconds("14:00:00"));
+    }
+
+    @Test
+    public void testIntersectWithoutCommonTime() {
+        DayBitmap first = DayBitmap.of(new int[]{seconds("08:00:00"), seconds("09:00:00")}, 60);
+        DayBitmap second = DayBitmap.of(new int[]{seconds("09:00:00"), seconds("10:00:00")}, 60);
+
+        assertThat(DayBitmap.intersect(Arrays.asList(first, second))).isEmpty();
+    }
+
+    @Test
+    public void testCoarserSlotSize() {
+        DayBitmap bitmap = DayBitmap.of(new int[]{seconds("09:10:00"), seconds("10:50:00")}, 900);
+
+        assertThat(bitmap.toWindows()).containsExactly(seconds("09:15:00"), seconds("10:45:00"));
+    }
+
+    @Test
+    public void testSlotSizeMustDivideADay() {
+        assertThatThrownBy(() -> DayBitmap.of(new int[0], 7)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
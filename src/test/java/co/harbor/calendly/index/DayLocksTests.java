@@ -0,0 +1,52 @@
+package co.harbor.calendly.index;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class DayLocksTests {
+
+    private final DayLocks dayLocks = new DayLocks(1024, 100);
+
+    @Test
+    public void testSameDayWaitsAndOtherDaysDoNot() throws Exception {
+        long day = AvailabilityIndex.key(1, 19600);
+        try (DayLocks.Held held = dayLocks.lock(Collections.singletonList(day))) {
+            // Another user's day is locked right away from another thread
+            CompletableFuture.runAsync(() -> dayLocks.lock(Collections.singletonList(AvailabilityIndex.key(2, 19600))).close())
+                    .get(1, TimeUnit.SECONDS);
+
+            assertThatThrownBy(() -> CompletableFuture.runAsync(() -> dayLocks.lock(Collections.singletonList(day))).join())
+                    .hasCauseInstanceOf(CannotAcquireLockException.class);
+        }
+
+        CompletableFuture.runAsync(() -> dayLocks.lock(Collections.singletonList(day)).close()).get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testLocksAreReentrantAndReleasedOnce() throws Exception {
+        long first = AvailabilityIndex.key(3, 19600);
+        long second = AvailabilityIndex.key(3, 19601);
+        DayLocks.Held outer = dayLocks.lock(Arrays.asList(second, first, first));
+        DayLocks.Held inner = dayLocks.lock(Collections.singletonList(first));
+        inner.close();
+        inner.close();
+        outer.close();
+
+        CompletableFuture.runAsync(() -> dayLocks.lock(Arrays.asList(first, second)).close()).get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testLockUntilCompletionNeedsATransaction() {
+        assertThatThrownBy(() -> dayLocks.lockUntilCompletion(Collections.singletonList(AvailabilityIndex.key(4, 19600))))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(dayLocks.lock(Collections.emptyList())).isNotNull();
+    }
+}
@@ -0,0 +1,76 @@
+package co.harbor.calendly.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DayReservationsTests {
+
+    private static final long FIRST_DAY = AvailabilityIndex.key(1, 19000);
+    private static final long SECOND_DAY = AvailabilityIndex.key(2, 19000);
+
+    @Test
+    public void testOverlappingWindowsCantBeReservedTwice() {
+        DayReservations reservations = new DayReservations();
+        List<Long> day = Collections.singletonList(FIRST_DAY);
+
+        assertThat(reservations.tryReserve(day, 3600, 7200)).isTrue();
+        assertThat(reservations.tryReserve(day, 5400, 9000)).isFalse();
+        // Back to back windows don't overlap
+        assertThat(reservations.tryReserve(day, 7200, 9000)).isTrue();
+        assertThat(reservations.tryReserve(day, 0, 3600)).isTrue();
+
+        reservations.release(day, 3600, 7200);
+        assertThat(reservations.isReserved(FIRST_DAY, 3600, 7200)).isFalse();
+        assertThat(reservations.tryReserve(day, 5400, 7200)).isTrue();
+    }
+
+    @Test
+    public void testGroupIsReservedWhollyOrNotAtAll() {
+        DayReservations reservations = new DayReservations();
+
+        assertThat(reservations.tryReserve(Collections.singletonList(SECOND_DAY), 3600, 7200)).isTrue();
+        assertThat(reservations.tryReserve(Arrays.asList(FIRST_DAY, SECOND_DAY), 3600, 7200)).isFalse();
+        assertThat(reservations.isReserved(FIRST_DAY, 3600, 7200)).isFalse();
+
+        reservations.release(Collections.singletonList(SECOND_DAY), 3600, 7200);
+        assertThat(reservations.tryReserve(Arrays.asList(SECOND_DAY, FIRST_DAY), 3600, 7200)).isTrue();
+        assertThat(reservations.isReserved(FIRST_DAY, 3600, 7200)).isTrue();
+        assertThat(reservations.isReserved(SECOND_DAY, 3600, 7200)).isTrue();
+    }
+
+    @Test
+    public void testConcurrentClaimsHaveOneWinner() throws Exception {
+        DayReservations reservations = new DayReservations();
+        AtomicInteger winners = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> claims = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                int start = 3600 + (i % 4) * 60;
+                claims.add(executor.submit(() -> {
+                    if (reservations.tryReserve(Arrays.asList(FIRST_DAY, SECOND_DAY), start, start + 1800)) {
+                        winners.incrementAndGet();
+                    }
+                }));
+            }
+            for (Future<?> claim : claims) {
+                claim.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(winners).hasValue(1);
+    }
+}
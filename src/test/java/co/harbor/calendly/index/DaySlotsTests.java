@@ -0,0 +1,87 @@
+package co.harbor.calendly.index;
+
+import co.harbor.calendly.entity.UserAvailability;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.util.Arrays;
+import java.util.List;
+
+import static co.harbor.calendly.TestFixtures.newAvailability;
+import static co.harbor.calendly.TestFixtures.seconds;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DaySlotsTests {
+
+    private static final String DATE = "2023-07-05";
+    private static final int EPOCH_DAY = (int) Date.valueOf(DATE).toLocalDate().toEpochDay();
+
+    @Test
+    public void testOverlapForContainedSlot() {
+        DaySlots first = DaySlots.of(1, EPOCH_DAY, Arrays.asList(newAvailability(DATE, "09:00:00", "12:00:00", 1)));
+        DaySlots second = DaySlots.of(2, EPOCH_DAY, Arrays.asList(newAvailability(DATE, "10:00:00", "11:00:00", 2)));
+
+        List<int[]> overlap = first.overlap(second);
+
+        assertThat(overlap).hasSize(1);
+        assertThat(overlap.get(0)).containsExactly(seconds("10:00:00"), seconds("11:00:00"));
+    }
+
+    @Test
+    public void testOverlapIgnoresTouchingSlots() {
+        DaySlots first = DaySlots.of(1, EPOCH_DAY, Arrays.asList(newAvailability(DATE, "09:00:00", "10:00:00", 1)));
+        DaySlots second = DaySlots.of(2, EPOCH_DAY, Arrays.asList(newAvailability(DATE, "10:00:00", "11:00:00", 2)));
+
+        assertThat(first.overlap(second)).isEmpty();
+    }
+
+    @Test
+    public void testOverlapWithManySlots() {
+        DaySlots first = DaySlots.of(1, EPOCH_DAY, Arrays.asList(
+                newAvailability(DATE, "15:00:00", "16:00:00", 1),
+                newAvailability(DATE, "08:00:00", "18:00:00", 1)));
+        DaySlots second = DaySlots.of(2, EPOCH_DAY, Arrays.asList(
+                newAvailability(DATE, "09:00:00", "09:30:00", 2),
+                newAvailability(DATE, "15:30:00", "17:00:00", 2)));
+
+        List<int[]> overlap = first.overlap(second);
+
+        assertThat(overlap).hasSize(3);
+        assertThat(overlap.get(0)).containsExactly(seconds("09:00:00"), seconds("09:30:00"));
+        assertThat(overlap.get(1)).containsExactly(seconds("15:30:00"), seconds("16:00:00"));
+        assertThat(overlap.get(2)).containsExactly(seconds("15:30:00"), seconds("17:00:00"));
+    }
+
+    @Test
+    public void testToEntitiesIsSortedByStart() {
+        DaySlots slots = DaySlots.of(1, EPOCH_DAY, Arrays.asList(
+                newAvailability(DATE, "15:00:00", "16:00:00", 1),
+                newAvailability(DATE, "08:00:00", "09:00:00", 1)));
+
+        List<UserAvailability> availabilities = slots.toEntities();
+
+        assertThat(availabilities).extracting(UserAvailability::get_start)
+                .containsExactly(Time.valueOf("08:00:00"), Time.valueOf("15:00:00"));
+        assertThat(availabilities).extracting(UserAvailability::get_date)
+                .containsOnly(Date.valueOf("2023-07-05"));
+    }
+
+    @Test
+    public void testCoalesceMergesOverlappingSlotsAndKeepsUntouchedOnes() {
+        UserAvailability stored = newAvailability(DATE, "09:00:00", "11:00:00", 1);
+        stored.setId(7);
+        UserAvailability untouched = newAvailability(DATE, "14:00:00", "15:00:00", 1);
+        untouched.setId(8);
+        UserAvailability occurrence = newAvailability(DATE, "10:00:00", "12:00:00", 1);
+
+        List<UserAvailability> coalesced = DaySlots.coalesce(1, EPOCH_DAY, Arrays.asList(stored, occurrence, untouched));
+
+        assertThat(coalesced).extracting(UserAvailability::get_start)
+                .containsExactly(Time.valueOf("09:00:00"), Time.valueOf("14:00:00"));
+        assertThat(coalesced).extracting(UserAvailability::get_end)
+                .containsExactly(Time.valueOf("12:00:00"), Time.valueOf("15:00:00"));
+        assertThat(coalesced.get(0).getId()).isNull();
+        assertThat(coalesced.get(1)).isSameAs(untouched);
+    }
+}
@@ -0,0 +1,90 @@
+package co.harbor.calendly.index;
+
+import co.harbor.calendly.entity.RecurringAvailability;
+import co.harbor.calendly.repository.AvailabilityBatchRepository;
+import co.harbor.calendly.repository.IRecurringAvailabilityRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Collections;
+
+import static co.harbor.calendly.TestFixtures.newAvailability;
+import static co.harbor.calendly.TestFixtures.seconds;
+import static co.harbor.calendly.metrics.AvailabilityMetrics.INDEX_LOOKUPS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "calendly.index.preload.enabled=true")
+public class IndexPreloaderTests {
+
+    @Autowired
+    private IndexPreloader indexPreloader;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private AvailabilityBatchRepository availabilityBatchRepository;
+
+    @Autowired
+    private IRecurringAvailabilityRepository recurringAvailabilityRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void testPreloadedDaysAreServedFromTheIndex() {
+        Date tomorrow = Date.valueOf(LocalDate.now(ZoneOffset.UTC).plusDays(1));
+        // Written behind the index's back, so only the preload can index it
+        availabilityBatchRepository.insertAll(Collections.singletonList(
+                newAvailability(tomorrow.toString(), "09:00:00", "10:00:00", 901)));
+
+        indexPreloader.afterSingletonsInstantiated();
+        double hits = meterRegistry.counter(INDEX_LOOKUPS, "result", "hit").count();
+
+        DaySlots slots = availabilityIndex.get(901, tomorrow);
+
+        assertThat(meterRegistry.counter(INDEX_LOOKUPS, "result", "hit").count()).isEqualTo(hits + 1);
+        assertThat(slots.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testPreloadedOccurrencesAreCoalescedWithStoredSlots() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        Date tomorrow = Date.valueOf(today.plusDays(1));
+        Date dayAfter = Date.valueOf(today.plusDays(2));
+        availabilityBatchRepository.insertAll(Collections.singletonList(
+                newAvailability(tomorrow.toString(), "09:00:00", "10:00:00", 902)));
+        // Two rules overlapping the stored slot and, the day after, each other
+        recurringAvailabilityRepository.save(newRule(902, tomorrow, "09:30:00", "11:00:00"));
+        recurringAvailabilityRepository.save(newRule(902, tomorrow, "10:30:00", "12:00:00"));
+
+        indexPreloader.afterSingletonsInstantiated();
+
+        assertWindow(availabilityIndex.get(902, tomorrow), "09:00:00", "12:00:00");
+        assertWindow(availabilityIndex.get(902, dayAfter), "09:30:00", "12:00:00");
+    }
+
+    private static RecurringAvailability newRule(Integer userid, Date startdate, String start, String end) {
+        RecurringAvailability rule = new RecurringAvailability();
+        rule.setUserid(userid);
+        rule.setStartdate(startdate);
+        rule.setEnddate(Date.valueOf(startdate.toLocalDate().plusDays(1)));
+        rule.set_start(Time.valueOf(start));
+        rule.set_end(Time.valueOf(end));
+        rule.setFrequency("DAILY");
+        rule.setEvery(1);
+        return rule;
+    }
+
+    private static void assertWindow(DaySlots slots, String start, String end) {
+        assertThat(slots.size()).isEqualTo(1);
+        assertThat(slots.startAt(0)).isEqualTo(seconds(start));
+        assertThat(slots.endAt(0)).isEqualTo(seconds(end));
+    }
+}
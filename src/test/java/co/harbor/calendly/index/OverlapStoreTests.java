@@ -0,0 +1,78 @@
+package co.harbor.calendly.index;
+
+import co.harbor.calendly.controller.helper.AvailabilityHelper;
+import co.harbor.calendly.utils.TimeUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.sql.Date;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static co.harbor.calendly.TestFixtures.newAvailability;
+import static co.harbor.calendly.TestFixtures.seconds;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"calendly.overlap.materialized.pairs=601:602", "calendly.overlap.materialized.hot-threshold=3"})
+public class OverlapStoreTests {
+
+    @Autowired
+    private AvailabilityHelper availabilityHelper;
+
+    @Autowired
+    private OverlapStore overlapStore;
+
+    @Test
+    public void testHotPairOverlapIsMaterializedAndFollowsWrites() {
+        availabilityHelper.addAvailability(Arrays.asList(
+                newAvailability("2023-08-21", "09:00:00", "11:00:00", 601),
+                newAvailability("2023-08-21", "10:00:00", "12:00:00", 602)));
+        int epochDay = TimeUtils.toEpochDay(Date.valueOf("2023-08-21"));
+
+        assertThat(overlapStore.overlap(602, 601, epochDay)).containsExactly(seconds("10:00:00"), seconds("11:00:00"));
+        assertThat(overlapStore.isMaterialized(601, 602, epochDay)).isTrue();
+
+        availabilityHelper.addAvailability(Collections.singletonList(newAvailability("2023-08-21", "11:00:00", "13:00:00", 601)));
+
+        // Updated by the write itself, before anyone looks the pair up again
+        assertThat(overlapStore.isMaterialized(601, 602, epochDay)).isTrue();
+        assertThat(overlapStore.overlap(601, 602, epochDay)).containsExactly(seconds("10:00:00"), seconds("12:00:00"));
+
+        availabilityHelper.deleteAvailability(newAvailability("2023-08-21", "09:00:00", "13:00:00", 602));
+
+        assertThat(overlapStore.overlap(601, 602, epochDay)).isEmpty();
+    }
+
+    @Test
+    public void testOtherPairsAreNotMaterialized() {
+        availabilityHelper.addAvailability(Arrays.asList(
+                newAvailability("2023-08-22", "09:00:00", "11:00:00", 603),
+                newAvailability("2023-08-22", "10:00:00", "12:00:00", 604)));
+        int epochDay = TimeUtils.toEpochDay(Date.valueOf("2023-08-22"));
+
+        assertThat(overlapStore.overlap(603, 604, epochDay)).containsExactly(seconds("10:00:00"), seconds("11:00:00"));
+        assertThat(overlapStore.isMaterialized(603, 604, epochDay)).isFalse();
+    }
+
+    @Test
+    public void testOnlyCountedLookupsMakeAPairHot() {
+        availabilityHelper.addAvailability(Arrays.asList(
+                newAvailability("2023-10-02", "09:00:00", "11:00:00", 2501),
+                newAvailability("2023-10-02", "10:00:00", "12:00:00", 2502)));
+        int epochDay = TimeUtils.toEpochDay(Date.valueOf("2023-10-02"));
+
+        // Such as a bulk report going through the pair
+        for (int i = 0; i < 5; i++) {
+            assertThat(overlapStore.overlap(2501, 2502, epochDay)).containsExactly(seconds("10:00:00"), seconds("11:00:00"));
+        }
+        assertThat(overlapStore.isMaterialized(2501, 2502, epochDay)).isFalse();
+
+        overlapStore.lookup(2501, 2502, epochDay);
+        overlapStore.lookup(2502, 2501, epochDay);
+        assertThat(overlapStore.isMaterialized(2501, 2502, epochDay)).isFalse();
+
+        assertThat(overlapStore.lookup(2501, 2502, epochDay)).containsExactly(seconds("10:00:00"), seconds("11:00:00"));
+        assertThat(overlapStore.isMaterialized(2501, 2502, epochDay)).isTrue();
+    }
+}
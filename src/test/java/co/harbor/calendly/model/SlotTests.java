@@ -0,0 +1,46 @@
+package co.harbor.calendly.model;
+
+import co.harbor.calendly.entity.UserAvailability;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Date;
+import java.sql.Time;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SlotTests {
+
+    @Test
+    public void testSlotRoundTrip() {
+        UserAvailability availability = new UserAvailability();
+        availability.set_date(Date.valueOf("2023-07-05"));
+        availability.set_start(Time.valueOf("10:15:30"));
+        availability.set_end(Time.valueOf("23:59:59"));
+        availability.setUserid(7);
+
+        long slot = Slot.of(availability);
+
+        assertThat(Slot.toEntity(slot, 7)).isEqualTo(availability);
+    }
+
+    @Test
+    public void testSlotsOrderByDateThenStartThenEnd() {
+        long earlierDay = Slot.of(19000, 80000, 86000);
+        long laterDay = Slot.of(19001, 0, 60);
+        long laterStart = Slot.of(19001, 30, 60);
+        long laterEnd = Slot.of(19001, 30, 90);
+
+        assertThat(earlierDay).isLessThan(laterDay);
+        assertThat(laterDay).isLessThan(laterStart);
+        assertThat(laterStart).isLessThan(laterEnd);
+    }
+
+    @Test
+    public void testSlotBeforeEpoch() {
+        long slot = Slot.of(-365, 60, 120);
+
+        assertThat(Slot.epochDay(slot)).isEqualTo(-365);
+        assertThat(Slot.start(slot)).isEqualTo(60);
+        assertThat(Slot.end(slot)).isEqualTo(120);
+    }
+}
@@ -0,0 +1,39 @@
+package co.harbor.calendly.repository;
+
+import co.harbor.calendly.model.OverlappingAvailability;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.util.Arrays;
+import java.util.List;
+
+import static co.harbor.calendly.TestFixtures.newAvailability;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class IAvailabilityRepositoryTests {
+
+    @Autowired
+    private IAvailabilityRepository availabilityRepository;
+
+    @Test
+    public void testFindOverlappingAvailabilityForContainedSlot() {
+        availabilityRepository.saveAll(Arrays.asList(
+                newAvailability("2023-08-05", "09:00:00", "12:00:00", 301),
+                newAvailability("2023-08-05", "10:00:00", "11:00:00", 302),
+                newAvailability("2023-08-05", "12:00:00", "13:00:00", 302)));
+
+        List<OverlappingAvailability> overlap = availabilityRepository
+                .findOverlappingAvailabilityForDate(301, 302, Date.valueOf("2023-08-05"), PageRequest.of(0, 5))
+                .getContent();
+
+        // The contained slot overlaps, the touching one doesn't
+        assertThat(overlap).hasSize(1);
+        assertThat(overlap.get(0).getOverlappingStartTime()).isEqualTo(Time.valueOf("10:00:00"));
+        assertThat(overlap.get(0).getOverlappingEndTime()).isEqualTo(Time.valueOf("11:00:00"));
+    }
+}
@@ -0,0 +1,71 @@
+package co.harbor.calendly.repository;
+
+import co.harbor.calendly.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collections;
+
+import static co.harbor.calendly.config.CacheConfig.USERS_BY_EMAIL;
+import static co.harbor.calendly.config.CacheConfig.USERS_BY_ID;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class IUserRepositoryTests {
+
+    @Autowired
+    private IUserRepository userRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Test
+    public void testFindByEmailIdIsCachedUntilUsersAreSaved() {
+        String email = "cached.lead@harbor.co";
+        assertThat(userRepository.findByEmailId(email)).isNull();
+
+        User user = new User();
+        user.setFirstName("Cached");
+        user.setLastName("Lead");
+        user.setEmailId(email);
+        userRepository.saveAll(Collections.singletonList(user));
+
+        // The miss above wasn't cached, so the new user is found and then served from the cache
+        User found = userRepository.findByEmailId(email);
+        assertThat(found.getFirstName()).isEqualTo("Cached");
+        assertThat(cacheManager.getCache(USERS_BY_EMAIL).get(email, User.class)).isEqualTo(found);
+
+        // Callers get copies, changing one leaves the cached user as it was
+        found.setFirstName("Renamed");
+        assertThat(userRepository.findByEmailId(email).getFirstName()).isEqualTo("Cached");
+        assertThat(userRepository.findByEmailId(email)).isNotSameAs(userRepository.findByEmailId(email));
+
+        userRepository.saveAll(Collections.singletonList(found));
+
+        assertThat(cacheManager.getCache(USERS_BY_EMAIL).get(email)).isNull();
+        assertThat(userRepository.findByEmailId(email).getFirstName()).isEqualTo("Renamed");
+    }
+
+    @Test
+    public void testEveryUserWriteEvictsTheCaches() {
+        User user = new User();
+        user.setFirstName("Evicted");
+        user.setEmailId("evicted.lead@harbor.co");
+        User saved = userRepository.save(user);
+
+        assertThat(userRepository.findById(saved.getId())).isPresent();
+        assertThat(cacheManager.getCache(USERS_BY_ID).get(saved.getId())).isNotNull();
+
+        saved.setLastName("Lead");
+        userRepository.save(saved);
+        assertThat(cacheManager.getCache(USERS_BY_ID).get(saved.getId())).isNull();
+        assertThat(userRepository.findById(saved.getId())).hasValueSatisfying(found -> assertThat(found.getLastName()).isEqualTo("Lead"));
+
+        userRepository.deleteById(saved.getId());
+        assertThat(cacheManager.getCache(USERS_BY_ID).get(saved.getId())).isNull();
+        assertThat(userRepository.findById(saved.getId())).isEmpty();
+        assertThat(userRepository.findByEmailId("evicted.lead@harbor.co")).isNull();
+    }
+}
@@ -0,0 +1,92 @@
+package co.harbor.calendly.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.sql.Date;
+import java.sql.Time;
+import java.util.List;
+
+import static co.harbor.calendly.utils.ColumnBlock.Type.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ColumnBlockTests {
+
+    @Test
+    public void testEncodeAndDecodeBlocks() {
+        ColumnBlock block = new ColumnBlock(INT, DATE, TIME, STRING);
+        block.add(new Object[]{42, Date.valueOf("2023-08-26"), Time.valueOf("09:00:00"), "Zoë"});
+        block.add(new Object[]{7, null, Time.valueOf("00:00:00"), null});
+        block.add(new Object[]{null, Date.valueOf("1970-01-01"), Time.valueOf("23:59:59"), ""});
+        ByteBuffer first = block.encode();
+        assertThat(block.size()).isZero();
+        block.add(new Object[]{Integer.MIN_VALUE, Date.valueOf("2023-08-27"), null, "second block"});
+        ByteBuffer second = block.encode();
+
+        ByteBuffer in = ByteBuffer.allocate(first.remaining() + second.remaining() + ColumnBlock.end().remaining());
+        in.put(first).put(second).put(ColumnBlock.end()).flip();
+        List<Object[]> rows = ColumnBlock.decode(in, INT, DATE, TIME, STRING);
+
+        assertThat(rows).hasSize(3);
+        assertThat(rows.get(0)).containsExactly(42, Date.valueOf("2023-08-26"), Time.valueOf("09:00:00"), "Zoë");
+        assertThat(rows.get(1)).containsExactly(7, null, Time.valueOf("00:00:00"), null);
+        assertThat(rows.get(2)).containsExactly(null, Date.valueOf("1970-01-01"), Time.valueOf("23:59:59"), "");
+        assertThat(ColumnBlock.decode(in, INT, DATE, TIME, STRING).get(0))
+                .containsExactly(Integer.MIN_VALUE, Date.valueOf("2023-08-27"), null, "second block");
+        assertThat(ColumnBlock.decode(in, INT, DATE, TIME, STRING)).isEmpty();
+        assertThat(in.hasRemaining()).isFalse();
+    }
+
+    @Test
+    public void testSortedColumnsTakeAboutAByteARow() {
+        ColumnBlock block = new ColumnBlock(INT, DATE, TIME, TIME);
+        for (int i = 0; i < 10000; i++) {
+            int userid = i / 20;
+            block.add(new Object[]{userid, TimeUtils.toDate(19593 + i % 20), Time.valueOf("09:00:00"), Time.valueOf("17:00:00")});
+        }
+
+        assertThat(block.encode().remaining()).isLessThan(1000);
+    }
+
+    @Test
+    public void testDecodeRejectsCorruptBlocks() {
+        ColumnBlock block = new ColumnBlock(INT);
+        block.add(new Object[]{1});
+        ByteBuffer encoded = block.encode();
+        encoded.put(12, (byte) (encoded.get(12) ^ 0xFF));
+
+        assertThatThrownBy(() -> ColumnBlock.decode(encoded, INT)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testDecodeRejectsBlockHeadersBeyondTheBuffer() {
+        ColumnBlock block = new ColumnBlock(INT, STRING);
+        block.add(new Object[]{1, "one"});
+        ByteBuffer encoded = block.encode();
+
+        // Compressed length past the end of the buffer
+        ByteBuffer truncated = copy(encoded);
+        truncated.putInt(8, encoded.remaining());
+        assertThatThrownBy(() -> ColumnBlock.decode(truncated, INT, STRING)).isInstanceOf(IllegalArgumentException.class);
+
+        // Raw lengths that are negative or would take gigabytes
+        for (int rawLength : new int[]{-1, Integer.MAX_VALUE}) {
+            ByteBuffer oversized = copy(encoded);
+            oversized.putInt(4, rawLength);
+            assertThatThrownBy(() -> ColumnBlock.decode(oversized, INT, STRING)).isInstanceOf(IllegalArgumentException.class);
+        }
+
+        ByteBuffer negativeRows = copy(encoded);
+        negativeRows.putInt(0, -1);
+        assertThatThrownBy(() -> ColumnBlock.decode(negativeRows, INT, STRING)).isInstanceOf(IllegalArgumentException.class);
+
+        assertThatThrownBy(() -> ColumnBlock.decode(ByteBuffer.allocate(5), INT, STRING)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static ByteBuffer copy(ByteBuffer buffer) {
+        ByteBuffer copy = ByteBuffer.allocate(buffer.remaining());
+        copy.put(buffer.duplicate()).flip();
+        return copy;
+    }
+}
@@ -0,0 +1,23 @@
+package co.harbor.calendly.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CursorUtilsTests {
+
+    @Test
+    public void testEncodeAndDecode() {
+        String cursor = CursorUtils.encode(42, 19593, 36000);
+
+        assertThat(cursor).doesNotContain("=", "+", "/");
+        assertThat(CursorUtils.decode(cursor, 3)).containsExactly(42, 19593, 36000);
+    }
+
+    @Test
+    public void testDecodeRejectsForeignCursors() {
+        assertThatThrownBy(() -> CursorUtils.decode("not a cursor", 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CursorUtils.decode(CursorUtils.encode(7), 3)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,94 @@
+package co.harbor.calendly.utils;
+
+import co.harbor.calendly.model.Slot;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IntervalUtilsTests {
+
+    @Test
+    public void testSubtractContainedWindow() {
+        long[] fragments = new long[2];
+
+        int count = IntervalUtils.subtract(Slot.of(19000, 600, 660), 615, 645, fragments, 0);
+
+        assertThat(count).isEqualTo(2);
+        assertThat(fragments).containsExactly(Slot.of(19000, 600, 615), Slot.of(19000, 645, 660));
+    }
+
+    @Test
+    public void testSubtractCoveringWindow() {
+        long[] fragments = new long[2];
+
+        assertThat(IntervalUtils.subtract(Slot.of(19000, 600, 660), 600, 660, fragments, 0)).isZero();
+    }
+
+    @Test
+    public void testSubtractTouchingWindowKeepsSlot() {
+        long[] fragments = new long[2];
+        long slot = Slot.of(19000, 600, 660);
+
+        int count = IntervalUtils.subtract(slot, 660, 700, fragments, 0);
+
+        assertThat(count).isEqualTo(1);
+        assertThat(fragments[0]).isEqualTo(slot);
+    }
+
+    @Test
+    public void testUnionSortsAndMergesWindows() {
+        int[] union = IntervalUtils.union(new int[]{50, 60, 10, 20, 15, 30, 70, 70});
+
+        assertThat(union).containsExactly(10, 30, 50, 60);
+    }
+
+    @Test
+    public void testSubtractAllWindows() {
+        long[] fragments = new long[3];
+
+        int count = IntervalUtils.subtractAll(Slot.of(19000, 0, 100), new int[]{10, 30, 50, 60}, fragments, 0);
+
+        assertThat(count).isEqualTo(3);
+        assertThat(fragments).containsExactly(Slot.of(19000, 0, 10), Slot.of(19000, 30, 50), Slot.of(19000, 60, 100));
+    }
+
+    @Test
+    public void testSubtractAllWindowsKeepsUntouchedSlot() {
+        long[] fragments = new long[3];
+        long slot = Slot.of(19000, 30, 50);
+
+        int count = IntervalUtils.subtractAll(slot, new int[]{10, 30, 50, 60}, fragments, 0);
+
+        assertThat(count).isEqualTo(1);
+        assertThat(fragments[0]).isEqualTo(slot);
+    }
+
+    @Test
+    public void testIntersectAllForThreeUsers() {
+        int[] first = {540, 720, 780, 1020};
+        int[] second = {600, 840};
+        int[] third = {0, 660, 800, 1440};
+
+        int[] common = IntervalUtils.intersectAll(Arrays.asList(first, second, third));
+
+        assertThat(common).containsExactly(600, 660, 800, 840);
+    }
+
+    @Test
+    public void testIntersectAllIgnoresTouchingWindows() {
+        int[] first = {540, 600};
+        int[] second = {600, 660};
+
+        assertThat(IntervalUtils.intersectAll(Arrays.asList(first, second))).isEmpty();
+    }
+
+    @Test
+    public void testIntersectAllWithAUserWithoutAvailability() {
+        int[] first = {540, 600};
+        int[] second = {};
+
+        assertThat(IntervalUtils.intersectAll(Arrays.asList(first, second))).isEmpty();
+    }
+}
@@ -0,0 +1,58 @@
+package co.harbor.calendly.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Time;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LocalDayTests {
+
+    @Test
+    public void testUtcDayIsOneBucket() {
+        LocalDay day = LocalDay.of(LocalDate.parse("2023-07-05"), TimeUtils.zoneRules("UTC"));
+
+        assertThat(day.length()).isEqualTo(86400);
+        assertThat(day.firstEpochDay()).isEqualTo(day.lastEpochDay());
+        // A slot ending at 23:59:59 lasts until midnight and is shown as it was stored
+        int[] windows = day.fromUtc(day.firstEpochDay(), new int[]{3600, 86399});
+        assertThat(windows).containsExactly(3600, 86400);
+        assertThat(day.toTime(windows[1])).isEqualTo(Time.valueOf("23:59:59"));
+    }
+
+    @Test
+    public void testWindowsCrossingUtcMidnightAreMerged() {
+        LocalDay day = LocalDay.of(LocalDate.parse("2023-07-05"), TimeUtils.zoneRules("America/New_York"));
+        int first = day.firstEpochDay();
+
+        assertThat(day.lastEpochDay()).isEqualTo(first + 1);
+        // 20:00-24:00 and 00:00-02:00 UTC are 16:00-22:00 EDT, windows outside of the local day are clipped
+        int[] windows = day.merge(epochDay -> epochDay == first
+                ? new int[]{3600, 7200, 72000, 86399}
+                : new int[]{0, 7200, 36000, 39600});
+        assertThat(windows).hasSize(2);
+        assertThat(day.toTime(windows[0])).isEqualTo(Time.valueOf("16:00:00"));
+        assertThat(day.toTime(windows[1])).isEqualTo(Time.valueOf("22:00:00"));
+    }
+
+    @Test
+    public void testDaylightSavingTimeDays() {
+        LocalDay springForward = LocalDay.of(LocalDate.parse("2023-03-12"), TimeUtils.zoneRules("America/New_York"));
+        assertThat(springForward.length()).isEqualTo(23 * 3600);
+        assertThat(springForward.toTime(3 * 3600)).isEqualTo(Time.valueOf("04:00:00"));
+
+        LocalDay fallBack = LocalDay.of(LocalDate.parse("2023-11-05"), TimeUtils.zoneRules("America/New_York"));
+        assertThat(fallBack.length()).isEqualTo(25 * 3600);
+        assertThat(fallBack.toTime(3 * 3600)).isEqualTo(Time.valueOf("02:00:00"));
+    }
+
+    @Test
+    public void testDayStartingAfterMidnight() {
+        // Clocks went from 00:00 to 01:00, so the day starts at 01:00
+        LocalDay day = LocalDay.of(LocalDate.parse("2018-11-04"), TimeUtils.zoneRules("America/Sao_Paulo"));
+
+        assertThat(day.length()).isEqualTo(23 * 3600);
+        assertThat(day.toTime(0)).isEqualTo(Time.valueOf("01:00:00"));
+    }
+}
@@ -4,8 +4,12 @@ package co.harbor.calendly.utils;
 import org.junit.jupiter.api.Test;
 
 import java.sql.Date;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class TimeUtilsTests {
 
@@ -22,7 +26,16 @@ public class TimeUtilsTests {
         assertThat(actualDate).isEqualTo(expectedDate);
     }
 
+    @Test
+    public void testParseDate() {
+        assertThat(TimeUtils.parseDate("2023-07-07")).isEqualTo(LocalDate.of(2023, 7, 7));
+        assertThatThrownBy(() -> TimeUtils.parseDate("07/07/2023")).isInstanceOf(IllegalArgumentException.class);
+    }
 
-
-
+    @Test
+    public void testZoneRulesAreCached() {
+        assertThat(TimeUtils.zoneRules("Asia/Kolkata")).isSameAs(TimeUtils.zoneRules("Asia/Kolkata"));
+        assertThat(TimeUtils.zoneRules("+05:30").getOffset(Instant.EPOCH)).isEqualTo(ZoneOffset.ofHoursMinutes(5, 30));
+        assertThatThrownBy(() -> TimeUtils.zoneRules("Mars/Olympus_Mons")).isInstanceOf(IllegalArgumentException.class);
+    }
 }